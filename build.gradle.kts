@@ -3,6 +3,19 @@ plugins {
     id("com.gradleup.shadow") version "9.6.1"
 }
 
+sourceSets {
+    create("jmh") {
+        compileClasspath += sourceSets["main"].output
+        runtimeClasspath += sourceSets["main"].output
+    }
+}
+
+configurations {
+    named("jmhImplementation") { extendsFrom(configurations["implementation"]) }
+    named("jmhCompileOnly") { extendsFrom(configurations["compileOnly"]) }
+    named("jmhRuntimeOnly") { extendsFrom(configurations["runtimeOnly"]) }
+}
+
 repositories {
     mavenCentral()
     maven("https://repo.viaversion.com")
@@ -19,6 +32,9 @@ dependencies {
 
     testImplementation("org.junit.jupiter:junit-jupiter:6.1.3")
     testRuntimeOnly("org.junit.platform:junit-platform-launcher")
+
+    "jmhImplementation"("org.openjdk.jmh:jmh-core:1.37")
+    "jmhAnnotationProcessor"("org.openjdk.jmh:jmh-generator-annprocess:1.37")
 }
 
 group = "com.viaversion"
@@ -86,4 +102,65 @@ tasks {
             args = (project.property("args") as String).split(" ")
         }
     }
+
+    register<JavaExec>("jmh") {
+        group = "verification"
+        description = "Runs the JMH benchmarks, with additional JMH options (e.g. a benchmark regex) passed as -Pargs"
+        mainClass.set("org.openjdk.jmh.Main")
+        classpath = sourceSets["jmh"].runtimeClasspath
+        // Benchmarks read and write relative to the working directory, so they run on a copy of the mapping files
+        // and file hashes to leave the tracked output files untouched
+        val benchmarkDir = layout.buildDirectory.dir("jmh-work").get().asFile
+        workingDir = benchmarkDir
+
+        val resultFile = layout.buildDirectory.file("reports/jmh/results.json").get().asFile
+        doFirst {
+            resultFile.parentFile.mkdirs()
+            delete(benchmarkDir)
+            copy {
+                from(projectDir) {
+                    include("mappings/**", "output_hashes.json", "last_custom_model_data.txt")
+                }
+                into(benchmarkDir)
+            }
+        }
+        args = listOf("-prof", "gc", "-rf", "json", "-rff", resultFile.path)
+        if (project.hasProperty("args")) {
+            args((project.property("args") as String).split(" "))
+        }
+    }
+
+    register<JavaExec>("perfGate") {
+        group = "verification"
+        description = "Fails if benchmark times, allocations or output sizes regressed against perf_baseline.json, pass -Pargs=--updateBaseline to update it"
+        mainClass.set("com.viaversion.mappingsgenerator.PerfGate")
+        classpath = sourceSets["jmh"].runtimeClasspath
+        workingDir = projectDir
+        if (project.hasProperty("args")) {
+            args = (project.property("args") as String).split(" ")
+        }
+    }
+
+    register<JavaExec>("syntheticMappings") {
+        group = "verification"
+        description = "Generates synthetic mapping files, pass the output dir, block count, version count and optionally the churn rates as -Pargs"
+        mainClass.set("com.viaversion.mappingsgenerator.SyntheticMappings")
+        classpath = sourceSets["jmh"].runtimeClasspath
+        workingDir = projectDir
+        if (project.hasProperty("args")) {
+            args = (project.property("args") as String).split(" ")
+        }
+    }
+
+    register<JavaExec>("scalingSuite") {
+        group = "verification"
+        description = "Records optimizer time and memory curves over synthetic mappings, optionally with block counts, version counts and churn rates as -Pargs"
+        mainClass.set("com.viaversion.mappingsgenerator.ScalingSuite")
+        classpath = sourceSets["jmh"].runtimeClasspath
+        workingDir = projectDir
+        maxHeapSize = "4g"
+        if (project.hasProperty("args")) {
+            args = (project.property("args") as String).split(" ")
+        }
+    }
 }
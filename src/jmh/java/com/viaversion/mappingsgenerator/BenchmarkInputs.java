@@ -0,0 +1,118 @@
+/*
+ * This file is part of ViaVersion Mappings - https://github.com/ViaVersion/Mappings
+ * Copyright (C) 2023 Nassim Jahnke
+ * Copyright (C) 2023-2025 ViaVersion and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.viaversion.mappingsgenerator;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.viaversion.mappingsgenerator.MappingsLoader.MappingsResult;
+import com.viaversion.nbt.tag.CompoundTag;
+import com.viaversion.nbt.tag.Tag;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Loads the benchmark inputs from the real mappings directory, cached across the benchmark states of a fork.
+ */
+final class BenchmarkInputs {
+
+    static final List<String> PAIRS = List.of("1.13:1.13.2", "1.15:1.16", "1.20:1.20.2", "1.21.4:1.21.5", "26.2:26.3");
+    static final List<String> KEYS = List.of("blockstates", "blocks", "items", "sounds", "entities");
+
+    private static final Map<String, JsonObject> MAPPINGS = new ConcurrentHashMap<>();
+    private static final Map<String, JsonObject> DIFFS = new ConcurrentHashMap<>();
+
+    private BenchmarkInputs() {
+    }
+
+    static JsonObject mappings(final String version) {
+        return MAPPINGS.computeIfAbsent(version, v -> require(load(MappingsOptimizer.MAPPING_FILE_FORMAT.formatted(v)), v));
+    }
+
+    static @Nullable JsonObject diff(final String from, final String to) {
+        final JsonObject diff = DIFFS.computeIfAbsent(from + ":" + to, k -> {
+            final JsonObject object = load("diff/" + MappingsOptimizer.DIFF_FILE_FORMAT.formatted(from, to));
+            return object != null ? object : new JsonObject();
+        });
+        return diff.isEmpty() ? null : diff;
+    }
+
+    static JsonArray identifiers(final String version, final String key) {
+        return mappings(version).getAsJsonArray(key);
+    }
+
+    /**
+     * Returns the mappings of a registry between two versions, including diff entries.
+     *
+     * @param pair versions as {@code from:to}
+     * @param key  registry key
+     * @return mappings result
+     */
+    static MappingsResult result(final String pair, final String key) {
+        final String[] versions = pair.split(":");
+        final JsonObject diff = diff(versions[0], versions[1]);
+        return MappingsLoader.map(identifiers(versions[0], key), identifiers(versions[1], key),
+            diff != null ? diff.getAsJsonObject(key) : null, ErrorStrategy.IGNORE);
+    }
+
+    /**
+     * Serializes the mappings of every key present in both versions of every pair in {@link #PAIRS}.
+     *
+     * @param checkpointInterval checkpoint interval, or 0 to serialize without checkpoints
+     * @return packed sections
+     */
+    static List<CompoundTag> sections(final int checkpointInterval) throws IOException {
+        final RunContext runContext = RunContext.load();
+        runContext.setCheckpointInterval(checkpointInterval);
+        final CompoundTag output = new CompoundTag();
+        for (final String pair : PAIRS) {
+            final String[] versions = pair.split(":");
+            for (final String key : KEYS) {
+                if (mappings(versions[0]).get(key) instanceof JsonArray && mappings(versions[1]).get(key) instanceof JsonArray) {
+                    MappingsOptimizer.serialize(runContext, result(pair, key), output, pair + "/" + key, true);
+                }
+            }
+        }
+
+        final List<CompoundTag> sections = new ArrayList<>(output.size());
+        for (final Map.Entry<String, Tag> entry : output.entrySet()) {
+            sections.add((CompoundTag) entry.getValue());
+        }
+        return sections;
+    }
+
+    private static @Nullable JsonObject load(final String name) {
+        try {
+            return MappingsLoader.load(name);
+        } catch (final IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static JsonObject require(@Nullable final JsonObject object, final String version) {
+        if (object == null) {
+            throw new IllegalArgumentException("No mappings for " + version + ", benchmarks have to be run from the project directory");
+        }
+        return object;
+    }
+}
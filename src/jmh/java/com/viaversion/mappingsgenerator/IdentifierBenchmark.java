@@ -0,0 +1,115 @@
+/*
+ * This file is part of ViaVersion Mappings - https://github.com/ViaVersion/Mappings
+ * Copyright (C) 2023 Nassim Jahnke
+ * Copyright (C) 2023-2025 ViaVersion and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.viaversion.mappingsgenerator;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.viaversion.mappingsgenerator.util.FrontCodedStrings;
+import com.viaversion.mappingsgenerator.util.JsonConverter;
+import com.viaversion.mappingsgenerator.util.PerfectHash;
+import com.viaversion.nbt.tag.Tag;
+import it.unimi.dsi.fastutil.objects.Object2IntMap;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Converts the global identifier table to nbt, and looks up every identifier of a registry through the hash map
+ * built by {@link MappingsLoader#arrayToMap(JsonArray)}, the {@link PerfectHash} and the {@link FrontCodedStrings}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class IdentifierBenchmark {
+
+    @Param({"items", "blocks", "sounds"})
+    private String key;
+    private JsonObject globalIdentifiers;
+    private JsonArray identifierArray;
+    private List<String> identifiers;
+    private Object2IntMap<String> map;
+    private PerfectHash perfectHash;
+    private FrontCodedStrings frontCoded;
+
+    @Setup
+    public void setup() throws IOException {
+        globalIdentifiers = MappingsLoader.load("identifier-table.json");
+        identifierArray = globalIdentifiers.getAsJsonArray(key);
+        identifiers = new ArrayList<>(identifierArray.size());
+        for (final JsonElement element : identifierArray) {
+            identifiers.add(element.getAsString());
+        }
+        map = MappingsLoader.arrayToMap(identifierArray);
+        perfectHash = PerfectHash.read(PerfectHash.build(identifiers));
+        frontCoded = FrontCodedStrings.read(FrontCodedStrings.encode(identifiers, FrontCodedStrings.DEFAULT_BLOCK_SIZE));
+    }
+
+    @Benchmark
+    public Tag toTag() {
+        return JsonConverter.toTag(globalIdentifiers);
+    }
+
+    @Benchmark
+    public Object2IntMap<String> buildMap() {
+        return MappingsLoader.arrayToMap(identifierArray);
+    }
+
+    @Benchmark
+    public int lookupMap() {
+        int sum = 0;
+        for (final String identifier : identifiers) {
+            sum += map.getInt(identifier);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public int lookupPerfectHash() {
+        int sum = 0;
+        for (final String identifier : identifiers) {
+            sum += perfectHash.id(identifier, identifiers);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public int lookupFrontCoded() {
+        int sum = 0;
+        for (final String identifier : identifiers) {
+            sum += frontCoded.id(identifier);
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,75 @@
+/*
+ * This file is part of ViaVersion Mappings - https://github.com/ViaVersion/Mappings
+ * Copyright (C) 2023 Nassim Jahnke
+ * Copyright (C) 2023-2025 ViaVersion and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.viaversion.mappingsgenerator;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.viaversion.mappingsgenerator.MappingsLoader.MappingsResult;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Maps the identifiers of a registry between two versions, with and without the pair's diff entries. The 1.13 → 1.13.2
+ * block state diff mostly consists of wildcard entries, 1.15 → 1.16 has a large diff, 1.21.4 → 1.21.5 only a few entries.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MapBenchmark {
+
+    @Param({"1.13:1.13.2", "1.15:1.16", "1.21.4:1.21.5"})
+    private String pair;
+    @Param({"blockstates", "items"})
+    private String key;
+    private JsonArray unmapped;
+    private JsonArray mapped;
+    private JsonObject diff;
+
+    @Setup
+    public void setup() {
+        final String[] versions = pair.split(":");
+        unmapped = BenchmarkInputs.identifiers(versions[0], key);
+        mapped = BenchmarkInputs.identifiers(versions[1], key);
+        final JsonObject pairDiff = BenchmarkInputs.diff(versions[0], versions[1]);
+        diff = pairDiff != null && pairDiff.has(key) ? pairDiff.getAsJsonObject(key) : new JsonObject();
+    }
+
+    @Benchmark
+    public MappingsResult withoutDiff() {
+        return MappingsLoader.map(unmapped, mapped, null, ErrorStrategy.IGNORE);
+    }
+
+    @Benchmark
+    public MappingsResult withDiff() {
+        return MappingsLoader.map(unmapped, mapped, diff, ErrorStrategy.IGNORE);
+    }
+}
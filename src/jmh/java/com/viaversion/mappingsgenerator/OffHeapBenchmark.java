@@ -0,0 +1,124 @@
+/*
+ * This file is part of ViaVersion Mappings - https://github.com/ViaVersion/Mappings
+ * Copyright (C) 2023 Nassim Jahnke
+ * Copyright (C) 2023-2025 ViaVersion and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.viaversion.mappingsgenerator;
+
+import com.viaversion.mappingsgenerator.reader.MappingsReader;
+import com.viaversion.mappingsgenerator.reader.MappingsView;
+import com.viaversion.mappingsgenerator.reader.OffHeapArena;
+import com.viaversion.nbt.tag.CompoundTag;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares decoding real sections into heap arrays with decoding them into, or mapping them as, off-heap tables
+ * of an {@link OffHeapArena}, and looking up every id in the results.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OffHeapBenchmark {
+
+    private List<CompoundTag> sections;
+    private List<int[]> heapTables;
+    private List<MappingsView> offHeapTables;
+    private List<MappingsView> mappedTables;
+
+    @Setup
+    public void setup() throws IOException {
+        sections = BenchmarkInputs.sections(64);
+        heapTables = decodeHeap();
+        offHeapTables = decodeOffHeap();
+        mappedTables = mapOffHeap();
+    }
+
+    @Benchmark
+    public List<int[]> decodeHeap() {
+        final List<int[]> tables = new ArrayList<>(sections.size());
+        for (final CompoundTag section : sections) {
+            tables.add(MappingsReader.decode(section));
+        }
+        return tables;
+    }
+
+    @Benchmark
+    public List<MappingsView> decodeOffHeap() {
+        final OffHeapArena arena = new OffHeapArena();
+        final List<MappingsView> tables = new ArrayList<>(sections.size());
+        for (final CompoundTag section : sections) {
+            tables.add(arena.decode(section));
+        }
+        return tables;
+    }
+
+    @Benchmark
+    public List<MappingsView> mapOffHeap() {
+        final OffHeapArena arena = new OffHeapArena();
+        final List<MappingsView> tables = new ArrayList<>(sections.size());
+        for (final CompoundTag section : sections) {
+            tables.add(arena.map(section));
+        }
+        return tables;
+    }
+
+    @Benchmark
+    public long lookupHeap() {
+        long sum = 0;
+        for (final int[] table : heapTables) {
+            for (final int mappedId : table) {
+                sum += mappedId;
+            }
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public long lookupOffHeap() {
+        return lookup(offHeapTables);
+    }
+
+    @Benchmark
+    public long lookupMapped() {
+        return lookup(mappedTables);
+    }
+
+    private static long lookup(final List<MappingsView> tables) {
+        long sum = 0;
+        for (final MappingsView table : tables) {
+            for (int id = 0; id < table.size(); id++) {
+                sum += table.get(id);
+            }
+        }
+        return sum;
+    }
+}
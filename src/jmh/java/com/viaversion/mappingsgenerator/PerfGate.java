@@ -0,0 +1,308 @@
+/*
+ * This file is part of ViaVersion Mappings - https://github.com/ViaVersion/Mappings
+ * Copyright (C) 2023 Nassim Jahnke
+ * Copyright (C) 2023-2025 ViaVersion and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.viaversion.mappingsgenerator;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+import org.jetbrains.annotations.Nullable;
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.Result;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.TimeValue;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Runs a fixed subset of the benchmarks and a full regeneration of the output files, and compares benchmark times,
+ * allocations, regeneration time and output file sizes against the baseline stored in {@code perf_baseline.json}.
+ * Exits with a non-zero status if any of them exceeds its threshold, or if there is no baseline.
+ * <p>
+ * The regeneration runs in a separate JVM on a copy of the mapping files and file hashes in a temporary directory, so
+ * that the tracked output and hashes are left untouched. The thresholds are read from the baseline, falling back to the
+ * defaults below. The baseline is only written when {@code --updateBaseline} is given, keeping its thresholds.
+ */
+public final class PerfGate {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(PerfGate.class.getSimpleName());
+    private static final Path BASELINE_PATH = Path.of("perf_baseline.json");
+    private static final Path RESULTS_PATH = Path.of("build", "reports", "perfGate", "results.json");
+    private static final Path HASHES_PATH = Path.of("output_hashes.json");
+    private static final Path REGENERATION_PATH = Path.of("regeneration.json");
+    private static final String REGENERATE_ARG = "--regenerate";
+    private static final String BENCHMARKS = "LoadBenchmark.load|MapBenchmark.withDiff|SerializeBenchmark.serialize|PrimitivesBenchmark.varIntRead|OffHeapBenchmark.decodeHeap";
+
+    public static void main(final String[] args) throws IOException, RunnerException, InterruptedException {
+        final List<String> argsList = Arrays.asList(args);
+        if (argsList.contains(REGENERATE_ARG)) {
+            regenerateInWorkingDir();
+            return;
+        }
+
+        final boolean updateBaseline = argsList.contains("--updateBaseline");
+        final JsonObject baseline = Files.exists(BASELINE_PATH) ? readJson(BASELINE_PATH) : null;
+        if (baseline == null && !updateBaseline) {
+            LOGGER.error("No baseline found at {}, record one with --updateBaseline", BASELINE_PATH);
+            System.exit(1);
+        }
+
+        final Thresholds thresholds = Thresholds.read(baseline != null ? baseline.getAsJsonObject("thresholds") : null);
+        final JsonObject results = new JsonObject();
+        results.add("benchmarks", runBenchmarks());
+        results.add("regeneration", regenerate());
+        Files.createDirectories(RESULTS_PATH.getParent());
+        MappingsOptimizer.writeJson(results, RESULTS_PATH);
+
+        if (updateBaseline) {
+            results.add("thresholds", thresholds.toJson());
+            MappingsOptimizer.writeJson(results, BASELINE_PATH);
+            LOGGER.info("Wrote baseline to {}", BASELINE_PATH);
+            return;
+        }
+
+        final List<String> regressions = compare(baseline, results, thresholds);
+        if (!regressions.isEmpty()) {
+            for (final String regression : regressions) {
+                LOGGER.error("Regression: {}", regression);
+            }
+            LOGGER.error("{} regressions against {}, update it with --updateBaseline if they are intended", regressions.size(), BASELINE_PATH);
+            System.exit(1);
+        }
+        LOGGER.info("No regressions against {}", BASELINE_PATH);
+    }
+
+    private static JsonObject runBenchmarks() throws RunnerException {
+        final Options options = new OptionsBuilder()
+            .include(BENCHMARKS)
+            .addProfiler(GCProfiler.class)
+            .warmupIterations(2)
+            .warmupTime(TimeValue.seconds(1))
+            .measurementIterations(3)
+            .measurementTime(TimeValue.seconds(1))
+            .forks(1)
+            .build();
+
+        final JsonObject benchmarks = new JsonObject();
+        for (final RunResult result : new Runner(options).run()) {
+            final JsonObject benchmark = new JsonObject();
+            benchmark.addProperty("score", result.getPrimaryResult().getScore());
+            benchmark.addProperty("unit", result.getPrimaryResult().getScoreUnit());
+            for (final Map.Entry<String, Result> entry : result.getSecondaryResults().entrySet()) {
+                // Normalized allocation in bytes per operation, named with a leading dot in older JMH versions
+                if (entry.getKey().endsWith("gc.alloc.rate.norm")) {
+                    benchmark.addProperty("allocation", entry.getValue().getScore());
+                }
+            }
+            benchmarks.add(name(result.getParams()), benchmark);
+        }
+        return benchmarks;
+    }
+
+    private static String name(final BenchmarkParams params) {
+        final String benchmark = params.getBenchmark();
+        final StringBuilder name = new StringBuilder(benchmark.substring(benchmark.lastIndexOf('.', benchmark.lastIndexOf('.') - 1) + 1));
+        for (final String key : params.getParamsKeys()) {
+            name.append(' ').append(key).append('=').append(params.getParam(key));
+        }
+        return name.toString();
+    }
+
+    /**
+     * Regenerates all output files in a separate JVM with a temporary working directory holding a copy of the mapping
+     * files and file hashes.
+     *
+     * @return regeneration time, allocation and output file sizes
+     */
+    private static JsonObject regenerate() throws IOException, InterruptedException {
+        final Path workingDir = Files.createTempDirectory("perfGate");
+        try {
+            copyDirectory(MappingsOptimizer.MAPPINGS_DIR, workingDir.resolve(MappingsOptimizer.MAPPINGS_DIR));
+            Files.copy(HASHES_PATH, workingDir.resolve(HASHES_PATH));
+
+            final Process process = new ProcessBuilder(
+                Path.of(System.getProperty("java.home"), "bin", "java").toString(),
+                "-cp", System.getProperty("java.class.path"),
+                PerfGate.class.getName(), REGENERATE_ARG
+            ).directory(workingDir.toFile()).inheritIO().start();
+            final int exitCode = process.waitFor();
+            if (exitCode != 0) {
+                throw new IllegalStateException("Regeneration failed with exit code " + exitCode);
+            }
+
+            // File sizes as recorded by the regeneration
+            final JsonObject regeneration = readJson(workingDir.resolve(REGENERATION_PATH));
+            final JsonObject fileHashes = readJson(workingDir.resolve(HASHES_PATH));
+            final JsonObject files = new JsonObject();
+            long totalSize = 0;
+            for (final Map.Entry<String, JsonElement> entry : fileHashes.entrySet()) {
+                final long size = entry.getValue().getAsJsonObject().get("size").getAsLong();
+                files.addProperty(entry.getKey(), size);
+                totalSize += size;
+            }
+            regeneration.addProperty("totalSize", totalSize);
+            regeneration.add("files", files);
+            return regeneration;
+        } finally {
+            deleteDirectory(workingDir);
+        }
+    }
+
+    /**
+     * Regenerates all output files in the current working directory and writes the time and allocation it took.
+     */
+    private static void regenerateInWorkingDir() throws IOException {
+        final com.sun.management.ThreadMXBean threadBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        final long allocatedBytes = threadBean.getCurrentThreadAllocatedBytes();
+        final long start = System.nanoTime();
+        ManualRunner.regenerateNbtOutputFiles(ErrorStrategy.WARN);
+
+        final JsonObject regeneration = new JsonObject();
+        regeneration.addProperty("millis", (System.nanoTime() - start) / 1_000_000);
+        regeneration.addProperty("allocation", threadBean.getCurrentThreadAllocatedBytes() - allocatedBytes);
+        MappingsOptimizer.writeJson(regeneration, REGENERATION_PATH);
+    }
+
+    private static List<String> compare(final JsonObject baseline, final JsonObject results, final Thresholds thresholds) {
+        final List<String> regressions = new ArrayList<>();
+        final JsonObject baselineBenchmarks = baseline.getAsJsonObject("benchmarks");
+        if (baselineBenchmarks == null) {
+            LOGGER.info("No benchmark baseline, only checking the regeneration");
+        } else {
+            for (final Map.Entry<String, JsonElement> entry : results.getAsJsonObject("benchmarks").entrySet()) {
+                final JsonObject baselineBenchmark = baselineBenchmarks.getAsJsonObject(entry.getKey());
+                if (baselineBenchmark == null) {
+                    LOGGER.info("No baseline for benchmark {}", entry.getKey());
+                    continue;
+                }
+
+                final JsonObject benchmark = entry.getValue().getAsJsonObject();
+                check(regressions, entry.getKey() + " time", baselineBenchmark, benchmark, "score", thresholds.time());
+                check(regressions, entry.getKey() + " allocation", baselineBenchmark, benchmark, "allocation", thresholds.allocation());
+            }
+        }
+
+        // Times and allocations are left out of a baseline recorded without running the gate
+        final JsonObject baselineRegeneration = baseline.getAsJsonObject("regeneration");
+        final JsonObject regeneration = results.getAsJsonObject("regeneration");
+        check(regressions, "Regeneration time", baselineRegeneration, regeneration, "millis", thresholds.time());
+        check(regressions, "Regeneration allocation", baselineRegeneration, regeneration, "allocation", thresholds.allocation());
+        check(regressions, "Total output size", baselineRegeneration, regeneration, "totalSize", thresholds.totalSize());
+
+        final JsonObject baselineFiles = baselineRegeneration.getAsJsonObject("files");
+        for (final Map.Entry<String, JsonElement> entry : regeneration.getAsJsonObject("files").entrySet()) {
+            final JsonElement baselineSize = baselineFiles.get(entry.getKey());
+            if (baselineSize == null) {
+                continue;
+            }
+
+            final long size = entry.getValue().getAsLong();
+            if (size > baselineSize.getAsLong() * thresholds.fileSize() && size - baselineSize.getAsLong() >= thresholds.minFileSizeIncrease()) {
+                regressions.add("Size of " + entry.getKey() + ": " + baselineSize.getAsLong() + " → " + size + " bytes");
+            }
+        }
+        return regressions;
+    }
+
+    private static void check(final List<String> regressions, final String name, final JsonObject baseline, final JsonObject current, final String key, final double threshold) {
+        if (!baseline.has(key) || !current.has(key)) {
+            return;
+        }
+
+        final double baselineValue = baseline.get(key).getAsDouble();
+        final double value = current.get(key).getAsDouble();
+        if (baselineValue > 0 && value > baselineValue * threshold) {
+            regressions.add(String.format("%s: %.2f → %.2f (%.2fx, allowed %.2fx)", name, baselineValue, value, value / baselineValue, threshold));
+        }
+    }
+
+    private static JsonObject readJson(final Path path) throws IOException {
+        return MappingsGenerator.GSON.fromJson(Files.readString(path), JsonObject.class);
+    }
+
+    private static void copyDirectory(final Path source, final Path target) throws IOException {
+        try (final Stream<Path> stream = Files.walk(source)) {
+            for (final Path path : stream.toList()) {
+                final Path targetPath = target.resolve(source.relativize(path).toString());
+                if (Files.isDirectory(path)) {
+                    Files.createDirectories(targetPath);
+                } else {
+                    Files.copy(path, targetPath);
+                }
+            }
+        }
+    }
+
+    private static void deleteDirectory(final Path directory) throws IOException {
+        try (final Stream<Path> stream = Files.walk(directory)) {
+            for (final Path path : stream.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(path);
+            }
+        }
+    }
+
+    /**
+     * Maximum ratios of current to baseline values, times are given more room due to machine noise.
+     * Files only count as grown if they also grew by at least the given number of bytes.
+     */
+    private record Thresholds(double time, double allocation, double totalSize, double fileSize, long minFileSizeIncrease) {
+
+        private static final Thresholds DEFAULT = new Thresholds(1.5, 1.2, 1.02, 1.2, 1024);
+
+        private static Thresholds read(@Nullable final JsonObject object) {
+            if (object == null) {
+                return DEFAULT;
+            }
+            return new Thresholds(
+                value(object, "time", DEFAULT.time),
+                value(object, "allocation", DEFAULT.allocation),
+                value(object, "totalSize", DEFAULT.totalSize),
+                value(object, "fileSize", DEFAULT.fileSize),
+                (long) value(object, "minFileSizeIncrease", DEFAULT.minFileSizeIncrease)
+            );
+        }
+
+        private static double value(final JsonObject object, final String key, final double defaultValue) {
+            return object.has(key) ? object.get(key).getAsDouble() : defaultValue;
+        }
+
+        private JsonObject toJson() {
+            final JsonObject object = new JsonObject();
+            object.addProperty("time", time);
+            object.addProperty("allocation", allocation);
+            object.addProperty("totalSize", totalSize);
+            object.addProperty("fileSize", fileSize);
+            object.addProperty("minFileSizeIncrease", minFileSizeIncrease);
+            return object;
+        }
+    }
+}
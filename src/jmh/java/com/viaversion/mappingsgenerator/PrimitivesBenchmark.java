@@ -0,0 +1,131 @@
+/*
+ * This file is part of ViaVersion Mappings - https://github.com/ViaVersion/Mappings
+ * Copyright (C) 2023 Nassim Jahnke
+ * Copyright (C) 2023-2025 ViaVersion and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.viaversion.mappingsgenerator;
+
+import com.google.gson.JsonArray;
+import com.viaversion.mappingsgenerator.util.IdRanges;
+import com.viaversion.mappingsgenerator.util.IdSet;
+import com.viaversion.mappingsgenerator.util.VarInts;
+import com.viaversion.nbt.tag.ByteArrayTag;
+import it.unimi.dsi.fastutil.bytes.ByteArrayList;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.ints.IntList;
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Writes and reads varints of real mapped block state ids, and encodes real block state id sets as ranges and
+ * as {@link IdSet}s: the waterlogged states are a set of alternating ids, the default states a sparse one.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PrimitivesBenchmark {
+
+    @Param({"1.13", "1.16", "26.3"})
+    private String version;
+    private int[] values;
+    private byte[] packed;
+    private IntList waterlogged;
+    private IntList firstStates;
+
+    @Setup
+    public void setup() {
+        final JsonArray blockStates = BenchmarkInputs.identifiers(version, "blockstates");
+        values = new int[blockStates.size()];
+        waterlogged = new IntArrayList();
+        firstStates = new IntArrayList();
+        String previousBlock = null;
+        for (int id = 0; id < values.length; id++) {
+            final String state = blockStates.get(id).getAsString();
+            // Descending ids, so that the varints take the same number of bytes as in the mapping files
+            values[id] = values.length - id;
+            if (state.contains("waterlogged=true")) {
+                waterlogged.add(id);
+            }
+
+            final int dataIndex = state.indexOf('[');
+            final String block = dataIndex != -1 ? state.substring(0, dataIndex) : state;
+            if (!block.equals(previousBlock)) {
+                firstStates.add(id);
+                previousBlock = block;
+            }
+        }
+
+        final ByteArrayList out = new ByteArrayList();
+        for (final int value : values) {
+            VarInts.write(out, value);
+        }
+        packed = out.toByteArray();
+    }
+
+    @Benchmark
+    public ByteArrayList varIntWrite() {
+        final ByteArrayList out = new ByteArrayList(packed.length);
+        for (final int value : values) {
+            VarInts.write(out, value);
+        }
+        return out;
+    }
+
+    @Benchmark
+    public int varIntRead() {
+        final ByteBuffer buf = ByteBuffer.wrap(packed);
+        int sum = 0;
+        while (buf.hasRemaining()) {
+            sum += VarInts.read(buf);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public ByteArrayTag idRangesAlternating() {
+        // Encoding sorts the list in place, sorting an already sorted list is part of the cost
+        return IdRanges.encode(waterlogged);
+    }
+
+    @Benchmark
+    public ByteArrayTag idRangesSparse() {
+        return IdRanges.encode(firstStates);
+    }
+
+    @Benchmark
+    public ByteArrayTag idSetAlternating() {
+        return IdSet.encode(waterlogged);
+    }
+
+    @Benchmark
+    public ByteArrayTag idSetSparse() {
+        return IdSet.encode(firstStates);
+    }
+}
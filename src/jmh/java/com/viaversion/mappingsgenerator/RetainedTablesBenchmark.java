@@ -0,0 +1,76 @@
+/*
+ * This file is part of ViaVersion Mappings - https://github.com/ViaVersion/Mappings
+ * Copyright (C) 2023 Nassim Jahnke
+ * Copyright (C) 2023-2025 ViaVersion and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.viaversion.mappingsgenerator;
+
+import com.viaversion.mappingsgenerator.reader.MappingsReader;
+import com.viaversion.mappingsgenerator.reader.OffHeapArena;
+import com.viaversion.nbt.tag.CompoundTag;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures full collections while the decoded tables of many consumers are kept alive, either as heap arrays
+ * or in an {@link OffHeapArena}, to see how much of the collection cost the off-heap tables save.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class RetainedTablesBenchmark {
+
+    @Param({"heap", "offheap"})
+    private String storage;
+    @Param({"1", "32"})
+    private int copies;
+    private final List<Object> retained = new ArrayList<>();
+
+    @Setup
+    public void setup() throws IOException {
+        final List<CompoundTag> sections = BenchmarkInputs.sections(0);
+        final OffHeapArena arena = new OffHeapArena();
+        for (int i = 0; i < copies; i++) {
+            for (final CompoundTag section : sections) {
+                retained.add(storage.equals("heap") ? MappingsReader.decode(section) : arena.decode(section));
+            }
+        }
+        // Keep the arena's chunks reachable through the views
+        retained.add(arena);
+    }
+
+    @Benchmark
+    public int fullGc() {
+        System.gc();
+        return retained.size();
+    }
+}
@@ -0,0 +1,72 @@
+/*
+ * This file is part of ViaVersion Mappings - https://github.com/ViaVersion/Mappings
+ * Copyright (C) 2023 Nassim Jahnke
+ * Copyright (C) 2023-2025 ViaVersion and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.viaversion.mappingsgenerator;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Runs the optimizer over all versions, writing the same output files as a regular run. The file hashes are
+ * not saved, and the benchmark refuses to run in the project directory, so that the tracked output files stay
+ * untouched. {@code ./gradlew jmh} runs it on a copy of the mapping files in a separate working directory.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class RunAllBenchmark {
+
+    private RunContext runContext;
+
+    @Setup(Level.Trial)
+    public void createDirectories() throws IOException {
+        if (Files.exists(Path.of("build.gradle.kts"))) {
+            throw new IllegalStateException("Refusing to overwrite the tracked output files, run the benchmark through ./gradlew jmh");
+        }
+        Files.createDirectories(MappingsOptimizer.OUTPUT_DIR);
+        Files.createDirectories(MappingsOptimizer.OUTPUT_BACKWARDS_DIR);
+        Files.createDirectories(MappingsOptimizer.OUTPUT_DIR.resolve("special"));
+    }
+
+    @Setup(Level.Iteration)
+    public void loadContext() throws IOException {
+        runContext = RunContext.load();
+    }
+
+    @Benchmark
+    public RunContext runAll() throws IOException {
+        ManualRunner.runAll(ErrorStrategy.IGNORE, runContext);
+        return runContext;
+    }
+}
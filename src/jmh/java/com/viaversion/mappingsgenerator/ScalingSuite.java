@@ -0,0 +1,222 @@
+/*
+ * This file is part of ViaVersion Mappings - https://github.com/ViaVersion/Mappings
+ * Copyright (C) 2023 Nassim Jahnke
+ * Copyright (C) 2023-2025 ViaVersion and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.viaversion.mappingsgenerator;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.viaversion.mappingsgenerator.MappingsLoader.MappingsResult;
+import com.viaversion.mappingsgenerator.util.JsonConverter;
+import com.viaversion.nbt.tag.CompoundTag;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.ref.Reference;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Runs the optimizer pipeline stages over {@link SyntheticMappings} of growing registry sizes and version counts,
+ * recording time and heap usage curves to {@code build/synthetic/scaling.json}.
+ * <p>
+ * Every data set is loaded, mapped in both directions between all consecutive versions, serialized, composed from the first
+ * to the last version and merged into a global identifier table. Stages are timed once each, after a warmup run over
+ * the smallest data set; the peak heap usage covers all stages, the retained heap usage everything still referenced after them.
+ */
+public final class ScalingSuite {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ScalingSuite.class.getSimpleName());
+    private static final Path SYNTHETIC_DIR = Path.of("build", "synthetic");
+    private static final List<String> KEYS = List.of("blockstates", "blocks", "items", "sounds");
+    private static final int[] BLOCKS = {1_300, 2_600, 6_500, 13_000};
+    private static final int[] VERSIONS = {4, 10, 20, 40};
+
+    public static void main(final String[] args) throws IOException {
+        // Optionally takes comma separated block and version counts, e.g. 13000,130000 4,
+        // and the insert, rename, property and removal rates, e.g. 0.03,0.01,0.005,0.002
+        final int[] blocks = args.length > 0 ? parse(args[0]) : BLOCKS;
+        final int[] versions = args.length > 1 ? parse(args[1]) : VERSIONS;
+        final String rates = args.length > 2 ? args[2] : null;
+
+        final List<SyntheticMappings> configs = new ArrayList<>();
+        for (final int blockCount : blocks) {
+            configs.add(SyntheticMappings.of(blockCount, versions[0]));
+        }
+        for (int i = 1; i < versions.length; i++) {
+            configs.add(SyntheticMappings.of(blocks[0], versions[i]));
+        }
+        if (rates != null) {
+            configs.replaceAll(config -> config.withRates(rates));
+        }
+
+        measure(configs.get(0));
+        final JsonArray rows = new JsonArray();
+        for (final SyntheticMappings config : configs) {
+            final JsonObject row = measure(config);
+            LOGGER.info("{}", row);
+            rows.add(row);
+        }
+
+        final Path outputPath = SYNTHETIC_DIR.resolve("scaling.json");
+        MappingsOptimizer.writeJson(wrap(rows), outputPath);
+        LOGGER.info("Wrote {} results to {}", rows.size(), outputPath);
+    }
+
+    private static JsonObject measure(final SyntheticMappings config) throws IOException {
+        final Path mappingsDir = SYNTHETIC_DIR.resolve(config.blocks() + "-" + config.versions());
+        config.write(mappingsDir);
+
+        System.gc();
+        resetPeakUsage();
+
+        long start = System.nanoTime();
+        final List<JsonObject> versionObjects = new ArrayList<>(config.versions());
+        for (int i = 0; i < config.versions(); i++) {
+            versionObjects.add(MappingsLoader.load(mappingsDir, MappingsOptimizer.MAPPING_FILE_FORMAT.formatted(config.version(i))));
+        }
+        final long loadNanos = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        final List<List<MappingsResult>> forwards = new ArrayList<>();
+        final List<MappingsResult> results = new ArrayList<>();
+        int unmapped = 0;
+        for (int i = 1; i < config.versions(); i++) {
+            final List<MappingsResult> step = new ArrayList<>(KEYS.size());
+            for (final int[] direction : new int[][]{{i - 1, i}, {i, i - 1}}) {
+                final JsonObject from = versionObjects.get(direction[0]);
+                final JsonObject to = versionObjects.get(direction[1]);
+                final JsonObject diff = MappingsLoader.load(mappingsDir.resolve("diff"),
+                    MappingsOptimizer.DIFF_FILE_FORMAT.formatted(config.version(direction[0]), config.version(direction[1])));
+                for (final String key : KEYS) {
+                    final JsonObject diffIdentifiers = diff != null ? diff.getAsJsonObject(key) : null;
+                    final MappingsResult result = MappingsLoader.map(from.getAsJsonArray(key), to.getAsJsonArray(key), diffIdentifiers, ErrorStrategy.IGNORE);
+                    unmapped += result.emptyMappings();
+                    results.add(result);
+                    if (direction[0] < direction[1]) {
+                        step.add(result);
+                    }
+                }
+            }
+            forwards.add(step);
+        }
+        final long mapNanos = System.nanoTime() - start;
+
+        final RunContext runContext = RunContext.load();
+        final CompoundTag output = new CompoundTag();
+        start = System.nanoTime();
+        for (int i = 0; i < results.size(); i++) {
+            MappingsOptimizer.serialize(runContext, results.get(i), output, Integer.toString(i), true);
+        }
+        final long serializeNanos = System.nanoTime() - start;
+        final int outputBytes = MappingsOptimizer.toBytes(output).length;
+
+        start = System.nanoTime();
+        final List<MappingsResult> composed = new ArrayList<>(forwards.get(0));
+        for (int i = 1; i < forwards.size(); i++) {
+            for (int key = 0; key < KEYS.size(); key++) {
+                composed.set(key, MappingsComposer.compose(composed.get(key), forwards.get(i).get(key)));
+            }
+        }
+        final long composeNanos = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        final JsonObject globalIdentifiers = new JsonObject();
+        for (final String key : KEYS) {
+            final Set<String> identifiers = new LinkedHashSet<>();
+            for (final JsonObject versionObject : versionObjects) {
+                for (final JsonElement identifier : versionObject.getAsJsonArray(key)) {
+                    identifiers.add(identifier.getAsString());
+                }
+            }
+
+            final JsonArray array = new JsonArray(identifiers.size());
+            identifiers.forEach(array::add);
+            MappingsLoader.arrayToMap(array);
+            globalIdentifiers.add(key, array);
+        }
+        JsonConverter.toTag(globalIdentifiers);
+        final long globalTableNanos = System.nanoTime() - start;
+
+        final long peakHeapBytes = peakUsage();
+        System.gc();
+        final long retainedHeapBytes = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+        Reference.reachabilityFence(versionObjects);
+        Reference.reachabilityFence(results);
+        Reference.reachabilityFence(composed);
+        Reference.reachabilityFence(output);
+
+        final JsonObject row = new JsonObject();
+        row.addProperty("blocks", config.blocks());
+        row.addProperty("versions", config.versions());
+        row.addProperty("insertRate", config.insertRate());
+        row.addProperty("renameRate", config.renameRate());
+        row.addProperty("propertyRate", config.propertyRate());
+        row.addProperty("removalRate", config.removalRate());
+        row.addProperty("blockstates", versionObjects.get(versionObjects.size() - 1).getAsJsonArray("blockstates").size());
+        row.addProperty("globalBlockstates", globalIdentifiers.getAsJsonArray("blockstates").size());
+        row.addProperty("unmappedIds", unmapped);
+        row.addProperty("outputBytes", outputBytes);
+        row.addProperty("loadMillis", loadNanos / 1_000_000);
+        row.addProperty("mapMillis", mapNanos / 1_000_000);
+        row.addProperty("serializeMillis", serializeNanos / 1_000_000);
+        row.addProperty("composeMillis", composeNanos / 1_000_000);
+        row.addProperty("globalTableMillis", globalTableNanos / 1_000_000);
+        row.addProperty("peakHeapMb", peakHeapBytes / 1024 / 1024);
+        row.addProperty("retainedHeapMb", retainedHeapBytes / 1024 / 1024);
+        return row;
+    }
+
+    private static void resetPeakUsage() {
+        for (final MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                pool.resetPeakUsage();
+            }
+        }
+    }
+
+    /**
+     * Returns the sum of the peak usages of all heap pools, an upper bound of the actual peak heap usage.
+     */
+    private static long peakUsage() {
+        long peak = 0;
+        for (final MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                peak += pool.getPeakUsage().getUsed();
+            }
+        }
+        return peak;
+    }
+
+    private static JsonObject wrap(final JsonArray rows) {
+        final JsonObject object = new JsonObject();
+        object.add("results", rows);
+        return object;
+    }
+
+    private static int[] parse(final String list) {
+        return Arrays.stream(list.split(",")).mapToInt(Integer::parseInt).toArray();
+    }
+}
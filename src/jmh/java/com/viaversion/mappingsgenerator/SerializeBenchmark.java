@@ -0,0 +1,94 @@
+/*
+ * This file is part of ViaVersion Mappings - https://github.com/ViaVersion/Mappings
+ * Copyright (C) 2023 Nassim Jahnke
+ * Copyright (C) 2023-2025 ViaVersion and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.viaversion.mappingsgenerator;
+
+import com.viaversion.mappingsgenerator.MappingsLoader.MappingsResult;
+import com.viaversion.nbt.tag.ByteArrayTag;
+import com.viaversion.nbt.tag.CompoundTag;
+import com.viaversion.nbt.tag.IntArrayTag;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Serializes real mappings results, both through the full strategy selection and with each encoder on its own.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SerializeBenchmark {
+
+    @Param({"1.13:1.13.2", "1.15:1.16", "1.21.4:1.21.5"})
+    private String pair;
+    @Param({"blockstates", "items"})
+    private String key;
+    private RunContext runContext;
+    private MappingsResult result;
+    private int changes;
+    private ByteArrayTag shiftValues;
+
+    @Setup
+    public void setup() throws IOException {
+        runContext = RunContext.load();
+        runContext.setCheckpointInterval(64);
+        result = BenchmarkInputs.result(pair, key);
+        changes = result.mappings().length - result.identityMappings();
+        shiftValues = MappingsOptimizer.shiftValues(result, key);
+    }
+
+    @Benchmark
+    public CompoundTag serialize() {
+        final CompoundTag tag = new CompoundTag();
+        MappingsOptimizer.serialize(runContext, result, tag, key, true);
+        return tag;
+    }
+
+    @Benchmark
+    public ByteArrayTag directValues() {
+        return MappingsOptimizer.directValues(result.mappings());
+    }
+
+    @Benchmark
+    public ByteArrayTag changedValues() {
+        return MappingsOptimizer.changedValues(result, changes);
+    }
+
+    @Benchmark
+    public ByteArrayTag shiftValues() {
+        return MappingsOptimizer.shiftValues(result, key);
+    }
+
+    @Benchmark
+    public IntArrayTag pairCheckpoints() {
+        return MappingsOptimizer.pairCheckpoints(shiftValues, 64);
+    }
+}
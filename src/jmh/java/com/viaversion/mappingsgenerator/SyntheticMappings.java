@@ -0,0 +1,343 @@
+/*
+ * This file is part of ViaVersion Mappings - https://github.com/ViaVersion/Mappings
+ * Copyright (C) 2023 Nassim Jahnke
+ * Copyright (C) 2023-2025 ViaVersion and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.viaversion.mappingsgenerator;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Generates deterministic synthetic json mappings and diff files, for registries and version counts well beyond the real data.
+ * <p>
+ * The first version has the configured number of blocks, each with up to three properties from a fixed pool, and
+ * items for every block. Every following version then removes, renames, adds a property to and inserts the configured
+ * share of blocks, with sounds being renamed and inserted at the same rates. Diff files are written in both directions,
+ * using wildcard entries for removed, inserted and renamed blocks and explicit block state entries for added properties.
+ *
+ * @param blocks       number of blocks in the first version
+ * @param sounds       number of sounds in the first version
+ * @param versions     number of versions, named 1.0, 1.1 and so on
+ * @param insertRate   share of blocks and sounds inserted per version
+ * @param renameRate   share of blocks and sounds renamed per version
+ * @param propertyRate share of blocks getting an additional property per version
+ * @param removalRate  share of blocks removed per version
+ * @param seed         random seed
+ */
+public record SyntheticMappings(int blocks, int sounds, int versions, double insertRate, double renameRate,
+                                double propertyRate, double removalRate, long seed) {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(SyntheticMappings.class.getSimpleName());
+    private static final String[] PROPERTY_NAMES = {"facing", "waterlogged", "powered", "half", "age", "axis", "level"};
+    private static final String[][] PROPERTY_VALUES = {
+        {"north", "east", "south", "west"},
+        {"false", "true"},
+        {"false", "true"},
+        {"bottom", "top"},
+        {"0", "1", "2", "3", "4", "5", "6", "7"},
+        {"x", "y", "z"},
+        {"0", "1", "2", "3", "4", "5", "6", "7", "8", "9", "10", "11", "12", "13", "14", "15"}
+    };
+
+    /**
+     * Returns a configuration with churn rates similar to those between real versions.
+     *
+     * @param blocks   number of blocks in the first version
+     * @param versions number of versions
+     * @return synthetic mappings configuration
+     */
+    public static SyntheticMappings of(final int blocks, final int versions) {
+        return new SyntheticMappings(blocks, blocks * 3 / 2, versions, 0.03, 0.01, 0.005, 0.002, 1);
+    }
+
+    public static void main(final String[] args) throws IOException {
+        if (args.length < 3) {
+            LOGGER.error("Required args: output dir, number of blocks, number of versions, optionally the insert, rename, property and removal rates");
+            System.exit(1);
+        }
+
+        SyntheticMappings config = of(Integer.parseInt(args[1]), Integer.parseInt(args[2]));
+        if (args.length > 3) {
+            config = config.withRates(args[3]);
+        }
+        config.write(Path.of(args[0]));
+    }
+
+    /**
+     * Returns a copy of this configuration with different churn rates.
+     *
+     * @param rates comma separated insert, rename, property and removal rates, e.g. 0.03,0.01,0.005,0.002
+     * @return synthetic mappings configuration
+     */
+    public SyntheticMappings withRates(final String rates) {
+        final String[] split = rates.split(",");
+        if (split.length != 4) {
+            throw new IllegalArgumentException("Expected insert, rename, property and removal rates, got " + rates);
+        }
+
+        final double[] values = new double[split.length];
+        for (int i = 0; i < split.length; i++) {
+            values[i] = Double.parseDouble(split[i]);
+            if (values[i] < 0 || values[i] > 1) {
+                throw new IllegalArgumentException("Rates have to be between 0 and 1, got " + rates);
+            }
+        }
+        return new SyntheticMappings(blocks, sounds, versions, values[0], values[1], values[2], values[3], seed);
+    }
+
+    public String version(final int index) {
+        return "1." + index;
+    }
+
+    /**
+     * Writes the mapping files of all versions and the diff files between consecutive versions.
+     *
+     * @param mappingsDir directory to write the mapping files to, diff files are written to its diff subdirectory
+     */
+    public void write(final Path mappingsDir) throws IOException {
+        final Path diffDir = mappingsDir.resolve("diff");
+        Files.createDirectories(diffDir);
+
+        final Random random = new Random(seed);
+        final State state = new State();
+        for (int i = 0; i < blocks; i++) {
+            state.blocks.add(state.newBlock(random));
+        }
+        for (int i = 0; i < sounds; i++) {
+            state.sounds.add("synthetic.sound_" + state.nextSound++);
+        }
+        MappingsOptimizer.writeJson(state.toJson(), mappingsDir.resolve(MappingsOptimizer.MAPPING_FILE_FORMAT.formatted(version(0))));
+
+        for (int version = 1; version < versions; version++) {
+            final Diffs diffs = new Diffs();
+            state.step(random, diffs);
+
+            final String from = version(version - 1);
+            final String to = version(version);
+            MappingsOptimizer.writeJson(state.toJson(), mappingsDir.resolve(MappingsOptimizer.MAPPING_FILE_FORMAT.formatted(to)));
+            MappingsOptimizer.writeJson(diffs.forwards, diffDir.resolve(MappingsOptimizer.DIFF_FILE_FORMAT.formatted(from, to)));
+            MappingsOptimizer.writeJson(diffs.backwards, diffDir.resolve(MappingsOptimizer.DIFF_FILE_FORMAT.formatted(to, from)));
+        }
+    }
+
+    private record Block(String name, List<Integer> properties) {
+
+        private void addStates(final List<String> states) {
+            if (properties.isEmpty()) {
+                states.add(name);
+                return;
+            }
+            addStates(states, new StringBuilder(name).append('['), 0);
+        }
+
+        private void addStates(final List<String> states, final StringBuilder prefix, final int index) {
+            final int property = properties.get(index);
+            for (final String value : PROPERTY_VALUES[property]) {
+                final StringBuilder state = new StringBuilder(prefix);
+                if (index != 0) {
+                    state.append(',');
+                }
+                state.append(PROPERTY_NAMES[property]).append('=').append(value);
+                if (index == properties.size() - 1) {
+                    states.add(state.append(']').toString());
+                } else {
+                    addStates(states, state, index + 1);
+                }
+            }
+        }
+
+        private List<String> states() {
+            final List<String> states = new ArrayList<>();
+            addStates(states);
+            return states;
+        }
+    }
+
+    private static final class Diffs {
+
+        private final JsonObject forwards = new JsonObject();
+        private final JsonObject backwards = new JsonObject();
+
+        private void add(final JsonObject diff, final String key, final String from, final String to) {
+            JsonObject registry = diff.getAsJsonObject(key);
+            if (registry == null) {
+                registry = new JsonObject();
+                diff.add(key, registry);
+            }
+            registry.addProperty(from, to);
+        }
+    }
+
+    private final class State {
+
+        private final List<Block> blocks = new ArrayList<>();
+        private final List<String> sounds = new ArrayList<>();
+        private int nextBlock;
+        private int nextSound;
+
+        private Block newBlock(final Random random) {
+            final List<Integer> properties = new ArrayList<>();
+            final int count = random.nextInt(4);
+            while (properties.size() < count) {
+                final int property = random.nextInt(PROPERTY_NAMES.length);
+                if (!properties.contains(property)) {
+                    properties.add(property);
+                }
+            }
+            properties.sort(null);
+            return new Block("synthetic:block_" + nextBlock++, properties);
+        }
+
+        private void step(final Random random, final Diffs diffs) {
+            final Set<String> changed = new HashSet<>();
+            for (int i = 0; i < count(removalRate, blocks.size()); i++) {
+                final Block block = blocks.remove(random.nextInt(blocks.size()));
+                diffs.add(diffs.forwards, "blocks", block.name(), "");
+                diffs.add(diffs.forwards, "blockstates", block.name(), "");
+                diffs.add(diffs.forwards, "items", block.name(), "");
+            }
+
+            for (int i = 0; i < count(renameRate, blocks.size()); i++) {
+                final int index = random.nextInt(blocks.size());
+                final Block block = blocks.get(index);
+                if (!changed.add(block.name())) {
+                    continue;
+                }
+
+                final Block renamed = new Block("synthetic:block_" + nextBlock++, block.properties());
+                changed.add(renamed.name());
+                blocks.set(index, renamed);
+                for (final String key : new String[]{"blocks", "items"}) {
+                    diffs.add(diffs.forwards, key, block.name(), renamed.name());
+                    diffs.add(diffs.backwards, key, renamed.name(), block.name());
+                }
+                // Wildcard entries keep the properties of every state
+                final String suffix = block.properties().isEmpty() ? "" : "[";
+                diffs.add(diffs.forwards, "blockstates", block.name(), renamed.name() + suffix);
+                diffs.add(diffs.backwards, "blockstates", renamed.name(), block.name() + suffix);
+            }
+
+            for (int i = 0; i < count(propertyRate, blocks.size()); i++) {
+                final int index = random.nextInt(blocks.size());
+                final Block block = blocks.get(index);
+                // Renamed blocks would need both wildcard and explicit entries
+                if (block.properties().size() == PROPERTY_NAMES.length || !changed.add(block.name())) {
+                    continue;
+                }
+
+                int property = random.nextInt(PROPERTY_NAMES.length);
+                while (block.properties().contains(property)) {
+                    property = (property + 1) % PROPERTY_NAMES.length;
+                }
+                final List<Integer> properties = new ArrayList<>(block.properties());
+                properties.add(property);
+                properties.sort(null);
+                final Block extended = new Block(block.name(), properties);
+                blocks.set(index, extended);
+
+                // Old states map to the new states with the first value of the added property and back
+                final List<String> oldStates = block.states();
+                final List<String> newStates = extended.states();
+                final int position = properties.indexOf(property);
+                final int stride = stride(properties, position);
+                final int values = PROPERTY_VALUES[property].length;
+                for (int newState = 0; newState < newStates.size(); newState++) {
+                    final int outer = newState / (stride * values);
+                    final int value = newState / stride % values;
+                    final String oldState = oldStates.get(outer * stride + newState % stride);
+                    if (value == 0) {
+                        diffs.add(diffs.forwards, "blockstates", oldState, newStates.get(newState));
+                    }
+                    diffs.add(diffs.backwards, "blockstates", newStates.get(newState), oldState);
+                }
+            }
+
+            for (int i = 0; i < count(insertRate, blocks.size()); i++) {
+                final Block block = newBlock(random);
+                blocks.add(random.nextInt(blocks.size() + 1), block);
+                diffs.add(diffs.backwards, "blocks", block.name(), "");
+                diffs.add(diffs.backwards, "blockstates", block.name(), "");
+                diffs.add(diffs.backwards, "items", block.name(), "");
+            }
+
+            for (int i = 0; i < count(renameRate, sounds.size()); i++) {
+                final int index = random.nextInt(sounds.size());
+                final String sound = sounds.get(index);
+                final String renamed = "synthetic.sound_" + nextSound++;
+                sounds.set(index, renamed);
+                diffs.add(diffs.forwards, "sounds", sound, renamed);
+                diffs.add(diffs.backwards, "sounds", renamed, sound);
+            }
+            for (int i = 0; i < count(insertRate, sounds.size()); i++) {
+                final String sound = "synthetic.sound_" + nextSound++;
+                sounds.add(random.nextInt(sounds.size() + 1), sound);
+                diffs.add(diffs.backwards, "sounds", sound, "");
+            }
+        }
+
+        private JsonObject toJson() {
+            final JsonArray blockNames = new JsonArray(blocks.size());
+            final JsonArray blockStates = new JsonArray();
+            final List<String> states = new ArrayList<>();
+            for (final Block block : blocks) {
+                blockNames.add(block.name());
+                states.clear();
+                block.addStates(states);
+                for (final String state : states) {
+                    blockStates.add(state);
+                }
+            }
+
+            final JsonArray soundNames = new JsonArray(sounds.size());
+            for (final String sound : sounds) {
+                soundNames.add(sound);
+            }
+
+            final JsonObject object = new JsonObject();
+            object.add("blockstates", blockStates);
+            object.add("blocks", blockNames);
+            object.add("items", blockNames.deepCopy());
+            object.add("sounds", soundNames);
+            return object;
+        }
+    }
+
+    private static int count(final double rate, final int size) {
+        return (int) Math.round(rate * size);
+    }
+
+    /**
+     * Returns the number of consecutive states sharing the value of the property at the given position, with the last property changing the fastest.
+     */
+    private static int stride(final List<Integer> properties, final int position) {
+        int stride = 1;
+        for (int i = position + 1; i < properties.size(); i++) {
+            stride *= PROPERTY_VALUES[properties.get(i)].length;
+        }
+        return stride;
+    }
+}
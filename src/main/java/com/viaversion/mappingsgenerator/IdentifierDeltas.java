@@ -0,0 +1,274 @@
+/*
+ * This file is part of ViaVersion Mappings - https://github.com/ViaVersion/Mappings
+ * Copyright (C) 2023 Nassim Jahnke
+ * Copyright (C) 2023-2025 ViaVersion and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.viaversion.mappingsgenerator;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.viaversion.mappingsgenerator.reader.IdentifierFileLoader;
+import com.viaversion.mappingsgenerator.reader.MappingsReader;
+import com.viaversion.mappingsgenerator.util.VarInts;
+import com.viaversion.mappingsgenerator.util.Version;
+import com.viaversion.nbt.tag.ByteArrayTag;
+import com.viaversion.nbt.tag.CompoundTag;
+import com.viaversion.nbt.tag.ListTag;
+import com.viaversion.nbt.tag.StringTag;
+import com.viaversion.nbt.tag.Tag;
+import it.unimi.dsi.fastutil.bytes.ByteArrayList;
+import it.unimi.dsi.fastutil.ints.Int2IntMap;
+import it.unimi.dsi.fastutil.ints.Int2IntOpenHashMap;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Stores identifier files as deltas against the identifier file of the previous version.
+ * <p>
+ * Keyframes and bases are taken from the order of all non-special versions in the mappings directory, independent of
+ * the versions that are part of a run: every {@code keyframeInterval}th of those versions (starting with the oldest),
+ * and every version directly following one without identifiers, is written in full. All other files contain a
+ * {@code chain} list tag with the versions from the last keyframe up to the previous version, whose identifier files
+ * have to be applied in order, and, for every registry present in both versions, a compound with
+ * the {@link MappingsOptimizer#DELTA_ID} id, the {@code size} of the registry, the {@code rem} positions of the
+ * previous version's registry that were removed, stored as varints of the difference to the previous removed position,
+ * and the {@code ins} positions and global ids that were inserted, stored like packed id and value pairs.
+ * Full tables are resolved with {@link MappingsReader#identifierTables(CompoundTag, IdentifierFileLoader, CompoundTag)}.
+ */
+public final class IdentifierDeltas {
+
+    public static final int DEFAULT_KEYFRAME_INTERVAL = 8;
+    private static final Logger LOGGER = LoggerFactory.getLogger(IdentifierDeltas.class.getSimpleName());
+    private final Map<String, PendingFile> files = new HashMap<>();
+    private final Map<String, Map<String, int[]>> rebuiltTables = new HashMap<>();
+    private final int keyframeInterval;
+
+    public IdentifierDeltas(final int keyframeInterval) {
+        if (keyframeInterval < 1) {
+            throw new IllegalArgumentException("Keyframe interval has to be positive, got " + keyframeInterval);
+        }
+        this.keyframeInterval = keyframeInterval;
+    }
+
+    /**
+     * Adds the identifier file of a version, to be written in {@link #writeAll(RunContext)}.
+     *
+     * @param version identifier file version
+     * @param path    path to write the file to
+     * @param tag     full identifier file
+     * @param tables  identifier to global id tables of the file, keyed by registry
+     */
+    public void add(final String version, final Path path, final CompoundTag tag, final Map<String, int[]> tables) {
+        files.put(version, new PendingFile(path, tag, tables));
+    }
+
+    /**
+     * Writes all added identifier files, either as keyframes or as deltas against the previous version. Tables of
+     * previous versions that are not part of the run are rebuilt from their mapping files and the global identifier table,
+     * which has to be written afterwards, as identifiers missing from it are added.
+     *
+     * @param runContext run context to write the files with
+     */
+    public void writeAll(final RunContext runContext) throws IOException {
+        final List<String> allVersions = ManualRunner.allVersions();
+        final List<String> versions = new ArrayList<>(files.keySet());
+        versions.sort(Version::compare);
+
+        long fullSize = 0;
+        long writtenSize = 0;
+        int keyframes = 0;
+        for (final String version : versions) {
+            final PendingFile file = files.get(version);
+            final List<String> chain = chain(runContext, allVersions, allVersions.indexOf(version));
+            final CompoundTag tag = chain.isEmpty() ? file.tag() : delta(runContext, chain, file);
+            runContext.writeFile(version, tag, file.path());
+
+            fullSize += MappingsOptimizer.toBytes(file.tag()).length;
+            writtenSize += MappingsOptimizer.toBytes(tag).length;
+            if (chain.isEmpty()) {
+                keyframes++;
+            }
+        }
+        LOGGER.info("Wrote {} identifier files as deltas with a keyframe every {} versions ({} keyframes): {}kb instead of {}kb",
+            versions.size(), keyframeInterval, keyframes, writtenSize / 1024, fullSize / 1024);
+        files.clear();
+        rebuiltTables.clear();
+    }
+
+    /**
+     * Returns the versions whose identifier files have to be applied in order before the one at the given index,
+     * starting with the last keyframe.
+     *
+     * @return chain of versions, empty if the version is written as a keyframe
+     */
+    private List<String> chain(final RunContext runContext, final List<String> allVersions, final int index) throws IOException {
+        final List<String> chain = new ArrayList<>();
+        for (int i = index; !keyframe(runContext, allVersions, i); i--) {
+            chain.add(0, allVersions.get(i - 1));
+        }
+        return chain;
+    }
+
+    private boolean keyframe(final RunContext runContext, final List<String> allVersions, final int index) throws IOException {
+        return index <= 0 || index % keyframeInterval == 0 || tables(runContext, allVersions.get(index - 1)).isEmpty();
+    }
+
+    private CompoundTag delta(final RunContext runContext, final List<String> chain, final PendingFile file) throws IOException {
+        final Map<String, int[]> baseTables = tables(runContext, chain.get(chain.size() - 1));
+        final CompoundTag tag = new CompoundTag();
+        tag.putInt("version", MappingsOptimizer.VERSION);
+        final ListTag<StringTag> chainTag = new ListTag<>(StringTag.class);
+        for (final String version : chain) {
+            chainTag.add(new StringTag(version));
+        }
+        tag.put("chain", chainTag);
+        for (final Map.Entry<String, Tag> entry : file.tag().entrySet()) {
+            final int[] table = file.tables().get(entry.getKey());
+            final int[] baseTable = baseTables.get(entry.getKey());
+            if (table == null || baseTable == null) {
+                // Not a registry, or new in this version
+                if (!entry.getKey().equals("version")) {
+                    tag.put(entry.getKey(), entry.getValue());
+                }
+                continue;
+            }
+
+            tag.put(entry.getKey(), encode(baseTable, table));
+        }
+        return tag;
+    }
+
+    /**
+     * Returns the identifier to global id tables of the given version, rebuilding them if the version is not part of the run.
+     */
+    private Map<String, int[]> tables(final RunContext runContext, final String version) throws IOException {
+        final PendingFile file = files.get(version);
+        if (file != null) {
+            return file.tables();
+        }
+
+        Map<String, int[]> tables = rebuiltTables.get(version);
+        if (tables == null) {
+            tables = new HashMap<>();
+            final JsonObject object = MappingsLoader.load(MappingsOptimizer.MAPPING_FILE_FORMAT.formatted(version));
+            for (final String key : MappingsOptimizer.IDENTIFIER_KEYS) {
+                final JsonElement identifiers = object != null ? object.get(key) : null;
+                if (identifiers != null && identifiers.isJsonArray()) {
+                    tables.put(key, MappingsOptimizer.globalIdentifierMappings(runContext, key, identifiers.getAsJsonArray(), ErrorStrategy.WARN).mappings());
+                }
+            }
+            rebuiltTables.put(version, tables);
+        }
+        return tables;
+    }
+
+    /**
+     * Returns the changes needed to turn the base table into the target table, keeping the longest
+     * common subsequence of both in place. Apart from unmapped -1 entries, which are always stored as insertions,
+     * both tables must not contain duplicates. Decoded by {@link MappingsReader#decodeDelta(int[], CompoundTag)}.
+     *
+     * @param base   base table
+     * @param target target table
+     * @return delta compound tag
+     */
+    public static CompoundTag encode(final int[] base, final int[] target) {
+        final Int2IntMap basePositions = new Int2IntOpenHashMap(base.length);
+        basePositions.defaultReturnValue(-1);
+        for (int i = 0; i < base.length; i++) {
+            if (base[i] != -1) {
+                basePositions.put(base[i], i);
+            }
+        }
+
+        final boolean[] keptTarget = longestIncreasingSubsequence(target, basePositions);
+        final boolean[] keptBase = new boolean[base.length];
+        final IntArrayList insertedAt = new IntArrayList();
+        final IntArrayList insertedValues = new IntArrayList();
+        for (int i = 0; i < target.length; i++) {
+            if (keptTarget[i]) {
+                keptBase[basePositions.get(target[i])] = true;
+            } else {
+                insertedAt.add(i);
+                insertedValues.add(target[i]);
+            }
+        }
+
+        final ByteArrayList removed = new ByteArrayList();
+        int prevRemoved = -1;
+        for (int i = 0; i < base.length; i++) {
+            if (!keptBase[i]) {
+                VarInts.write(removed, i - prevRemoved - 1);
+                prevRemoved = i;
+            }
+        }
+
+        final CompoundTag tag = new CompoundTag();
+        tag.putByte("id", MappingsOptimizer.DELTA_ID);
+        tag.putInt("size", target.length);
+        tag.put("rem", new ByteArrayTag(removed.toByteArray()));
+        tag.put("ins", MappingsOptimizer.atValuePairs(insertedAt.toIntArray(), insertedValues.toIntArray()));
+        return tag;
+    }
+
+    /**
+     * Marks the longest run of target entries whose positions in the base table are strictly increasing.
+     */
+    private static boolean[] longestIncreasingSubsequence(final int[] target, final Int2IntMap basePositions) {
+        // Patience sorting, keeping the index of the last target entry for every subsequence length
+        final int[] tails = new int[target.length];
+        final int[] previous = new int[target.length];
+        int length = 0;
+        for (int i = 0; i < target.length; i++) {
+            final int position = basePositions.get(target[i]);
+            if (position == -1) {
+                continue;
+            }
+
+            int low = 0;
+            int high = length;
+            while (low < high) {
+                final int mid = (low + high) >>> 1;
+                if (basePositions.get(target[tails[mid]]) < position) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+
+            previous[i] = low > 0 ? tails[low - 1] : -1;
+            tails[low] = i;
+            if (low == length) {
+                length++;
+            }
+        }
+
+        final boolean[] kept = new boolean[target.length];
+        for (int i = length > 0 ? tails[length - 1] : -1; i != -1; i = previous[i]) {
+            kept[i] = true;
+        }
+        return kept;
+    }
+
+    private record PendingFile(Path path, CompoundTag tag, Map<String, int[]> tables) {
+    }
+}
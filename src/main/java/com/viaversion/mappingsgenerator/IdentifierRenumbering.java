@@ -0,0 +1,213 @@
+/*
+ * This file is part of ViaVersion Mappings - https://github.com/ViaVersion/Mappings
+ * Copyright (C) 2023 Nassim Jahnke
+ * Copyright (C) 2023-2025 ViaVersion and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.viaversion.mappingsgenerator;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import it.unimi.dsi.fastutil.objects.Object2IntMap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reorders the global identifier table so that the identifiers of every version map to as few runs of consecutive
+ * global ids as possible, which is what the shifted value storage of the identifier files pays for.
+ * <p>
+ * Every pair of identifiers directly following each other in a version is weighted by the number of versions it appears
+ * in. Pairs are then greedily chained into fragments by weight (the greedy heuristic for the maximum weight
+ * Hamiltonian path), and the fragments concatenated in the order of their first identifier's current global id.
+ * The new order is only used for a registry if its identifier files are smaller than with the current order.
+ */
+public final class IdentifierRenumbering {
+
+    /**
+     * Returns a reordered copy of the global identifier table.
+     *
+     * @param globalIdentifiers current global identifier table
+     * @param versions          json mappings of all versions
+     * @return global identifier table with the same registries and identifiers, each in the cheaper order
+     */
+    public static JsonObject renumber(final JsonObject globalIdentifiers, final List<JsonObject> versions) {
+        final JsonObject renumbered = new JsonObject();
+        for (final Map.Entry<String, JsonElement> entry : globalIdentifiers.entrySet()) {
+            final JsonArray current = entry.getValue().getAsJsonArray();
+            final List<int[]> tables = versionTables(entry.getKey(), current, versions);
+            final int[] order = chainedOrder(current.size(), tables);
+
+            final int[] globalIds = new int[order.length];
+            for (int i = 0; i < order.length; i++) {
+                globalIds[order[i]] = i;
+            }
+            if (encodedSize(tables, globalIds) >= encodedSize(tables, null)) {
+                renumbered.add(entry.getKey(), current);
+                continue;
+            }
+
+            final JsonArray ordered = new JsonArray(order.length);
+            for (final int id : order) {
+                ordered.add(current.get(id));
+            }
+            renumbered.add(entry.getKey(), ordered);
+        }
+        return renumbered;
+    }
+
+    /**
+     * Returns the total size of the identifier file sections of the given registry in all versions.
+     *
+     * @param key         registry key
+     * @param identifiers global identifiers of the registry, in their global id order
+     * @param versions    json mappings of all versions
+     * @return total size of the packed sections
+     */
+    static long encodedSize(final String key, final JsonArray identifiers, final List<JsonObject> versions) {
+        return encodedSize(versionTables(key, identifiers, versions), null);
+    }
+
+    /**
+     * Returns the current global ids of the given registry in every version that has it.
+     */
+    private static List<int[]> versionTables(final String key, final JsonArray current, final List<JsonObject> versions) {
+        final Object2IntMap<String> currentIds = MappingsLoader.arrayToMap(current);
+        final List<int[]> tables = new ArrayList<>();
+        for (final JsonObject version : versions) {
+            final JsonElement identifiers = version.get(key);
+            if (identifiers == null || !identifiers.isJsonArray()) {
+                // Pre 1.13 registries are not part of the global identifier table
+                continue;
+            }
+
+            final JsonArray array = identifiers.getAsJsonArray();
+            final int[] table = new int[array.size()];
+            for (int i = 0; i < table.length; i++) {
+                table[i] = array.get(i).isJsonNull() ? -1 : currentIds.getInt(array.get(i).getAsString());
+            }
+            tables.add(table);
+        }
+        return tables;
+    }
+
+    private static int[] chainedOrder(final int size, final List<int[]> tables) {
+        // Count how often every identifier directly follows another one
+        final Map<Long, int[]> pairWeights = new HashMap<>();
+        for (final int[] table : tables) {
+            for (int i = 1; i < table.length; i++) {
+                if (table[i - 1] != -1 && table[i] != -1 && table[i - 1] != table[i]) {
+                    pairWeights.computeIfAbsent(((long) table[i - 1] << 32) | table[i], k -> new int[1])[0]++;
+                }
+            }
+        }
+
+        final long[] pairs = new long[pairWeights.size()];
+        final int[] weights = new int[pairs.length];
+        final Integer[] pairOrder = new Integer[pairs.length];
+        int index = 0;
+        for (final Map.Entry<Long, int[]> pair : pairWeights.entrySet()) {
+            pairs[index] = pair.getKey();
+            weights[index] = pair.getValue()[0];
+            pairOrder[index] = index++;
+        }
+        // Heaviest pairs first, preferring pairs that are already adjacent, then the pair itself to stay deterministic
+        Arrays.sort(pairOrder, (a, b) -> {
+            if (weights[a] != weights[b]) {
+                return Integer.compare(weights[b], weights[a]);
+            }
+            final boolean adjacentA = (int) pairs[a] == (int) (pairs[a] >>> 32) + 1;
+            final boolean adjacentB = (int) pairs[b] == (int) (pairs[b] >>> 32) + 1;
+            return adjacentA != adjacentB ? (adjacentA ? -1 : 1) : Long.compare(pairs[a], pairs[b]);
+        });
+
+        final int[] next = new int[size];
+        final int[] prev = new int[size];
+        final int[] fragment = new int[size];
+        Arrays.fill(next, -1);
+        Arrays.fill(prev, -1);
+        for (int i = 0; i < size; i++) {
+            fragment[i] = i;
+        }
+        for (final int pairIndex : pairOrder) {
+            final int from = (int) (pairs[pairIndex] >>> 32);
+            final int to = (int) pairs[pairIndex];
+            if (next[from] != -1 || prev[to] != -1) {
+                continue;
+            }
+
+            final int fromFragment = root(fragment, from);
+            final int toFragment = root(fragment, to);
+            if (fromFragment == toFragment) {
+                // Would close a cycle
+                continue;
+            }
+
+            next[from] = to;
+            prev[to] = from;
+            fragment[toFragment] = fromFragment;
+        }
+
+        // Fragment heads are visited in their current order, keeping unrelated identifiers where they were
+        final int[] order = new int[size];
+        int position = 0;
+        for (int id = 0; id < size; id++) {
+            if (prev[id] != -1) {
+                continue;
+            }
+            for (int member = id; member != -1; member = next[member]) {
+                order[position++] = member;
+            }
+        }
+        return order;
+    }
+
+    /**
+     * Returns the total size of the identifier file sections of all versions, using the given new global ids or the current ones if null.
+     */
+    private static long encodedSize(final List<int[]> tables, final int[] globalIds) {
+        long size = 0;
+        for (final int[] table : tables) {
+            if (table.length == 0) {
+                continue;
+            }
+
+            final int[] mappings = new int[table.length];
+            for (int i = 0; i < table.length; i++) {
+                mappings[i] = globalIds == null || table[i] == -1 ? table[i] : globalIds[table[i]];
+            }
+
+            final MappingsLoader.MappingsResult result = MappingsLoader.MappingsResult.of(mappings, -1);
+            final int changes = mappings.length - result.identityMappings();
+            size += Math.min(MappingsOptimizer.directValues(mappings).getValue().length, Math.min(
+                MappingsOptimizer.shiftValues(result, "renumbering").getValue().length,
+                MappingsOptimizer.changedValues(result, changes).getValue().length
+            ));
+        }
+        return size;
+    }
+
+    private static int root(final int[] fragment, final int id) {
+        int root = id;
+        while (fragment[root] != root) {
+            fragment[root] = fragment[fragment[root]];
+            root = fragment[root];
+        }
+        return root;
+    }
+}
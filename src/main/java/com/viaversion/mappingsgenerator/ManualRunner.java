@@ -18,6 +18,7 @@
  */
 package com.viaversion.mappingsgenerator;
 
+import com.google.gson.JsonObject;
 import com.viaversion.mappingsgenerator.util.ServerJarUtil;
 import com.viaversion.mappingsgenerator.util.Version;
 import java.io.File;
@@ -25,8 +26,10 @@ import java.io.IOException;
 import java.nio.file.Files;
 import java.util.ArrayList;
 import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -40,6 +43,11 @@ public final class ManualRunner {
     private static final boolean ALL = true;
 
     private static final boolean ALL_SPECIAL = true; // This will also update the identifier-table
+    private static final boolean RENUMBER_IDENTIFIERS = false; // Reorders the identifier-table, changing all global ids
+    private static final boolean DRY_RUN = false; // Only reports output sizes per section and storage strategy, without writing files
+    private static final boolean MEMORY_ACCOUNTING = false; // Reports estimated heap sizes of the loaded mapping data and heap usage
+    private static final boolean COMPOSE_SPANS = false; // Also writes direct mappings over multiple versions for the spans below
+    private static final Map<String, String> COMPOSED_SPANS = new LinkedHashMap<>();
     private static final Map<String, String> SPECIAL_VERSIONS = new LinkedHashMap<>();
     private static final Map<String, String> SPECIAL_BACKWARDS_VERSIONS = new LinkedHashMap<>();
 
@@ -49,6 +57,11 @@ public final class ManualRunner {
         SPECIAL_BACKWARDS_VERSIONS.put("3D_Shareware", "1.14");
         SPECIAL_BACKWARDS_VERSIONS.put("20w14infinite", "1.16");
         SPECIAL_BACKWARDS_VERSIONS.put("25w14craftmine", "1.21.5");
+
+        if (COMPOSE_SPANS) {
+            COMPOSED_SPANS.put("1.13", "26.3");
+            COMPOSED_SPANS.put("26.3", "1.13");
+        }
     }
 
     public static void main(final String[] args) throws IOException {
@@ -78,10 +91,64 @@ public final class ManualRunner {
         Files.createDirectories(MappingsOptimizer.OUTPUT_BACKWARDS_DIR);
         Files.createDirectories(MappingsOptimizer.OUTPUT_DIR.resolve("special"));
         Files.createDirectories(MappingsOptimizer.OUTPUT_BACKWARDS_DIR.resolve("special"));
+        RunContext runContext = createRunContext();
+        run(errorStrategy, runContext);
+        if (RENUMBER_IDENTIFIERS) {
+            runContext = renumberIdentifiers(errorStrategy, runContext);
+        }
+        runContext.printStats();
+    }
+
+    private static RunContext createRunContext() throws IOException {
         final RunContext runContext = RunContext.load();
+        if (DRY_RUN) {
+            runContext.enableDryRun();
+        }
+        if (MEMORY_ACCOUNTING) {
+            runContext.enableMemoryAccounting();
+        }
+        if (!COMPOSED_SPANS.isEmpty()) {
+            runContext.enableComposition();
+        }
+        return runContext;
+    }
+
+    private static void run(final ErrorStrategy errorStrategy, final RunContext runContext) throws IOException {
         runAll(errorStrategy, runContext);
+        if (runContext.composer() != null) {
+            runContext.composer().writeAll(runContext, COMPOSED_SPANS, allVersions());
+        }
         runContext.finish();
-        runContext.printStats();
+    }
+
+    /**
+     * Renumbers the global identifier table after a full run, when it contains all identifiers, and runs everything again.
+     * The second run uses a new run context, so that its stats and reports only cover the renumbered output.
+     *
+     * @return run context of the renumbered run
+     */
+    private static RunContext renumberIdentifiers(final ErrorStrategy errorStrategy, final RunContext previousRunContext) throws IOException {
+        final List<String> versions = allVersions();
+        final List<JsonObject> versionObjects = new ArrayList<>();
+        for (int i = versions.size() - 1; i >= 0; i--) {
+            versionObjects.add(MappingsLoader.load(MappingsOptimizer.MAPPING_FILE_FORMAT.formatted(versions.get(i))));
+        }
+        final Set<String> specialVersions = new LinkedHashSet<>(SPECIAL_BACKWARDS_VERSIONS.keySet());
+        specialVersions.addAll(SPECIAL_VERSIONS.values());
+        for (final String version : specialVersions) {
+            versionObjects.add(MappingsLoader.load(MappingsOptimizer.MAPPINGS_DIR.resolve("special"), MappingsOptimizer.MAPPING_FILE_FORMAT.formatted(version)));
+        }
+        versionObjects.removeIf(Objects::isNull);
+
+        final RunContext runContext = createRunContext();
+        runContext.replaceGlobalIdentifiers(IdentifierRenumbering.renumber(previousRunContext.globalIdentifiers(), versionObjects));
+        run(errorStrategy, runContext);
+
+        final long previousSize = previousRunContext.identifierFilesSize();
+        final long size = runContext.identifierFilesSize();
+        LOGGER.info("Renumbered global identifiers, identifier files now take {}kb instead of {}kb ({} bytes saved)",
+            size / 1024, previousSize / 1024, previousSize - size);
+        return runContext;
     }
 
     public static void runAll(final ErrorStrategy errorStrategy, final RunContext runContext) throws IOException {
@@ -134,7 +201,12 @@ public final class ManualRunner {
         }
     }
 
-    private static List<String> allVersions() {
+    /**
+     * Returns all versions with a mapping file in the 'mappings' directory, sorted from oldest to newest.
+     *
+     * @return sorted versions
+     */
+    public static List<String> allVersions() {
         final List<String> versions = new ArrayList<>();
         for (final File file : MappingsOptimizer.MAPPINGS_DIR.toFile().listFiles()) {
             final String name = file.getName();
@@ -0,0 +1,80 @@
+/*
+ * This file is part of ViaVersion Mappings - https://github.com/ViaVersion/Mappings
+ * Copyright (C) 2023 Nassim Jahnke
+ * Copyright (C) 2023-2025 ViaVersion and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.viaversion.mappingsgenerator;
+
+import com.google.gson.JsonObject;
+
+/**
+ * Counts how the identifiers of a registry were mapped: directly by name, or by a diff entry matching the identifier,
+ * its id or its block without properties (a wildcard). Wildcard expansions are wildcard hits keeping the original properties.
+ */
+public final class MappingCounters {
+
+    int identifiers;
+    int valueHits;
+    int idHits;
+    int wildcardHits;
+    int wildcardExpansions;
+    int emptyHits;
+    int rawIdHits;
+    int misses;
+
+    /**
+     * Adds the counts of another instance to this one.
+     *
+     * @param other counters to add
+     */
+    public void add(final MappingCounters other) {
+        identifiers += other.identifiers;
+        valueHits += other.valueHits;
+        idHits += other.idHits;
+        wildcardHits += other.wildcardHits;
+        wildcardExpansions += other.wildcardExpansions;
+        emptyHits += other.emptyHits;
+        rawIdHits += other.rawIdHits;
+        misses += other.misses;
+    }
+
+    public int identifiers() {
+        return identifiers;
+    }
+
+    public int misses() {
+        return misses;
+    }
+
+    public JsonObject toJson() {
+        final JsonObject object = new JsonObject();
+        object.addProperty("identifiers", identifiers);
+        object.addProperty("valueHits", valueHits);
+        object.addProperty("idHits", idHits);
+        object.addProperty("wildcardHits", wildcardHits);
+        object.addProperty("wildcardExpansions", wildcardExpansions);
+        object.addProperty("emptyHits", emptyHits);
+        object.addProperty("rawIdHits", rawIdHits);
+        object.addProperty("misses", misses);
+        return object;
+    }
+
+    @Override
+    public String toString() {
+        return "identifiers=" + identifiers + ", value hits=" + valueHits + ", id hits=" + idHits + ", wildcard hits=" + wildcardHits
+            + " (" + wildcardExpansions + " expanded), empty=" + emptyHits + ", raw ids=" + rawIdHits + ", misses=" + misses;
+    }
+}
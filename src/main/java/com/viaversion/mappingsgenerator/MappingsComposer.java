@@ -0,0 +1,164 @@
+/*
+ * This file is part of ViaVersion Mappings - https://github.com/ViaVersion/Mappings
+ * Copyright (C) 2023 Nassim Jahnke
+ * Copyright (C) 2023-2025 ViaVersion and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.viaversion.mappingsgenerator;
+
+import com.viaversion.mappingsgenerator.MappingsLoader.MappingsResult;
+import com.viaversion.mappingsgenerator.util.Version;
+import com.viaversion.nbt.tag.CompoundTag;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Composes the int mappings of consecutive version pairs into direct mappings over multiple versions,
+ * so that consumers of a composed file only need a single lookup instead of one per version in between.
+ * Unmapped (-1) ids stay unmapped, diff-provided mappings of every pair are already part of the recorded mappings.
+ */
+public final class MappingsComposer {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(MappingsComposer.class.getSimpleName());
+    private final Map<String, Map<String, MappingsResult>> pairMappings = new HashMap<>();
+
+    /**
+     * Records the mappings of a key between two versions.
+     *
+     * @param from   version mapped from
+     * @param to     version mapped to
+     * @param key    mappings key
+     * @param result mappings result
+     */
+    public void record(final String from, final String to, final String key, final MappingsResult result) {
+        pairMappings.computeIfAbsent(from + ":" + to, k -> new LinkedHashMap<>()).put(key, result);
+    }
+
+    /**
+     * Composes and writes direct mapping files for all given spans.
+     *
+     * @param runContext run context to write the files with
+     * @param spans      spans to compose, from version to target version
+     * @param versions   all versions, sorted from oldest to newest
+     */
+    public void writeAll(final RunContext runContext, final Map<String, String> spans, final List<String> versions) throws IOException {
+        for (final Map.Entry<String, String> span : spans.entrySet()) {
+            final String from = span.getKey();
+            final String to = span.getValue();
+            final CompoundTag output = compose(runContext, chain(versions, from, to));
+            if (output == null) {
+                LOGGER.warn("No mappings to compose for {} → {}", from, to);
+                continue;
+            }
+
+            final Path outputDir = Version.isBackwards(from, to) ? MappingsOptimizer.OUTPUT_BACKWARDS_DIR : MappingsOptimizer.OUTPUT_DIR;
+            final Path outputPath = outputDir.resolve(MappingsOptimizer.OUTPUT_FILE_FORMAT.formatted(from, to));
+            runContext.writeFile(from + ":" + to, output, outputPath);
+            LOGGER.info("Composed mappings for {} → {} over {} versions", from, to, Math.abs(versions.indexOf(to) - versions.indexOf(from)));
+        }
+    }
+
+    /**
+     * Composes the mappings of every key recorded for all steps of the chain, skipping keys missing in any of the steps.
+     *
+     * @param runContext run context to take storage settings from
+     * @param chain      versions from the first to the last, each one a recorded step away from the one before
+     * @return output tag, or null if no key could be composed
+     */
+    private @Nullable CompoundTag compose(final RunContext runContext, final List<String> chain) {
+        final List<Map<String, MappingsResult>> steps = new ArrayList<>(chain.size() - 1);
+        for (int i = 1; i < chain.size(); i++) {
+            final Map<String, MappingsResult> step = pairMappings.get(chain.get(i - 1) + ":" + chain.get(i));
+            if (step == null) {
+                LOGGER.warn("Mappings for {} → {} were not recorded", chain.get(i - 1), chain.get(i));
+                return null;
+            }
+            steps.add(step);
+        }
+
+        final CompoundTag output = new CompoundTag();
+        output.putInt("version", MappingsOptimizer.VERSION);
+        for (final String key : steps.get(0).keySet()) {
+            MappingsResult result = steps.get(0).get(key);
+            for (int i = 1; i < steps.size() && result != null; i++) {
+                final MappingsResult next = steps.get(i).get(key);
+                result = next != null ? compose(result, next) : null;
+            }
+
+            if (result == null) {
+                LOGGER.debug("{}: Not present in every version of the chain", key);
+                continue;
+            }
+            // Always written, so that a composed key is never mistaken for one without mappings
+            MappingsOptimizer.serialize(runContext, result, output, key, true);
+        }
+        return output.size() > 1 ? output : null;
+    }
+
+    /**
+     * Returns the mappings of first followed by second, with ids unmapped in either step staying unmapped.
+     *
+     * @param first  mappings from A to B
+     * @param second mappings from B to C
+     * @return mappings from A to C
+     */
+    public static MappingsResult compose(final MappingsResult first, final MappingsResult second) {
+        final int[] firstMappings = first.mappings();
+        final int[] secondMappings = second.mappings();
+        final int[] mappings = new int[firstMappings.length];
+        for (int id = 0; id < mappings.length; id++) {
+            final int mappedId = firstMappings[id];
+            mappings[id] = mappedId >= 0 && mappedId < secondMappings.length ? secondMappings[mappedId] : -1;
+        }
+        return MappingsResult.of(mappings, second.mappedSize());
+    }
+
+    /**
+     * Returns identity mappings for keys skipped by the optimizer due to having no changes.
+     *
+     * @param size number of ids
+     * @return identity mappings result
+     */
+    public static MappingsResult identity(final int size) {
+        final int[] mappings = new int[size];
+        for (int id = 0; id < size; id++) {
+            mappings[id] = id;
+        }
+        return MappingsResult.of(mappings, size);
+    }
+
+    private static List<String> chain(final List<String> versions, final String from, final String to) {
+        final int fromIndex = versions.indexOf(from);
+        final int toIndex = versions.indexOf(to);
+        if (fromIndex == -1 || toIndex == -1 || fromIndex == toIndex) {
+            throw new IllegalArgumentException("Invalid span " + from + " → " + to);
+        }
+
+        final int step = fromIndex < toIndex ? 1 : -1;
+        final List<String> chain = new ArrayList<>();
+        for (int i = fromIndex; i != toIndex + step; i += step) {
+            chain.add(versions.get(i));
+        }
+        return chain;
+    }
+}
@@ -23,6 +23,7 @@ import com.google.gson.GsonBuilder;
 import com.google.gson.JsonArray;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
+import com.viaversion.mappingsgenerator.jfr.MappingsLoadEvent;
 import it.unimi.dsi.fastutil.ints.Int2IntLinkedOpenHashMap;
 import it.unimi.dsi.fastutil.ints.Int2IntMap;
 import it.unimi.dsi.fastutil.objects.Object2IntMap;
@@ -67,9 +68,19 @@ public final class MappingsLoader {
             return null;
         }
 
+        final MappingsLoadEvent event = new MappingsLoadEvent();
+        event.begin();
+        final T result;
         try (final BufferedReader reader = Files.newBufferedReader(path)) {
-            return GSON.fromJson(reader, outputClass);
+            result = GSON.fromJson(reader, outputClass);
         }
+        event.end();
+        if (event.shouldCommit()) {
+            event.file = path.toString();
+            event.size = Files.size(path);
+            event.commit();
+        }
+        return result;
     }
 
     /**
@@ -82,6 +93,26 @@ public final class MappingsLoader {
      * @return mappings result with int to int array mappings
      */
     public static MappingsResult map(final JsonArray unmappedIdentifiers, final JsonArray mappedIdentifiers, @Nullable final JsonObject diffIdentifiers, final ErrorStrategy errorStrategy) {
+        return map(unmappedIdentifiers, mappedIdentifiers, diffIdentifiers, errorStrategy, null);
+    }
+
+    /**
+     * Returns a mappings result with int to int array mappings, counting how every identifier was mapped.
+     *
+     * @param unmappedIdentifiers array of unmapped identifiers
+     * @param mappedIdentifiers   array of mapped identifiers
+     * @param diffIdentifiers     diff identifiers
+     * @param errorStrategy       whether to warn on missing mappings
+     * @param counters            counters to add to, or null
+     * @return mappings result with int to int array mappings
+     */
+    public static MappingsResult map(
+        final JsonArray unmappedIdentifiers,
+        final JsonArray mappedIdentifiers,
+        @Nullable final JsonObject diffIdentifiers,
+        final ErrorStrategy errorStrategy,
+        @Nullable final MappingCounters counters
+    ) {
         final int[] output = new int[unmappedIdentifiers.size()];
         final Object2IntMap<String> mappedIdentifierMap = MappingsLoader.arrayToMap(mappedIdentifiers);
         int emptyMappings = 0;
@@ -89,7 +120,7 @@ public final class MappingsLoader {
         int shiftChanges = 0;
         for (int id = 0; id < unmappedIdentifiers.size(); id++) {
             final JsonElement unmappedIdentifier = unmappedIdentifiers.get(id);
-            final int mappedId = mapEntry(id, unmappedIdentifier.getAsString(), mappedIdentifierMap, diffIdentifiers, errorStrategy);
+            final int mappedId = mapEntry(id, unmappedIdentifier.getAsString(), mappedIdentifierMap, diffIdentifiers, errorStrategy, counters);
             output[id] = mappedId;
 
             if (mappedId == -1) {
@@ -122,7 +153,7 @@ public final class MappingsLoader {
         final Object2IntMap<String> mappedIdentifierMap = MappingsLoader.indexedObjectToMap(mappedIdentifiers);
         for (final Map.Entry<String, JsonElement> entry : unmappedIdentifiers.entrySet()) {
             final int id = Integer.parseInt(entry.getKey());
-            final int mappedId = mapEntry(id, entry.getValue().getAsString(), mappedIdentifierMap, diffIdentifiers, errorStrategy);
+            final int mappedId = mapEntry(id, entry.getValue().getAsString(), mappedIdentifierMap, diffIdentifiers, errorStrategy, null);
             output.put(id, mappedId);
         }
         return output;
@@ -136,37 +167,71 @@ public final class MappingsLoader {
      * @param mappedIdentifiers mapped identifiers
      * @param diffIdentifiers   diff identifiers
      * @param errorStrategy     whether to warn on missing mappings
+     * @param counters          counters to add to, or null
      * @return mapped id, or -1 if it was not found
      */
-    private static int mapEntry(final int id, final String value, final Object2IntMap<String> mappedIdentifiers, @Nullable final JsonObject diffIdentifiers, final ErrorStrategy errorStrategy) {
+    private static int mapEntry(
+        final int id,
+        final String value,
+        final Object2IntMap<String> mappedIdentifiers,
+        @Nullable final JsonObject diffIdentifiers,
+        final ErrorStrategy errorStrategy,
+        @Nullable final MappingCounters counters
+    ) {
+        if (counters != null) {
+            counters.identifiers++;
+        }
+
         int mappedId = mappedIdentifiers.getInt(value);
         if (diffIdentifiers != null) {
             // Always check diff mappings to allow overrides for already existing entries
             JsonElement diffElement = diffIdentifiers.get(value);
+            final boolean valueHit = diffElement != null;
             final int dataIndex;
             if (diffElement != null || (diffElement = diffIdentifiers.get(Integer.toString(id))) != null) {
                 // Direct match by id or value
                 final String mappedName = diffElement.getAsString();
                 if (mappedName.isEmpty()) {
+                    if (counters != null) {
+                        counters.emptyHits++;
+                    }
                     return -1; // "empty" remaps without warnings
                 }
                 if (mappedName.startsWith("id:")) {
                     // Special case for cursed mappings
+                    if (counters != null) {
+                        counters.rawIdHits++;
+                    }
                     return Integer.parseInt(mappedName.substring("id:".length()));
                 }
 
-
+                if (counters != null) {
+                    if (valueHit) {
+                        counters.valueHits++;
+                    } else {
+                        counters.idHits++;
+                    }
+                }
                 mappedId = mappedIdentifiers.getInt(mappedName);
             } else if ((dataIndex = value.indexOf('[')) != -1 && (diffElement = diffIdentifiers.getAsJsonPrimitive(value.substring(0, dataIndex))) != null) {
                 // Check for wildcard mappings
                 String mappedName = diffElement.getAsString();
                 if (mappedName.isEmpty()) {
+                    if (counters != null) {
+                        counters.emptyHits++;
+                    }
                     return -1;
                 }
 
+                if (counters != null) {
+                    counters.wildcardHits++;
+                }
                 // Keep original properties if value ends with [
                 if (mappedName.endsWith("[")) {
                     mappedName += value.substring(dataIndex + 1);
+                    if (counters != null) {
+                        counters.wildcardExpansions++;
+                    }
                 }
 
                 mappedId = mappedIdentifiers.getInt(mappedName);
@@ -174,6 +239,9 @@ public final class MappingsLoader {
         }
 
         if (mappedId == -1) {
+            if (counters != null) {
+                counters.misses++;
+            }
             errorStrategy.apply(diffIdentifiers == null ? "No direct mapping or diff file for " + value + " :( " : "No mapping for " + value + " :( ");
         }
         return mappedId;
@@ -208,7 +276,7 @@ public final class MappingsLoader {
             final JsonObject existingDiffIdentifiers = existingDiffObject != null && existingDiffObject.has(key) ? existingDiffObject.getAsJsonObject(key) : null;
             for (int id = 0; id < unmappedIdentifiers.size(); id++) {
                 final String unmappedIdentifier = unmappedIdentifiers.get(id).getAsString();
-                final int mappedId = mapEntry(id, unmappedIdentifier, mappedIdentifierMap, existingDiffIdentifiers, ErrorStrategy.IGNORE);
+                final int mappedId = mapEntry(id, unmappedIdentifier, mappedIdentifierMap, existingDiffIdentifiers, ErrorStrategy.IGNORE, null);
                 if (mappedId != -1) {
                     continue;
                 }
@@ -289,5 +357,32 @@ public final class MappingsLoader {
      */
     public record MappingsResult(int[] mappings, int mappedSize, int emptyMappings, int identityMappings,
                                  int shiftChanges) {
+
+        /**
+         * Returns a mappings result for already computed int to int mappings.
+         *
+         * @param mappings   int to int id mappings
+         * @param mappedSize number of mapped ids
+         * @return mappings result
+         */
+        public static MappingsResult of(final int[] mappings, final int mappedSize) {
+            int emptyMappings = 0;
+            int identityMappings = 0;
+            int shiftChanges = 0;
+            for (int id = 0; id < mappings.length; id++) {
+                final int mappedId = mappings[id];
+                if (mappedId == -1) {
+                    emptyMappings++;
+                } else if (mappedId == id) {
+                    identityMappings++;
+                }
+
+                if (id == 0 && mappedId != 0
+                    || id != 0 && mappedId != mappings[id - 1] + 1) {
+                    shiftChanges++;
+                }
+            }
+            return new MappingsResult(mappings, mappedSize, emptyMappings, identityMappings, shiftChanges);
+        }
     }
 }
@@ -23,7 +23,12 @@ import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
 import com.google.gson.JsonPrimitive;
 import com.viaversion.mappingsgenerator.MappingsLoader.MappingsResult;
+import com.viaversion.mappingsgenerator.jfr.DiffStubsEvent;
+import com.viaversion.mappingsgenerator.jfr.SectionMapEvent;
+import com.viaversion.mappingsgenerator.jfr.StrategyEncodeEvent;
+import com.viaversion.mappingsgenerator.util.IdSet;
 import com.viaversion.mappingsgenerator.util.JsonConverter;
+import com.viaversion.mappingsgenerator.util.PerfectHash;
 import com.viaversion.mappingsgenerator.util.VarInts;
 import com.viaversion.mappingsgenerator.util.Version;
 import com.viaversion.nbt.io.NBTIO;
@@ -37,19 +42,27 @@ import com.viaversion.nbt.tag.StringTag;
 import com.viaversion.nbt.tag.Tag;
 import it.unimi.dsi.fastutil.bytes.ByteArrayList;
 import it.unimi.dsi.fastutil.ints.Int2IntMap;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
 import it.unimi.dsi.fastutil.ints.IntOpenHashSet;
 import it.unimi.dsi.fastutil.ints.IntSet;
 import it.unimi.dsi.fastutil.objects.Object2IntMap;
 import java.io.BufferedWriter;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Function;
+import org.jetbrains.annotations.Nullable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -63,6 +76,9 @@ public final class MappingsOptimizer {
     public static final byte SHIFTS_ID = 1;
     public static final byte CHANGES_ID = 2;
     public static final byte IDENTITY_ID = 3;
+    public static final byte DELTA_ID = 4;
+    private static final String[] STRATEGY_NAMES = {"direct", "shifts", "changes", "identity", "delta"};
+    public static final int DEFAULT_CHECKPOINT_INTERVAL = 256;
     public static final Path MAPPINGS_DIR = Path.of("mappings");
     public static final Path OUTPUT_DIR = Path.of("output");
     public static final Path OUTPUT_BACKWARDS_DIR = OUTPUT_DIR.resolve("backwards");
@@ -72,6 +88,13 @@ public final class MappingsOptimizer {
     public static final String OUTPUT_FILE_FORMAT = "mappings-%sto%s.nbt";
     public static final String OUTPUT_IDENTIFIERS_FILE_FORMAT = "identifiers-%s.nbt";
     public static final String OUTPUT_GLOBAL_IDENTIFIERS_FILE = "identifier-table.nbt";
+    public static final String OUTPUT_DEFLATE_DICTIONARY_FILE = "deflate-dictionary.bin";
+    public static final String OUTPUT_SECTIONS_FILE = "sections.nbt";
+    public static final String COMPRESSED_FILE_EXTENSION = ".nbtz";
+    public static final List<String> IDENTIFIER_KEYS = List.of(
+        "entities", "items", "sounds", "blocks", "particles", "argumenttypes", "attributes",
+        "recipe_serializers", "slot_displays", "data_component_type", "blockentities"
+    );
 
     private static final Logger LOGGER = LoggerFactory.getLogger(MappingsOptimizer.class.getSimpleName());
     private static final TagWriter TAG_WRITER = NBTIO.writer().named();
@@ -119,6 +142,59 @@ public final class MappingsOptimizer {
         final String to = args[1];
 
         final RunContext runContext = RunContext.load();
+        if (argsSet.contains("--decodeCost")) {
+            final String weights = argValue(args, "--decodeCostWeights");
+            final String[] split = weights != null ? weights.split(",", 2) : null;
+            if (split != null && split.length != 2) {
+                LOGGER.error("Expected --decodeCostWeights=<byte weight>,<nanosecond weight>, got {}", weights);
+                System.exit(1);
+            }
+
+            final String timingsPath = argValue(args, "--decodeCostTimings");
+            runContext.setStorageCostModel(StorageCostModel.load(
+                timingsPath != null ? Path.of(timingsPath) : StorageCostModel.DEFAULT_TIMINGS_PATH,
+                split != null ? Double.parseDouble(split[0]) : StorageCostModel.DEFAULT_BYTE_WEIGHT,
+                split != null ? Double.parseDouble(split[1]) : StorageCostModel.DEFAULT_NANO_WEIGHT
+            ));
+        }
+        if (argsSet.contains("--checkpoints")) {
+            runContext.setCheckpointInterval(DEFAULT_CHECKPOINT_INTERVAL);
+        }
+        if (argsSet.contains("--compress") && argsSet.contains("--bundle")) {
+            LOGGER.error("--compress and --bundle cannot be combined, bundles are memory mapped and hold uncompressed files");
+            System.exit(1);
+        }
+        if (argsSet.contains("--compress")) {
+            runContext.enableCompression();
+        }
+        if (argsSet.contains("--bundle")) {
+            runContext.enableBundle();
+        }
+        if (argsSet.contains("--dedupeSections")) {
+            runContext.enableSectionStore();
+        }
+        if (argsSet.contains("--identifierDeltas")) {
+            runContext.enableIdentifierDeltas(IdentifierDeltas.DEFAULT_KEYFRAME_INTERVAL);
+        }
+        if (argsSet.contains("--frontCodedIdentifiers")) {
+            runContext.enableFrontCodedIdentifiers();
+        }
+        if (argsSet.contains("--perfectHashes")) {
+            runContext.enablePerfectHashes();
+        }
+        if (argsSet.contains("--inverseMappings")) {
+            runContext.enableInverseMappings();
+        }
+        if (argsSet.contains("--compactSets")) {
+            runContext.enableCompactSets();
+        }
+        if (argsSet.contains("--dryRun")) {
+            runContext.enableDryRun();
+        }
+        if (argsSet.contains("--memoryAccounting")) {
+            runContext.enableMemoryAccounting();
+        }
+
         final MappingsOptimizer optimizer = new MappingsOptimizer(from, to, runContext);
         if (argsSet.contains("--generateDiffStubs")) {
             optimizer.writeDiffStubs();
@@ -128,6 +204,22 @@ public final class MappingsOptimizer {
         }
         optimizer.optimizeAndWrite();
         runContext.finish();
+        if (runContext.dryRun() || runContext.memoryAccounting() != null) {
+            runContext.printStats();
+        }
+    }
+
+    /**
+     * Returns the value of an optional argument given as {@code name=value}, or null if not present.
+     */
+    private static @Nullable String argValue(final String[] args, final String name) {
+        final String prefix = name + "=";
+        for (int i = 2; i < args.length; i++) {
+            if (args[i].startsWith(prefix)) {
+                return args[i].substring(prefix.length());
+            }
+        }
+        return null;
     }
 
     public MappingsOptimizer(final String from, final String to, final RunContext runContext) throws IOException {
@@ -162,6 +254,7 @@ public final class MappingsOptimizer {
         this.backwards = specialFrom || Version.isBackwards(from, to);
         output.putInt("version", VERSION);
 
+        final long start = System.nanoTime();
         unmappedObject = MappingsLoader.load(getMappingsDir(specialFrom), MAPPING_FILE_FORMAT.formatted(from));
         if (unmappedObject == null) {
             throw new IllegalArgumentException("Mapping file for version " + from + " does not exist");
@@ -173,6 +266,17 @@ public final class MappingsOptimizer {
         }
 
         diffObject = MappingsLoader.load(getDiffDir(specialFrom || specialTo), DIFF_FILE_FORMAT.formatted(from, to));
+        runContext.metrics().pair(from, to).addLoad(System.nanoTime() - start);
+
+        final MemoryAccounting memoryAccounting = runContext.memoryAccounting();
+        if (memoryAccounting != null) {
+            memoryAccounting.recordJson(from, "mapping json", unmappedObject);
+            memoryAccounting.recordJson(to, "mapping json", mappedObject);
+            if (diffObject != null) {
+                memoryAccounting.recordJson(from + ":" + to, "diff json", diffObject);
+            }
+            memoryAccounting.snapshotAfterLoad(from + ":" + to);
+        }
     }
 
     /**
@@ -222,24 +326,26 @@ public final class MappingsOptimizer {
             outputDir = outputDir.resolve("special");
         }
 
+        // Also stores object/file data to keep track of changes
         final Path outputPath = outputDir.resolve(OUTPUT_FILE_FORMAT.formatted(fromVersion, toVersion));
-        write(output, outputPath);
+        runContext.writeFile(fromVersion + ":" + toVersion, output, outputPath);
 
         // Save full identifiers to a separate file per version
         saveIdentifierFiles(fromVersion, unmappedObject);
         saveIdentifierFiles(toVersion, mappedObject);
-
-        // Store object/file data to keep track of changes
-        runContext.addFileData(fromVersion + ":" + toVersion, outputPath);
     }
 
     /**
      * Writes a diff file with empty mappings for all fields that require manual mapping.
      * The generated diff object will be used for further mappings generation on this instance.
+     * In a dry run, it is only kept in memory.
      *
      * @return true if the diff stubs were written, false if they were not written because there were no changes
      */
     public boolean writeDiffStubs() throws IOException {
+        final DiffStubsEvent event = new DiffStubsEvent();
+        event.begin();
+        final long start = System.nanoTime();
         JsonObject diffObject = MappingsLoader.getDiffObjectStub(unmappedObject, mappedObject, this.diffObject, ignoreMissing);
         final boolean hasStubChanges = diffObject != null;
         boolean hasExtraChanges = false;
@@ -251,18 +357,29 @@ public final class MappingsOptimizer {
             final AtomicInteger customModelData = new AtomicInteger(Integer.parseInt(Files.readString(LAST_CUSTOM_MODEL_DATA_PATH)));
             // Count up from the last known custom model data number
             if (addBackwardsData(diffObject, "items", "custom_model_data", name -> new JsonPrimitive(customModelData.incrementAndGet()))) {
-                Files.writeString(LAST_CUSTOM_MODEL_DATA_PATH, Integer.toString(customModelData.get()));
+                if (!runContext.dryRun()) {
+                    Files.writeString(LAST_CUSTOM_MODEL_DATA_PATH, Integer.toString(customModelData.get()));
+                }
                 hasExtraChanges = true;
             }
         }
 
         if (hasStubChanges || hasExtraChanges) {
             LOGGER.info("Writing diff stubs for versions {} → {}", fromVersion, toVersion);
-            Files.writeString(getDiffDir(specialFrom || specialTo).resolve(DIFF_FILE_FORMAT.formatted(fromVersion, toVersion)), MappingsGenerator.GSON.toJson(diffObject));
+            if (!runContext.dryRun()) {
+                Files.writeString(getDiffDir(specialFrom || specialTo).resolve(DIFF_FILE_FORMAT.formatted(fromVersion, toVersion)), MappingsGenerator.GSON.toJson(diffObject));
+            }
             this.diffObject = diffObject;
-            return true;
         }
-        return false;
+        runContext.metrics().pair(fromVersion, toVersion).addStubs(System.nanoTime() - start);
+        event.end();
+        if (event.shouldCommit()) {
+            event.from = fromVersion;
+            event.to = toVersion;
+            event.written = hasStubChanges || hasExtraChanges;
+            event.commit();
+        }
+        return hasStubChanges || hasExtraChanges;
     }
 
     private boolean addBackwardsData(final JsonObject diffObject, final String key, final String dataKey, final Function<String, JsonElement> outputMapper) {
@@ -321,37 +438,57 @@ public final class MappingsOptimizer {
     }
 
     /**
-     * Writes the current mappings output as an NBT file into the given directory.
+     * Writes the current mappings output as an NBT file into the given directory through {@link RunContext#writeFile(String, CompoundTag, Path)}.
      *
      * @param directory directory to write the output file to
      */
     public void writeToDir(final Path directory) throws IOException {
-        write(output, directory.resolve(OUTPUT_FILE_FORMAT.formatted(fromVersion, toVersion)));
+        runContext.writeFile(fromVersion + ":" + toVersion, output, directory.resolve(OUTPUT_FILE_FORMAT.formatted(fromVersion, toVersion)));
     }
 
     public void saveIdentifierFiles(final String version, final JsonObject object) throws IOException {
         final CompoundTag identifiers = new CompoundTag();
         identifiers.putInt("version", VERSION);
-        storeIdentifierIndexes(identifiers, object, "entities");
-        storeIdentifierIndexes(identifiers, object, "items");
-        storeIdentifierIndexes(identifiers, object, "sounds");
-        storeIdentifierIndexes(identifiers, object, "blocks");
-        storeIdentifierIndexes(identifiers, object, "particles");
-        storeIdentifierIndexes(identifiers, object, "argumenttypes");
-        storeIdentifierIndexes(identifiers, object, "attributes");
-        storeIdentifierIndexes(identifiers, object, "recipe_serializers");
-        storeIdentifierIndexes(identifiers, object, "slot_displays");
-        storeIdentifierIndexes(identifiers, object, "data_component_type");
-        storeIdentifierIndexes(identifiers, object, "blockentities");
+        final Map<String, int[]> tables = new HashMap<>();
+        for (final String key : IDENTIFIER_KEYS) {
+            final int[] table = storeIdentifierIndexes(identifiers, object, key);
+            if (table != null) {
+                tables.put(key, table);
+            }
+        }
+
+        if (runContext.perfectHashes() && !tables.isEmpty()) {
+            final CompoundTag perfectHashes = new CompoundTag();
+            for (final String key : IDENTIFIER_KEYS) {
+                if (tables.containsKey(key)) {
+                    perfectHashes.put(key, PerfectHash.build(identifierList(object.getAsJsonArray(key))));
+                }
+            }
+            identifiers.put("mph", perfectHashes);
+        }
 
         // No need to save the same identifiers multiple times if one version appears in multiple runs
         if (runContext.markIdentifierFileSaved(version) && identifiers.size() > 1) {
-            final Path outputDir = (specialFrom || specialTo) ? OUTPUT_DIR.resolve("special") : OUTPUT_DIR;
+            final boolean special = specialFrom || specialTo;
+            final Path outputDir = special ? OUTPUT_DIR.resolve("special") : OUTPUT_DIR;
             final Path outputPath = outputDir.resolve(OUTPUT_IDENTIFIERS_FILE_FORMAT.formatted(version));
 
-            write(identifiers, outputPath);
-            runContext.addFileData(version, outputPath);
+            final IdentifierDeltas identifierDeltas = runContext.identifierDeltas();
+            if (identifierDeltas != null && !special) {
+                // Versions are not necessarily visited in order, so only write them once all are known
+                identifierDeltas.add(version, outputPath, identifiers, tables);
+            } else {
+                runContext.writeFile(version, identifiers, outputPath);
+            }
+        }
+    }
+
+    private static List<String> identifierList(final JsonArray array) {
+        final List<String> identifiers = new ArrayList<>(array.size());
+        for (final JsonElement element : array) {
+            identifiers.add(element.isJsonNull() ? null : element.getAsString());
         }
+        return identifiers;
     }
 
     static void writeJson(final JsonObject object, final Path path) throws IOException {
@@ -390,15 +527,39 @@ public final class MappingsOptimizer {
 
         final JsonArray unmappedIdentifiers = unmappedObject.getAsJsonArray(key);
         final JsonArray mappedIdentifiers = mappedObject.getAsJsonArray(key);
+        final MappingsComposer composer = runContext.composer();
         if (unmappedIdentifiers.equals(mappedIdentifiers) && !alwaysWriteIdentity) {
             LOGGER.debug("{}: Skipped", key);
+            if (composer != null) {
+                composer.record(fromVersion, toVersion, key, MappingsComposer.identity(unmappedIdentifiers.size()));
+            }
             return;
         }
 
         LOGGER.debug("Mapping {}: {} → {}", key, unmappedIdentifiers.size(), mappedIdentifiers.size());
         final JsonObject diffIdentifiers = diffObject != null ? diffObject.getAsJsonObject(key) : null;
-        final MappingsResult result = MappingsLoader.map(unmappedIdentifiers, mappedIdentifiers, diffIdentifiers, shouldWarn(key));
+        final RunMetrics.SectionMetrics metrics = runContext.metrics().pair(fromVersion, toVersion).section(key);
+        final SectionMapEvent event = new SectionMapEvent();
+        event.begin();
+        final long start = System.nanoTime();
+        final MappingsResult result = MappingsLoader.map(unmappedIdentifiers, mappedIdentifiers, diffIdentifiers, shouldWarn(key), metrics.counters());
+        final long mapped = System.nanoTime();
+        event.end();
+        if (event.shouldCommit()) {
+            event.from = fromVersion;
+            event.to = toVersion;
+            event.section = key;
+            event.size = result.mappings().length;
+            event.mappedSize = result.mappedSize();
+            event.emptyMappings = result.emptyMappings();
+            event.commit();
+        }
         serialize(result, output, key, alwaysWriteIdentity);
+        metrics.addMap(mapped - start);
+        metrics.addEncode(System.nanoTime() - mapped);
+        if (composer != null) {
+            composer.record(fromVersion, toVersion, key, result);
+        }
     }
 
     private ErrorStrategy shouldWarn(final String key) {
@@ -436,7 +597,9 @@ public final class MappingsOptimizer {
         changedTag.putByte("nofill", (byte) 1);
         changedTag.putInt("size", size);
         changedTag.putInt("mappedSize", mappedIdentifiers.size());
-        changedTag.put("val", atValuePairs(unmapped, mapped));
+        final ByteArrayTag values = atValuePairs(unmapped, mapped);
+        changedTag.put("val", values);
+        putCheckpoints(runContext, changedTag, values);
         output.put(outputKey, changedTag);
     }
 
@@ -520,7 +683,9 @@ public final class MappingsOptimizer {
         }
 
         if (!changedProperties.isEmpty()) {
-            output.put("changed_blocks", new IntArrayTag(changedProperties.toIntArray()));
+            output.put("changed_blocks", runContext.compactSets()
+                ? IdSet.encode(new IntArrayList(changedProperties))
+                : new IntArrayTag(changedProperties.toIntArray()));
         }
     }
 
@@ -607,28 +772,48 @@ public final class MappingsOptimizer {
      * @param tag    tag to write to
      * @param object object to read identifiers from
      * @param key    to read from and write to
+     * @return identifier to global id table, or null if there are no identifier indexes for the key
      */
-    private void storeIdentifierIndexes(
+    private int @Nullable [] storeIdentifierIndexes(
         final CompoundTag tag,
         final JsonObject object,
         final String key
     ) {
         final JsonElement identifiersElement = object.get(key);
         if (identifiersElement == null) {
-            return;
+            return null;
         }
 
         if (identifiersElement.isJsonObject()) {
             // Pre 1.13
             LOGGER.debug("Identifiers for {} are not an array", key);
-            return;
+            return null;
         }
 
-        // Add to global identifiers if not already present
-        final JsonArray identifiers = identifiersElement.getAsJsonArray();
-        final JsonArray globalIdentifiersArray = runContext.globalIdentifierArray(key);
-        final Object2IntMap<String> globalIdentifiers = runContext.globalIdentifierMap(key);
+        // Use the same compact storage on the identifier->global identifier files, just about halves the size
+        // Remove mapped size to avoid unnecessary file changes
+        MappingsResult result = globalIdentifierMappings(runContext, key, identifiersElement.getAsJsonArray(), errorStrategy);
+        result = new MappingsResult(result.mappings(), -1, result.emptyMappings(), result.identityMappings(), result.shiftChanges());
+        serialize(result, tag, key, true);
+        return result.mappings();
+    }
 
+    /**
+     * Maps identifiers to their global ids, adding those not yet present to the global identifier table.
+     *
+     * @param runContext    run context holding the global identifier table
+     * @param key           registry key
+     * @param identifiers   identifiers of a version
+     * @param errorStrategy error strategy for identifiers that cannot be mapped
+     * @return identifier to global id mappings
+     */
+    static MappingsResult globalIdentifierMappings(
+        final RunContext runContext,
+        final String key,
+        final JsonArray identifiers,
+        final ErrorStrategy errorStrategy
+    ) {
+        final Object2IntMap<String> globalIdentifiers = runContext.globalIdentifierMap(key);
         for (int id = 0; id < identifiers.size(); id++) {
             final JsonElement entry = identifiers.get(id);
             if (entry.isJsonNull()) {
@@ -642,12 +827,7 @@ public final class MappingsOptimizer {
 
             runContext.addGlobalIdentifier(key, identifier);
         }
-
-        // Use the same compact storage on the identifier->global identifier files, just about halves the size
-        // Remove mapped size to avoid unnecessary file changes
-        MappingsResult result = MappingsLoader.map(identifiers, globalIdentifiersArray, null, errorStrategy);
-        result = new MappingsResult(result.mappings(), -1, result.emptyMappings(), result.identityMappings(), result.shiftChanges());
-        serialize(result, tag, key, true);
+        return MappingsLoader.map(identifiers, runContext.globalIdentifierArray(key), null, errorStrategy);
     }
 
     /**
@@ -659,6 +839,66 @@ public final class MappingsOptimizer {
      * @param alwaysWriteIdentity whether to write identity mappings even if there are no changes
      */
     private void serialize(final MappingsResult result, final CompoundTag parent, final String key, final boolean alwaysWriteIdentity) {
+        final StrategyEncodeEvent event = new StrategyEncodeEvent();
+        event.begin();
+        serialize(runContext, result, parent, key, alwaysWriteIdentity);
+        event.end();
+        if (event.shouldCommit()) {
+            final CompoundTag tag = parent.getCompoundTag(key);
+            final ByteArrayTag values = tag != null ? tag.getByteArrayTag("val") : null;
+            event.from = fromVersion;
+            event.to = toVersion;
+            event.section = key;
+            event.size = result.mappings().length;
+            event.strategy = tag != null ? strategyName(tag.getByte("id")) : "skipped";
+            event.encodedSize = values != null ? values.length() : 0;
+            event.commit();
+        }
+    }
+
+    /**
+     * Returns the name of a storage strategy id.
+     *
+     * @param id storage strategy id
+     * @return name of the storage strategy, or unknown for unknown ids
+     */
+    public static String strategyName(final byte id) {
+        return id >= 0 && id < STRATEGY_NAMES.length ? STRATEGY_NAMES[id] : "unknown";
+    }
+
+    /**
+     * Writes an int to int mappings result to the ntb tag, picking the storage strategy with the given run context's settings.
+     *
+     * @param runContext          run context to take storage settings from and count storage strategies in
+     * @param result              result with int to int mappings
+     * @param parent              tag to write to
+     * @param key                 key to write to
+     * @param alwaysWriteIdentity whether to write identity mappings even if there are no changes
+     */
+    static void serialize(
+        final RunContext runContext,
+        final MappingsResult result,
+        final CompoundTag parent,
+        final String key,
+        final boolean alwaysWriteIdentity
+    ) {
+        serialize(runContext, result, parent, key, alwaysWriteIdentity, true);
+    }
+
+    /**
+     * Writes an int to int mappings result to the ntb tag, optionally leaving it out of the storage strategy counts and size analysis.
+     * Nested inverse sections are not recorded on their own, as they are already part of the size of the section containing them.
+     *
+     * @param recordStats whether to count the storage strategy and add the section to the size analysis
+     */
+    private static void serialize(
+        final RunContext runContext,
+        final MappingsResult result,
+        final CompoundTag parent,
+        final String key,
+        final boolean alwaysWriteIdentity,
+        final boolean recordStats
+    ) {
         final int[] mappings = result.mappings();
         final int numberOfChanges = mappings.length - result.identityMappings();
         final boolean hasChanges = numberOfChanges != 0 || result.emptyMappings() != 0;
@@ -673,25 +913,35 @@ public final class MappingsOptimizer {
             tag.putInt("mappedSize", result.mappedSize());
         }
 
+        final SizeAnalysis sizeAnalysis = recordStats ? runContext.sizeAnalysis() : null;
         if (!hasChanges) {
             tag.putByte("id", IDENTITY_ID);
             tag.putInt("size", mappings.length);
-            runContext.countStorageStrategy(IDENTITY_ID);
+            if (recordStats) {
+                runContext.countStorageStrategy(IDENTITY_ID);
+            }
+            if (sizeAnalysis != null) {
+                sizeAnalysis.addSection(tag, IDENTITY_ID, result, -1, -1, -1);
+            }
             return;
         }
 
-        // Compare output sizes to pick the most optimal strategy.
+        // Compare output sizes (and optionally the estimated decode time) to pick the most optimal strategy.
         // The whole run is so fast that it's free to just do the actual encode runs.
         final ByteArrayTag directValues = directValues(mappings);
         final ByteArrayTag changedValues = changedValues(result, numberOfChanges);
         final ByteArrayTag shiftValues = shiftValues(result, key);
+        final StorageCostModel costModel = runContext.storageCostModel();
+        final double directCost = costModel.cost(DIRECT_ID, directValues.length(), mappings.length, mappings.length);
+        final double changedCost = costModel.cost(CHANGES_ID, changedValues.length(), mappings.length, numberOfChanges);
+        final double shiftCost = costModel.cost(SHIFTS_ID, shiftValues.length(), mappings.length, result.shiftChanges());
         final byte id;
         final ByteArrayTag values;
-        if (directValues.length() <= changedValues.length() && directValues.length() <= shiftValues.length()) {
+        if (directCost <= changedCost && directCost <= shiftCost) {
             LOGGER.debug("{}: Storing directly", key);
             id = DIRECT_ID;
             values = directValues;
-        } else if (changedValues.length() <= shiftValues.length()) {
+        } else if (changedCost <= shiftCost) {
             LOGGER.debug("{}: Storing as changed and mapped arrays", key);
             id = CHANGES_ID;
             values = changedValues;
@@ -704,7 +954,129 @@ public final class MappingsOptimizer {
         tag.putByte("id", id);
         tag.putInt("size", mappings.length);
         tag.put("val", values);
-        runContext.countStorageStrategy(id);
+        if (id != DIRECT_ID) {
+            putCheckpoints(runContext, tag, values);
+        }
+        if (recordStats) {
+            runContext.countStorageStrategy(id);
+        }
+        if (sizeAnalysis != null) {
+            sizeAnalysis.addSection(tag, id, result, directValues.length(), changedValues.length(), shiftValues.length());
+        }
+        putInverse(runContext, tag, result);
+    }
+
+    /**
+     * Adds the inverse of the mappings to the section if enabled and the mapped size is known. Injective mappings are
+     * inverted into a regular packed section, others into a table of the unmapped ids of every mapped id.
+     */
+    private static void putInverse(final RunContext runContext, final CompoundTag tag, final MappingsResult result) {
+        if (!runContext.inverseMappings() || result.mappedSize() == -1) {
+            return;
+        }
+
+        final int[] inverse = injectiveInverse(result.mappings(), result.mappedSize());
+        if (inverse != null) {
+            // Leave out the mapped size while serializing, so that the inverse is not inverted again
+            serialize(runContext, MappingsResult.of(inverse, -1), tag, "inv", true, false);
+            tag.getCompoundTag("inv").putInt("mappedSize", result.mappings().length);
+        } else {
+            tag.put("inv", inverseTable(result.mappings(), result.mappedSize()));
+        }
+    }
+
+    /**
+     * Returns the inverse of the given mappings, with -1 for mapped ids no id maps to.
+     *
+     * @param mappings   mappings to invert
+     * @param mappedSize number of mapped ids, mapped ids outside of it are ignored
+     * @return inverse mappings, or null if multiple ids map to the same mapped id
+     */
+    static int @Nullable [] injectiveInverse(final int[] mappings, final int mappedSize) {
+        final int[] inverse = new int[mappedSize];
+        Arrays.fill(inverse, -1);
+        for (int id = 0; id < mappings.length; id++) {
+            final int mappedId = mappings[id];
+            if (mappedId < 0 || mappedId >= mappedSize) {
+                continue;
+            }
+            if (inverse[mappedId] != -1) {
+                return null;
+            }
+            inverse[mappedId] = id;
+        }
+        return inverse;
+    }
+
+    /**
+     * Returns the unmapped ids of every mapped id as a compressed sparse row table. {@code off} contains the mapped size
+     * plus one offsets into {@code val}, where the ascending unmapped ids of each mapped id start, both packed like direct values.
+     *
+     * @param mappings   mappings to invert
+     * @param mappedSize number of mapped ids, mapped ids outside of it are ignored
+     * @return inverse table
+     */
+    static CompoundTag inverseTable(final int[] mappings, final int mappedSize) {
+        final int[] offsets = new int[mappedSize + 1];
+        for (final int mappedId : mappings) {
+            if (mappedId >= 0 && mappedId < mappedSize) {
+                offsets[mappedId + 1]++;
+            }
+        }
+        for (int i = 1; i < offsets.length; i++) {
+            offsets[i] += offsets[i - 1];
+        }
+
+        final int[] ids = new int[offsets[mappedSize]];
+        final int[] positions = Arrays.copyOf(offsets, mappedSize);
+        for (int id = 0; id < mappings.length; id++) {
+            final int mappedId = mappings[id];
+            if (mappedId >= 0 && mappedId < mappedSize) {
+                ids[positions[mappedId]++] = id;
+            }
+        }
+
+        final CompoundTag tag = new CompoundTag();
+        tag.putInt("size", mappedSize);
+        tag.put("off", directValues(offsets));
+        tag.put("val", directValues(ids));
+        return tag;
+    }
+
+    private static void putCheckpoints(final RunContext runContext, final CompoundTag tag, final ByteArrayTag values) {
+        final int interval = runContext.checkpointInterval();
+        if (interval != 0) {
+            final IntArrayTag checkpoints = pairCheckpoints(values, interval);
+            if (checkpoints.length() != 0) {
+                tag.put("chk", checkpoints);
+            }
+        }
+    }
+
+    /**
+     * Collects the decoder state at every {@code interval}th packed id and value pair, so that consumers can
+     * binary search for the closest checkpoint and start decoding from there instead of from the first pair.
+     * Each checkpoint is stored as three ints: the byte offset of the pair, and the previous id and value.
+     *
+     * @param values   packed id and value pairs
+     * @param interval number of pairs between checkpoints
+     * @return the checkpoints, empty if there are no more pairs than the interval
+     */
+    static IntArrayTag pairCheckpoints(final ByteArrayTag values, final int interval) {
+        final ByteBuffer buf = ByteBuffer.wrap(values.getValue());
+        final IntArrayList checkpoints = new IntArrayList();
+        int prevAt = -1;
+        int prevValue = 0;
+        for (int pair = 0; buf.hasRemaining(); pair++) {
+            if (pair != 0 && pair % interval == 0) {
+                checkpoints.add(buf.position());
+                checkpoints.add(prevAt);
+                checkpoints.add(prevValue);
+            }
+            prevAt += VarInts.read(buf) + 1;
+            prevValue += VarInts.readZigZag(buf);
+        }
+        return new IntArrayTag(checkpoints.toIntArray());
     }
 
     /**
@@ -812,6 +1184,42 @@ public final class MappingsOptimizer {
         TAG_WRITER.write(path, tag, false);
     }
 
+    /**
+     * Returns the path a compressed output file is written to, replacing the {@code .nbt} extension with {@link #COMPRESSED_FILE_EXTENSION}.
+     *
+     * @param path path of the uncompressed output file
+     * @return path of the compressed output file
+     */
+    public static Path compressedPath(final Path path) {
+        final String name = path.getFileName().toString();
+        if (!name.endsWith(".nbt")) {
+            throw new IllegalArgumentException("Not an nbt output file: " + path);
+        }
+        return path.resolveSibling(name.substring(0, name.length() - ".nbt".length()) + COMPRESSED_FILE_EXTENSION);
+    }
+
+    /**
+     * Returns the uncompressed, named NBT bytes of the given tag, as they would be written by {@link #write(CompoundTag, Path)}.
+     *
+     * @param tag tag to serialize
+     * @return serialized tag
+     */
+    public static byte[] toBytes(final CompoundTag tag) throws IOException {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        write(tag, out);
+        return out.toByteArray();
+    }
+
+    /**
+     * Writes the uncompressed, named NBT bytes of the given tag to the given stream, leaving it open.
+     *
+     * @param tag tag to serialize
+     * @param out stream to write to
+     */
+    public static void write(final CompoundTag tag, final OutputStream out) throws IOException {
+        TAG_WRITER.write(out, tag, false);
+    }
+
     public void setErrorStrategy(final ErrorStrategy errorStrategy) {
         this.errorStrategy = errorStrategy;
     }
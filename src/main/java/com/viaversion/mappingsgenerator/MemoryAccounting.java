@@ -0,0 +1,216 @@
+/*
+ * This file is part of ViaVersion Mappings - https://github.com/ViaVersion/Mappings
+ * Copyright (C) 2023 Nassim Jahnke
+ * Copyright (C) 2023-2025 ViaVersion and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.viaversion.mappingsgenerator;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.viaversion.mappingsgenerator.util.HeapEstimator;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Estimated retained heap size of loaded mapping data per owner and structure, next to the heap usage after loading
+ * each optimizer run and the peak heap usage. Owners are versions for their mapping files, version pairs for their
+ * diff files and {@link #GLOBAL} for the global identifier table. Structures of json files are recorded per registry,
+ * as {@code <structure>/<registry>}. Estimates are taken with {@link HeapEstimator}, so they only change with the data.
+ */
+public final class MemoryAccounting {
+
+    public static final Path REPORT_PATH = Path.of("build", "reports", "mappings", "memory.json");
+    public static final String GLOBAL = "global";
+    private static final Logger LOGGER = LoggerFactory.getLogger(MemoryAccounting.class.getSimpleName());
+    private static final int SUMMARY_ENTRIES = 5;
+    private final Map<String, Map<String, Long>> owners = new LinkedHashMap<>();
+    private final Map<String, Long> heapAfterLoad = new LinkedHashMap<>();
+
+    /**
+     * Records the estimated size of a structure. If recorded multiple times, the largest estimate is kept.
+     *
+     * @param owner     version, version pair or {@link #GLOBAL}
+     * @param structure structure name
+     * @param bytes     estimated size in bytes
+     */
+    public synchronized void record(final String owner, final String structure, final long bytes) {
+        owners.computeIfAbsent(owner, k -> new LinkedHashMap<>()).merge(structure, bytes, Math::max);
+    }
+
+    /**
+     * Records the estimated size of every registry of a json mapping or diff file as a separate structure.
+     *
+     * @param owner     version or version pair
+     * @param structure structure name of the file
+     * @param object    loaded json file
+     */
+    public void recordJson(final String owner, final String structure, final JsonObject object) {
+        for (final Map.Entry<String, JsonElement> entry : object.entrySet()) {
+            record(owner, structure + "/" + entry.getKey(), HeapEstimator.of(entry.getKey()) + HeapEstimator.of(entry.getValue()));
+        }
+    }
+
+    /**
+     * Records the current heap usage after loading the files of an optimizer run.
+     *
+     * @param label label of the run
+     */
+    public synchronized void snapshotAfterLoad(final String label) {
+        heapAfterLoad.put(label, usedHeap());
+    }
+
+    public static long usedHeap() {
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+
+    /**
+     * Returns the sum of the peak usages of all heap memory pools since the last {@link #resetPeakHeap()}.
+     * Pools may peak at different times, making this an upper bound of the actual peak.
+     *
+     * @return peak heap usage in bytes
+     */
+    public static long peakHeap() {
+        long peak = 0;
+        for (final MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP && pool.getPeakUsage() != null) {
+                peak += pool.getPeakUsage().getUsed();
+            }
+        }
+        return peak;
+    }
+
+    public static void resetPeakHeap() {
+        for (final MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                pool.resetPeakUsage();
+            }
+        }
+    }
+
+    public synchronized JsonObject toJson() {
+        final JsonObject ownersObject = new JsonObject();
+        for (final Map.Entry<String, Map<String, Long>> entry : owners.entrySet()) {
+            final JsonObject structures = new JsonObject();
+            for (final Map.Entry<String, Long> structure : entry.getValue().entrySet()) {
+                structures.addProperty(structure.getKey(), structure.getValue());
+            }
+
+            final JsonObject owner = new JsonObject();
+            owner.addProperty("total", total(entry.getValue()));
+            owner.add("structures", structures);
+            ownersObject.add(entry.getKey(), owner);
+        }
+
+        final JsonObject structuresObject = new JsonObject();
+        for (final Map.Entry<String, Long> entry : structureTotals()) {
+            structuresObject.addProperty(entry.getKey(), entry.getValue());
+        }
+
+        final JsonObject heapAfterLoadObject = new JsonObject();
+        for (final Map.Entry<String, Long> entry : heapAfterLoad.entrySet()) {
+            heapAfterLoadObject.addProperty(entry.getKey(), entry.getValue());
+        }
+
+        final JsonObject object = new JsonObject();
+        object.addProperty("estimatedTotal", estimatedTotal());
+        object.addProperty("usedHeap", usedHeap());
+        object.addProperty("peakHeap", peakHeap());
+        object.add("structures", structuresObject);
+        object.add("owners", ownersObject);
+        object.add("heapAfterLoad", heapAfterLoadObject);
+        return object;
+    }
+
+    /**
+     * Writes all estimates and heap usages to {@link #REPORT_PATH}.
+     */
+    public void writeReport() throws IOException {
+        Files.createDirectories(REPORT_PATH.getParent());
+        MappingsOptimizer.writeJson(toJson(), REPORT_PATH);
+    }
+
+    /**
+     * Logs the estimated total, the largest structures and owners, and the heap usage after loading and at peak.
+     */
+    public synchronized void printSummary() {
+        if (owners.isEmpty()) {
+            return;
+        }
+
+        LOGGER.info("Estimated retained size of loaded mapping data: {}kb", estimatedTotal() / 1024);
+        final List<Map.Entry<String, Long>> structures = structureTotals();
+        for (final Map.Entry<String, Long> entry : structures.subList(0, Math.min(SUMMARY_ENTRIES, structures.size()))) {
+            LOGGER.info("Structure {}: {}kb", entry.getKey(), entry.getValue() / 1024);
+        }
+
+        final List<Map.Entry<String, Map<String, Long>>> largestOwners = new ArrayList<>(owners.entrySet());
+        largestOwners.sort(Comparator.comparingLong(entry -> -total(entry.getValue())));
+        for (final Map.Entry<String, Map<String, Long>> entry : largestOwners.subList(0, Math.min(SUMMARY_ENTRIES, largestOwners.size()))) {
+            LOGGER.info("Owner {}: {}kb", entry.getKey(), total(entry.getValue()) / 1024);
+        }
+
+        long maxAfterLoad = 0;
+        for (final long used : heapAfterLoad.values()) {
+            maxAfterLoad = Math.max(maxAfterLoad, used);
+        }
+        LOGGER.info("Heap usage: {}mb at most after loading, {}mb at peak", maxAfterLoad / (1024 * 1024), peakHeap() / (1024 * 1024));
+    }
+
+    private long estimatedTotal() {
+        long total = 0;
+        for (final Map<String, Long> structures : owners.values()) {
+            total += total(structures);
+        }
+        return total;
+    }
+
+    /**
+     * Returns the totals per structure over all owners, with registries of json files summed up, largest first.
+     */
+    private List<Map.Entry<String, Long>> structureTotals() {
+        final Map<String, Long> totals = new LinkedHashMap<>();
+        for (final Map<String, Long> structures : owners.values()) {
+            for (final Map.Entry<String, Long> entry : structures.entrySet()) {
+                final int registryIndex = entry.getKey().indexOf('/');
+                final String structure = registryIndex != -1 ? entry.getKey().substring(0, registryIndex) : entry.getKey();
+                totals.merge(structure, entry.getValue(), Long::sum);
+            }
+        }
+
+        final List<Map.Entry<String, Long>> sorted = new ArrayList<>(totals.entrySet());
+        sorted.sort(Comparator.comparingLong(entry -> -entry.getValue()));
+        return sorted;
+    }
+
+    private static long total(final Map<String, Long> structures) {
+        long total = 0;
+        for (final long bytes : structures.values()) {
+            total += bytes;
+        }
+        return total;
+    }
+}
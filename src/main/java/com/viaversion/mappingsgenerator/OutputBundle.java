@@ -0,0 +1,229 @@
+/*
+ * This file is part of ViaVersion Mappings - https://github.com/ViaVersion/Mappings
+ * Copyright (C) 2023 Nassim Jahnke
+ * Copyright (C) 2023-2025 ViaVersion and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.viaversion.mappingsgenerator;
+
+import com.viaversion.mappingsgenerator.reader.MappingsReader;
+import com.viaversion.nbt.tag.ByteArrayTag;
+import com.viaversion.nbt.tag.ByteTag;
+import com.viaversion.nbt.tag.CompoundTag;
+import com.viaversion.nbt.tag.Tag;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
+import java.util.Map;
+import java.util.TreeMap;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * A single file containing all output files, made to be memory mapped by consumers.
+ * <p>
+ * All numbers are big endian. The header consists of the {@link #MAGIC} int, the {@link #FORMAT_VERSION} int and the
+ * number of entries, followed by the directory of entries sorted by name. Each directory entry contains the length
+ * of the name as a short, the UTF-8 name, the payload offset as a long and the payload length as an int. Payloads
+ * start at 8 byte aligned offsets.
+ * <p>
+ * The packed values of every section are stored as separate entries named {@code <file>#<section>}, so that they can
+ * be read straight from the mapped buffer. The entry named after the file path relative to the output directory holds
+ * the uncompressed NBT of the file without those value arrays, see {@link MappingsReader#readFile(OutputBundle, String)}.
+ */
+public final class OutputBundle {
+
+    public static final int MAGIC = 0x56494142; // VIAB
+    public static final int FORMAT_VERSION = 2;
+    public static final String OUTPUT_BUNDLE_FILE = "mappings.bundle";
+    public static final char SECTION_SEPARATOR = '#';
+    private static final int ALIGNMENT = 8;
+    private final ByteBuffer buffer;
+    private final String[] names;
+    private final long[] offsets;
+    private final int[] lengths;
+
+    private OutputBundle(final ByteBuffer buffer, final String[] names, final long[] offsets, final int[] lengths) {
+        this.buffer = buffer;
+        this.names = names;
+        this.offsets = offsets;
+        this.lengths = lengths;
+    }
+
+    /**
+     * Packs the given uncompressed nbt files into a single bundle file, with the packed values of their sections split
+     * into separate entries.
+     *
+     * @param directory  output directory the entry names are relative to
+     * @param files      files to pack, all inside the output directory
+     * @param bundlePath path to write the bundle to
+     */
+    public static void write(final Path directory, final Collection<Path> files, final Path bundlePath) throws IOException {
+        final Map<String, byte[]> entries = new TreeMap<>();
+        for (final Path path : files) {
+            if (!path.startsWith(directory)) {
+                throw new IllegalArgumentException("File " + path + " is not inside " + directory);
+            }
+
+            final String name = directory.relativize(path).toString().replace('\\', '/');
+            final CompoundTag file = MappingsReader.readFile(Files.readAllBytes(path), null);
+            for (final Map.Entry<String, Tag> entry : file.entrySet()) {
+                if (entry.getValue() instanceof final CompoundTag section && section.get("id") instanceof ByteTag
+                    && section.remove("val") instanceof final ByteArrayTag values) {
+                    entries.put(sectionName(name, entry.getKey()), values.getValue());
+                }
+            }
+            entries.put(name, MappingsOptimizer.toBytes(file));
+        }
+
+        final byte[][] encodedNames = new byte[entries.size()][];
+        final byte[][] payloads = entries.values().toArray(byte[][]::new);
+        long offset = 3 * Integer.BYTES;
+        int index = 0;
+        for (final String name : entries.keySet()) {
+            encodedNames[index] = name.getBytes(StandardCharsets.UTF_8);
+            offset += Short.BYTES + encodedNames[index].length + Long.BYTES + Integer.BYTES;
+            index++;
+        }
+
+        try (final OutputStream fileOut = Files.newOutputStream(bundlePath);
+             final DataOutputStream out = new DataOutputStream(new BufferedOutputStream(fileOut))) {
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT_VERSION);
+            out.writeInt(entries.size());
+
+            long payloadOffset = align(offset);
+            for (int i = 0; i < payloads.length; i++) {
+                out.writeShort(encodedNames[i].length);
+                out.write(encodedNames[i]);
+                out.writeLong(payloadOffset);
+                out.writeInt(payloads[i].length);
+                payloadOffset = align(payloadOffset + payloads[i].length);
+            }
+
+            long written = offset;
+            for (final byte[] payload : payloads) {
+                written = pad(out, written);
+                out.write(payload);
+                written += payload.length;
+            }
+        }
+    }
+
+    /**
+     * Memory maps a bundle file and reads its directory.
+     *
+     * @param bundlePath path of the bundle
+     * @return the opened bundle
+     */
+    public static OutputBundle open(final Path bundlePath) throws IOException {
+        try (final FileChannel channel = FileChannel.open(bundlePath, StandardOpenOption.READ)) {
+            return read(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    /**
+     * Reads the directory of a bundle from the given buffer.
+     *
+     * @param buffer buffer containing the full bundle
+     * @return the bundle
+     */
+    public static OutputBundle read(final ByteBuffer buffer) {
+        final ByteBuffer buf = buffer.duplicate();
+        if (buf.getInt() != MAGIC) {
+            throw new IllegalArgumentException("Not a mappings bundle");
+        }
+
+        final int version = buf.getInt();
+        if (version != FORMAT_VERSION) {
+            throw new IllegalArgumentException("Unsupported bundle version " + version);
+        }
+
+        final int entries = buf.getInt();
+        final String[] names = new String[entries];
+        final long[] offsets = new long[entries];
+        final int[] lengths = new int[entries];
+        for (int i = 0; i < entries; i++) {
+            final byte[] name = new byte[buf.getShort() & 0xFFFF];
+            buf.get(name);
+            names[i] = new String(name, StandardCharsets.UTF_8);
+            offsets[i] = buf.getLong();
+            lengths[i] = buf.getInt();
+        }
+        return new OutputBundle(buffer, names, offsets, lengths);
+    }
+
+    /**
+     * Returns a read-only view of the packed values of a section, without copying them.
+     *
+     * @param file    path of the file relative to the output directory, using / as the separator
+     * @param section section key
+     * @return the packed values, or null if the bundle does not contain them
+     */
+    public @Nullable ByteBuffer values(final String file, final String section) {
+        return file(sectionName(file, section));
+    }
+
+    /**
+     * Returns a read-only view of the contents of the given entry, without copying it.
+     *
+     * @param name path of the file relative to the output directory, using / as the separator, or the name of
+     *             the packed values of one of its sections
+     * @return the entry contents, or null if the bundle does not contain the entry
+     */
+    public @Nullable ByteBuffer file(final String name) {
+        int low = 0;
+        int high = names.length - 1;
+        while (low <= high) {
+            final int mid = (low + high) >>> 1;
+            final int compare = names[mid].compareTo(name);
+            if (compare < 0) {
+                low = mid + 1;
+            } else if (compare > 0) {
+                high = mid - 1;
+            } else {
+                return buffer.slice(Math.toIntExact(offsets[mid]), lengths[mid]).asReadOnlyBuffer();
+            }
+        }
+        return null;
+    }
+
+    public String[] names() {
+        return names.clone();
+    }
+
+    private static String sectionName(final String file, final String section) {
+        return file + SECTION_SEPARATOR + section;
+    }
+
+    private static long align(final long offset) {
+        return (offset + ALIGNMENT - 1) & -ALIGNMENT;
+    }
+
+    private static long pad(final DataOutputStream out, final long offset) throws IOException {
+        final long aligned = align(offset);
+        for (long i = offset; i < aligned; i++) {
+            out.write(0);
+        }
+        return aligned;
+    }
+}
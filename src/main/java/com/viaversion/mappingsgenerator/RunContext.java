@@ -21,18 +21,35 @@ package com.viaversion.mappingsgenerator;
 import com.google.gson.JsonArray;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
+import com.viaversion.mappingsgenerator.jfr.FileWriteEvent;
+import com.viaversion.mappingsgenerator.jfr.RunFinishEvent;
+import com.viaversion.mappingsgenerator.reader.MappingsReader;
+import com.viaversion.mappingsgenerator.util.DeflateDictionary;
+import com.viaversion.mappingsgenerator.util.FrontCodedStrings;
+import com.viaversion.mappingsgenerator.util.HeapEstimator;
+import com.viaversion.mappingsgenerator.util.IdRanges;
+import com.viaversion.mappingsgenerator.util.IdSet;
 import com.viaversion.mappingsgenerator.util.JsonConverter;
+import com.viaversion.mappingsgenerator.util.PerfectHash;
 import com.viaversion.nbt.tag.CompoundTag;
 import it.unimi.dsi.fastutil.objects.Object2IntMap;
 import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import org.jetbrains.annotations.Nullable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -41,9 +58,26 @@ public final class RunContext {
     private static final Logger LOGGER = LoggerFactory.getLogger(RunContext.class.getSimpleName());
     private final Map<String, Object2IntMap<String>> globalIdentifierMaps = new HashMap<>();
     private final Set<String> savedIdentifierFiles = new HashSet<>();
+    private final Map<String, CompressionStats> compressionStats = new LinkedHashMap<>();
+    private final Set<Path> writtenFiles = new LinkedHashSet<>();
     private final int[] storageStrategyCounts = new int[MappingsOptimizer.IDENTITY_ID + 1];
+    private final RunMetrics metrics = new RunMetrics();
+    private final WriteBuffer writeBuffer = new WriteBuffer();
     private final JsonObject globalIdentifiers;
     private final JsonObject fileHashes;
+    private StorageCostModel storageCostModel = StorageCostModel.SIZE_ONLY;
+    private int checkpointInterval;
+    private byte[] compressionDictionary;
+    private SectionStore sectionStore;
+    private IdentifierDeltas identifierDeltas;
+    private MappingsComposer composer;
+    private SizeAnalysis sizeAnalysis;
+    private MemoryAccounting memoryAccounting;
+    private boolean writeBundle;
+    private boolean frontCodedIdentifiers;
+    private boolean perfectHashes;
+    private boolean inverseMappings;
+    private boolean compactSets;
     private boolean globalIdentifiersUpdated;
 
     private RunContext(final JsonObject globalIdentifiers, final JsonObject fileHashes) {
@@ -103,6 +137,49 @@ public final class RunContext {
         globalIdentifiersUpdated = true;
     }
 
+    /**
+     * Replaces the global identifier table, e.g. after renumbering it. Identifier files saved so far are
+     * outdated by this and will be written again by further optimizer runs.
+     *
+     * @param identifiers new global identifier table
+     */
+    public void replaceGlobalIdentifiers(final JsonObject identifiers) {
+        for (final String key : Set.copyOf(globalIdentifiers.keySet())) {
+            globalIdentifiers.remove(key);
+        }
+        for (final Map.Entry<String, JsonElement> entry : identifiers.entrySet()) {
+            globalIdentifiers.add(entry.getKey(), entry.getValue());
+        }
+        globalIdentifierMaps.clear();
+        savedIdentifierFiles.clear();
+        globalIdentifiersUpdated = true;
+    }
+
+    public JsonObject globalIdentifiers() {
+        return globalIdentifiers;
+    }
+
+    /**
+     * Returns the total size of the identifier files saved so far.
+     *
+     * @return size in bytes
+     */
+    public long identifierFilesSize() {
+        long size = 0;
+        for (final String version : savedIdentifierFiles) {
+            if (sizeAnalysis != null) {
+                size += sizeAnalysis.fileSize(version);
+                continue;
+            }
+
+            final JsonObject fileData = fileHashes.getAsJsonObject(version);
+            if (fileData != null) {
+                size += fileData.getAsJsonPrimitive("size").getAsLong();
+            }
+        }
+        return size;
+    }
+
     /**
      * Marks the identifier file of the given version as saved.
      *
@@ -113,38 +190,350 @@ public final class RunContext {
         return savedIdentifierFiles.add(version);
     }
 
+    /**
+     * Returns the cost model used to pick between storage strategies, by default only taking the encoded size into account.
+     *
+     * @return storage cost model
+     */
+    public StorageCostModel storageCostModel() {
+        return storageCostModel;
+    }
+
+    public void setStorageCostModel(final StorageCostModel storageCostModel) {
+        this.storageCostModel = storageCostModel;
+    }
+
+    /**
+     * Returns the number of packed pairs between checkpoints written next to shifted and changed values, or 0 if disabled.
+     *
+     * @return checkpoint interval, or 0 if disabled
+     */
+    public int checkpointInterval() {
+        return checkpointInterval;
+    }
+
+    public void setCheckpointInterval(final int checkpointInterval) {
+        if (checkpointInterval < 0) {
+            throw new IllegalArgumentException("Negative checkpoint interval " + checkpointInterval);
+        }
+        this.checkpointInterval = checkpointInterval;
+    }
+
+    /**
+     * Enables writing output files as zlib compressed NBT, using a preset dictionary built from the current global identifier table.
+     * Compressed files use the {@link MappingsOptimizer#COMPRESSED_FILE_EXTENSION} extension instead of {@code .nbt}.
+     * The dictionary is written to disk in {@link #finish()}.
+     */
+    public void enableCompression() {
+        if (writeBundle) {
+            throw new IllegalStateException("Compressed output files cannot be bundled");
+        }
+        compressionDictionary = DeflateDictionary.train(globalIdentifiers);
+    }
+
+    /**
+     * Enables packing all output files written during this run into a single {@link OutputBundle} in {@link #finish()},
+     * next to the separate files. Bundles are meant to be memory mapped, so they cannot be combined with compression.
+     */
+    public void enableBundle() {
+        if (compressionDictionary != null) {
+            throw new IllegalStateException("Compressed output files cannot be bundled");
+        }
+        writeBundle = true;
+    }
+
+    /**
+     * Enables storing every packed section only once in a shared {@link SectionStore}, written to disk in {@link #finish()},
+     * with the output files referencing them by hash.
+     */
+    public void enableSectionStore() {
+        sectionStore = new SectionStore();
+    }
+
+    /**
+     * Enables writing identifier files of non-special versions as deltas against the previous version in {@link #finish()},
+     * with every keyframeInterval-th version written in full.
+     *
+     * @param keyframeInterval number of versions between full identifier files
+     */
+    public void enableIdentifierDeltas(final int keyframeInterval) {
+        identifierDeltas = new IdentifierDeltas(keyframeInterval);
+    }
+
+    public @Nullable IdentifierDeltas identifierDeltas() {
+        return identifierDeltas;
+    }
+
+    /**
+     * Enables writing the global identifier table as {@link FrontCodedStrings} per registry instead of lists of strings.
+     */
+    public void enableFrontCodedIdentifiers() {
+        frontCodedIdentifiers = true;
+    }
+
+    /**
+     * Enables writing a {@link PerfectHash} from identifier to id for every registry into the identifier files.
+     */
+    public void enablePerfectHashes() {
+        perfectHashes = true;
+    }
+
+    public boolean perfectHashes() {
+        return perfectHashes;
+    }
+
+    /**
+     * Enables recording the int mappings of every optimizer run, to compose direct mappings over multiple versions
+     * with {@link MappingsComposer#writeAll(RunContext, Map, List)}.
+     */
+    public void enableComposition() {
+        composer = new MappingsComposer();
+    }
+
+    public @Nullable MappingsComposer composer() {
+        return composer;
+    }
+
+    /**
+     * Enables adding the inverse mappings to every section with a known mapped size.
+     */
+    public void enableInverseMappings() {
+        inverseMappings = true;
+    }
+
+    public boolean inverseMappings() {
+        return inverseMappings;
+    }
+
+    /**
+     * Enables writing id sets of the mapping files as {@link IdSet}s instead of int arrays, and those of the extra data
+     * files instead of {@link IdRanges}.
+     */
+    public void enableCompactSets() {
+        compactSets = true;
+    }
+
+    public boolean compactSets() {
+        return compactSets;
+    }
+
+    /**
+     * Enables a dry run, in which no output, diff or identifier table files are written. Output files are only encoded in memory
+     * and recorded with all their packed sections in a {@link SizeAnalysis}, written to its report in {@link #finish()}.
+     */
+    public void enableDryRun() {
+        sizeAnalysis = new SizeAnalysis();
+    }
+
+    public boolean dryRun() {
+        return sizeAnalysis != null;
+    }
+
+    public @Nullable SizeAnalysis sizeAnalysis() {
+        return sizeAnalysis;
+    }
+
+    /**
+     * Enables estimating the retained heap size of loaded mapping files and the global identifier table, and recording the
+     * heap usage after loading every optimizer run. The {@link MemoryAccounting} report is written in {@link #finish()}.
+     */
+    public void enableMemoryAccounting() {
+        memoryAccounting = new MemoryAccounting();
+        MemoryAccounting.resetPeakHeap();
+    }
+
+    public @Nullable MemoryAccounting memoryAccounting() {
+        return memoryAccounting;
+    }
+
+    public RunMetrics metrics() {
+        return metrics;
+    }
+
     public void countStorageStrategy(final byte id) {
         storageStrategyCounts[id]++;
     }
 
     /**
-     * Stores content hash and file size of an output file to keep track of changes.
-     * The data is written to disk in {@link #finish()}.
+     * Writes an output file, compressed if enabled, and stores its content hash and file size.
+     *
+     * @param key  file key
+     * @param tag  tag to write
+     * @param path path to write the file to
+     */
+    public void writeFile(final String key, final CompoundTag tag, final Path path) throws IOException {
+        final CompoundTag outputTag = sectionStore != null ? sectionStore.dedupe(tag) : tag;
+        if (sizeAnalysis != null) {
+            // Attribute the sections before they are replaced by references into the section store
+            sizeAnalysis.addFile(key, tag, encodedSize(outputTag));
+            return;
+        }
+        writeRawFile(key, outputTag, path);
+    }
+
+    /**
+     * Returns the path an output file is actually written to, which has a different extension if compression is enabled.
+     *
+     * @param path path of the uncompressed output file
+     * @return path of the written output file
+     */
+    public Path outputPath(final Path path) {
+        return compressionDictionary != null ? MappingsOptimizer.compressedPath(path) : path;
+    }
+
+    /**
+     * Reads an output file written earlier in this run, decompressing it if compression is enabled.
+     *
+     * @param path path of the uncompressed output file
+     * @return file tag
+     */
+    public CompoundTag readFile(final Path path) throws IOException {
+        return MappingsReader.readFile(Files.readAllBytes(outputPath(path)), compressionDictionary);
+    }
+
+    private int encodedSize(final CompoundTag tag) throws IOException {
+        final byte[] bytes = MappingsOptimizer.toBytes(tag);
+        return compressionDictionary != null ? DeflateDictionary.compress(bytes, compressionDictionary).length : bytes.length;
+    }
+
+    private void writeRawFile(final String key, final CompoundTag tag, final Path path) throws IOException {
+        if (sizeAnalysis != null) {
+            sizeAnalysis.addFile(key, tag, encodedSize(tag));
+            return;
+        }
+
+        final FileWriteEvent event = new FileWriteEvent();
+        event.begin();
+        writeAndHash(key, tag, path);
+        event.end();
+        if (event.shouldCommit()) {
+            event.file = key;
+            event.path = outputPath(path).toString();
+            event.size = fileHashes.getAsJsonObject(key).getAsJsonPrimitive("size").getAsLong();
+            event.compressed = compressionDictionary != null;
+            event.commit();
+        }
+    }
+
+    private void writeAndHash(final String key, final CompoundTag tag, final Path path) throws IOException {
+        final long start = System.nanoTime();
+        if (compressionDictionary == null) {
+            // Serialize into the reused buffer to write and hash the same bytes without reading the file again
+            writeBuffer.reset();
+            MappingsOptimizer.write(tag, writeBuffer);
+            try (final OutputStream out = Files.newOutputStream(path)) {
+                writeBuffer.writeTo(out);
+            }
+            // Don't leave a stale compressed file of an earlier run behind
+            Files.deleteIfExists(MappingsOptimizer.compressedPath(path));
+            writtenFiles.add(path);
+            final long written = System.nanoTime();
+            addFileData(key, writeBuffer.buffer(), writeBuffer.size());
+            metrics.recordFile(key, written - start, System.nanoTime() - written);
+            return;
+        }
+
+        final byte[] bytes = MappingsOptimizer.toBytes(tag);
+        final byte[] compressed = DeflateDictionary.compress(bytes, compressionDictionary);
+        Files.write(MappingsOptimizer.compressedPath(path), compressed);
+        Files.deleteIfExists(path);
+        writtenFiles.add(MappingsOptimizer.compressedPath(path));
+        final long written = System.nanoTime();
+        compressionStats.put(key, new CompressionStats(bytes.length, compressed.length, measureDecompression(compressed)));
+        final long hashStart = System.nanoTime();
+        addFileData(key, compressed, compressed.length);
+        metrics.recordFile(key, written - start, System.nanoTime() - hashStart);
+    }
+
+    private long measureDecompression(final byte[] compressed) {
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < 5; i++) {
+            final long start = System.nanoTime();
+            try {
+                DeflateDictionary.decompress(compressed, compressionDictionary);
+            } catch (final DataFormatException e) {
+                throw new IllegalStateException("Failed to decompress freshly compressed data", e);
+            }
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        return best;
+    }
+
+    /**
+     * Returns whether an output file was last written from inputs with the given hash and still exists,
+     * see {@link #setInputHash(String, long)}.
+     *
+     * @param key       file key
+     * @param inputHash hash of all inputs of the file
+     * @param path      path of the uncompressed output file
+     * @return whether the file does not need to be written again
+     */
+    public boolean isUpToDate(final String key, final long inputHash, final Path path) {
+        final JsonObject fileData = fileHashes.getAsJsonObject(key);
+        return fileData != null && fileData.has("input-hash") && fileData.get("input-hash").getAsLong() == inputHash
+            && Files.exists(outputPath(path));
+    }
+
+    /**
+     * Stores the hash of the inputs an output file was written from, so that later runs can skip writing it again.
+     * The data is written to disk in {@link #finish()} or {@link #saveHashes()}.
+     *
+     * @param key       file key
+     * @param inputHash hash of all inputs of the file
+     */
+    public void setInputHash(final String key, final long inputHash) {
+        final JsonObject fileData = fileHashes.getAsJsonObject(key);
+        if (fileData == null) {
+            throw new IllegalStateException("No file data of " + key + " to store the input hash in");
+        }
+        fileData.addProperty("input-hash", inputHash);
+    }
+
+    /**
+     * Stores content hash and file size of an output file to keep track of changes, reading the file from disk.
+     * The data is written to disk in {@link #finish()} or {@link #saveHashes()}.
      *
      * @param key  file key
      * @param path path of the written file
      */
     public void addFileData(final String key, final Path path) throws IOException {
+        final byte[] bytes = Files.readAllBytes(path);
+        addFileData(key, bytes, bytes.length);
+    }
+
+    /**
+     * Stores content hash and file size of an output file from the bytes written to it.
+     *
+     * @param key    file key
+     * @param bytes  buffer holding the written bytes
+     * @param length number of written bytes at the start of the buffer
+     */
+    private void addFileData(final String key, final byte[] bytes, final int length) {
         JsonObject fileData = fileHashes.getAsJsonObject(key);
         if (fileData == null) {
             fileData = new JsonObject();
             fileHashes.add(key, fileData);
         }
 
-        // Hash the file contents
-        final byte[] bytes = Files.readAllBytes(path);
         final CRC32 crc32 = new CRC32();
-        crc32.update(bytes);
+        crc32.update(bytes, 0, length);
         fileData.addProperty("object-hash", crc32.getValue());
-        fileData.addProperty("size", bytes.length);
+        fileData.addProperty("size", length);
     }
 
     /**
-     * Writes the global identifier table and file hash data collected over the run to disk.
+     * Writes the global identifier table and file hash data collected over the run to disk, or the size analysis in a dry run.
      * Must be called once after all optimizer runs of a batch have finished.
      */
     public void finish() throws IOException {
-        if (globalIdentifiersUpdated) {
+        final RunFinishEvent event = new RunFinishEvent();
+        event.begin();
+        if (identifierDeltas != null) {
+            // May add identifiers of versions outside of this run to the global identifier table
+            identifierDeltas.writeAll(this);
+        }
+
+        if (globalIdentifiersUpdated && sizeAnalysis == null) {
             // Also keep a json file around for easier viewing
             MappingsOptimizer.writeJson(globalIdentifiers, MappingsOptimizer.MAPPINGS_DIR.resolve("identifier-table.json"));
             LOGGER.info("Updated global identifiers file");
@@ -153,14 +542,79 @@ public final class RunContext {
 
         // Always create the nbt output file
         final Path outputPath = MappingsOptimizer.OUTPUT_DIR.resolve(MappingsOptimizer.OUTPUT_GLOBAL_IDENTIFIERS_FILE);
-        final CompoundTag globalIdentifiersTag = (CompoundTag) JsonConverter.toTag(globalIdentifiers);
-        MappingsOptimizer.write(globalIdentifiersTag, outputPath);
-        addFileData("identifier-table", outputPath);
+        final CompoundTag globalIdentifiersTag = frontCodedIdentifiers ? frontCodedGlobalIdentifiers() : (CompoundTag) JsonConverter.toTag(globalIdentifiers);
+        writeFile("identifier-table", globalIdentifiersTag, outputPath);
+
+        if (compressionDictionary != null) {
+            final Path dictionaryPath = MappingsOptimizer.OUTPUT_DIR.resolve(MappingsOptimizer.OUTPUT_DEFLATE_DICTIONARY_FILE);
+            if (sizeAnalysis != null) {
+                sizeAnalysis.addFile("deflate-dictionary", null, compressionDictionary.length);
+            } else {
+                Files.write(dictionaryPath, compressionDictionary);
+                addFileData("deflate-dictionary", compressionDictionary, compressionDictionary.length);
+            }
+        }
+
+        if (sectionStore != null) {
+            writeRawFile("sections", sectionStore.sections(), MappingsOptimizer.OUTPUT_DIR.resolve(MappingsOptimizer.OUTPUT_SECTIONS_FILE));
+        }
 
-        MappingsOptimizer.writeJson(fileHashes, Path.of("output_hashes.json"));
+        if (sizeAnalysis != null) {
+            // Nothing was written to bundle or store hash data of
+            sizeAnalysis.writeReport();
+        } else {
+            if (writeBundle) {
+                final Path bundlePath = MappingsOptimizer.OUTPUT_DIR.resolve(OutputBundle.OUTPUT_BUNDLE_FILE);
+                OutputBundle.write(MappingsOptimizer.OUTPUT_DIR, writtenFiles, bundlePath);
+                addFileData("bundle", bundlePath);
+            }
+
+            saveHashes();
+        }
+        metrics.writeReport();
+        if (memoryAccounting != null) {
+            memoryAccounting.recordJson(MemoryAccounting.GLOBAL, "identifier table json", globalIdentifiers);
+            for (final Map.Entry<String, Object2IntMap<String>> entry : globalIdentifierMaps.entrySet()) {
+                // The keys are shared with the identifier table
+                memoryAccounting.record(MemoryAccounting.GLOBAL, "identifier maps/" + entry.getKey(), HeapEstimator.openHashMap(entry.getValue().size()));
+            }
+            memoryAccounting.writeReport();
+        }
+        event.end();
+        if (event.shouldCommit()) {
+            event.files = fileHashes.size();
+            event.registries = globalIdentifiers.size();
+            event.commit();
+        }
+    }
+
+    /**
+     * Writes only the file hash data collected so far to disk, for runs that write separate files without touching
+     * the identifier table or other outputs. Does nothing in a dry run.
+     */
+    public void saveHashes() throws IOException {
+        if (sizeAnalysis == null) {
+            MappingsOptimizer.writeJson(fileHashes, Path.of("output_hashes.json"));
+        }
+    }
+
+    private CompoundTag frontCodedGlobalIdentifiers() {
+        final CompoundTag tag = new CompoundTag();
+        for (final Map.Entry<String, JsonElement> entry : globalIdentifiers.entrySet()) {
+            final List<String> identifiers = new ArrayList<>();
+            for (final JsonElement identifier : entry.getValue().getAsJsonArray()) {
+                identifiers.add(identifier.getAsString());
+            }
+            tag.put(entry.getKey(), FrontCodedStrings.encode(identifiers, FrontCodedStrings.DEFAULT_BLOCK_SIZE));
+        }
+        return tag;
     }
 
     public void printStats() {
+        metrics.printSummary();
+        if (memoryAccounting != null) {
+            memoryAccounting.printSummary();
+        }
         LOGGER.info("Storage format counts: direct={}, shifts={}, changes={}, identity={}",
             storageStrategyCounts[MappingsOptimizer.DIRECT_ID],
             storageStrategyCounts[MappingsOptimizer.SHIFTS_ID],
@@ -169,9 +623,53 @@ public final class RunContext {
         );
 
         long totalSize = 0;
-        for (final Map.Entry<String, JsonElement> entry : fileHashes.entrySet()) {
-            totalSize += entry.getValue().getAsJsonObject().getAsJsonPrimitive("size").getAsLong();
+        if (sizeAnalysis != null) {
+            sizeAnalysis.printSummary();
+            totalSize = sizeAnalysis.totalSize();
+        } else {
+            for (final Map.Entry<String, JsonElement> entry : fileHashes.entrySet()) {
+                totalSize += entry.getValue().getAsJsonObject().getAsJsonPrimitive("size").getAsLong();
+            }
         }
         LOGGER.info("Total size of all mapping and identifier files: {}kb", totalSize / 1024);
+
+        if (sectionStore != null) {
+            LOGGER.info("Section store: {} unique of {} referenced sections, {}kb stored of {}kb referenced (deduplication ratio {})",
+                sectionStore.uniqueSections(), sectionStore.references(), sectionStore.storedBytes() / 1024, sectionStore.referencedBytes() / 1024,
+                String.format("%.2f", (double) sectionStore.referencedBytes() / Math.max(sectionStore.storedBytes(), 1)));
+        }
+
+        if (!compressionStats.isEmpty()) {
+            long totalUncompressedSize = 0;
+            long totalCompressedSize = 0;
+            long totalDecompressionNanos = 0;
+            for (final Map.Entry<String, CompressionStats> entry : compressionStats.entrySet()) {
+                final CompressionStats stats = entry.getValue();
+                LOGGER.info("Compressed {}: {} → {} bytes ({}%), decompressed in {}µs", entry.getKey(), stats.size(), stats.compressedSize(),
+                    stats.compressedSize() * 100 / Math.max(stats.size(), 1), stats.decompressionNanos() / 1000);
+                totalUncompressedSize += stats.size();
+                totalCompressedSize += stats.compressedSize();
+                totalDecompressionNanos += stats.decompressionNanos();
+            }
+            LOGGER.info("Total compressed size: {}kb of {}kb uncompressed, with a {}kb dictionary, decompressed in {}ms",
+                totalCompressedSize / 1024, totalUncompressedSize / 1024, compressionDictionary.length / 1024, totalDecompressionNanos / 1_000_000);
+        }
+    }
+
+    private record CompressionStats(int size, int compressedSize, long decompressionNanos) {
+    }
+
+    /**
+     * Output buffer reused for every written file, exposing its backing array to hash the written bytes without copying them.
+     */
+    private static final class WriteBuffer extends ByteArrayOutputStream {
+
+        private WriteBuffer() {
+            super(64 * 1024);
+        }
+
+        private byte[] buffer() {
+            return buf;
+        }
     }
 }
@@ -0,0 +1,256 @@
+/*
+ * This file is part of ViaVersion Mappings - https://github.com/ViaVersion/Mappings
+ * Copyright (C) 2023 Nassim Jahnke
+ * Copyright (C) 2023-2025 ViaVersion and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.viaversion.mappingsgenerator;
+
+import com.google.gson.JsonObject;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Phase timings and mapping counters of all optimizer runs of a batch. Every version pair records the time spent loading
+ * its json files, writing diff stubs, and mapping and encoding each of its sections; every written file the time spent
+ * writing and hashing it. Mapping files are keyed by their version pair, so a pair's write and hash times are those of its file.
+ */
+public final class RunMetrics {
+
+    public static final Path REPORT_PATH = Path.of("build", "reports", "mappings", "metrics.json");
+    private static final Logger LOGGER = LoggerFactory.getLogger(RunMetrics.class.getSimpleName());
+    private static final int SUMMARY_ENTRIES = 5;
+    private final Map<String, PairMetrics> pairs = new LinkedHashMap<>();
+    private final Map<String, FileMetrics> files = new LinkedHashMap<>();
+
+    /**
+     * Returns the metrics of a version pair, creating them if not yet present.
+     *
+     * @param from version mapped from
+     * @param to   version mapped to
+     * @return pair metrics
+     */
+    public synchronized PairMetrics pair(final String from, final String to) {
+        return pairs.computeIfAbsent(from + ":" + to, k -> new PairMetrics());
+    }
+
+    /**
+     * Records the time spent on writing an output file.
+     *
+     * @param key        file key
+     * @param writeNanos time spent encoding and writing the file
+     * @param hashNanos  time spent hashing the written file
+     */
+    public synchronized void recordFile(final String key, final long writeNanos, final long hashNanos) {
+        final FileMetrics file = files.computeIfAbsent(key, k -> new FileMetrics());
+        file.writeNanos += writeNanos;
+        file.hashNanos += hashNanos;
+    }
+
+    /**
+     * Writes all metrics to {@link #REPORT_PATH}.
+     */
+    public synchronized void writeReport() throws IOException {
+        final JsonObject pairsObject = new JsonObject();
+        for (final Map.Entry<String, PairMetrics> entry : pairs.entrySet()) {
+            pairsObject.add(entry.getKey(), entry.getValue().toJson(files.get(entry.getKey())));
+        }
+
+        final JsonObject filesObject = new JsonObject();
+        for (final Map.Entry<String, FileMetrics> entry : files.entrySet()) {
+            final JsonObject file = new JsonObject();
+            file.addProperty("writeMicros", entry.getValue().writeNanos / 1000);
+            file.addProperty("hashMicros", entry.getValue().hashNanos / 1000);
+            filesObject.add(entry.getKey(), file);
+        }
+
+        final JsonObject report = new JsonObject();
+        report.add("totals", totals().toJson());
+        report.add("pairs", pairsObject);
+        report.add("files", filesObject);
+        Files.createDirectories(REPORT_PATH.getParent());
+        MappingsOptimizer.writeJson(report, REPORT_PATH);
+    }
+
+    /**
+     * Logs the phase totals, the counters over all sections and the slowest pairs and sections.
+     */
+    public synchronized void printSummary() {
+        if (pairs.isEmpty()) {
+            return;
+        }
+
+        final Totals totals = totals();
+        LOGGER.info("Phase totals: load={}ms, stubs={}ms, map={}ms, encode={}ms, write={}ms, hash={}ms", totals.loadNanos / 1_000_000,
+            totals.stubsNanos / 1_000_000, totals.mapNanos / 1_000_000, totals.encodeNanos / 1_000_000, totals.writeNanos / 1_000_000, totals.hashNanos / 1_000_000);
+        LOGGER.info("Mapped {}", totals.counters);
+
+        final List<Map.Entry<String, PairMetrics>> slowestPairs = new ArrayList<>(pairs.entrySet());
+        slowestPairs.sort(Comparator.comparingLong(entry -> -entry.getValue().totalNanos(files.get(entry.getKey()))));
+        for (final Map.Entry<String, PairMetrics> entry : slowestPairs.subList(0, Math.min(SUMMARY_ENTRIES, slowestPairs.size()))) {
+            LOGGER.info("Slow pair {}: {}ms", entry.getKey(), entry.getValue().totalNanos(files.get(entry.getKey())) / 1_000_000);
+        }
+
+        final List<Map.Entry<String, SectionMetrics>> slowestSections = new ArrayList<>();
+        for (final Map.Entry<String, PairMetrics> pair : pairs.entrySet()) {
+            for (final Map.Entry<String, SectionMetrics> section : pair.getValue().sections.entrySet()) {
+                slowestSections.add(Map.entry(pair.getKey() + " " + section.getKey(), section.getValue()));
+            }
+        }
+        slowestSections.sort(Comparator.comparingLong(entry -> -entry.getValue().totalNanos()));
+        for (final Map.Entry<String, SectionMetrics> entry : slowestSections.subList(0, Math.min(SUMMARY_ENTRIES, slowestSections.size()))) {
+            final SectionMetrics section = entry.getValue();
+            LOGGER.info("Slow section {}: map={}µs, encode={}µs, {} identifiers", entry.getKey(),
+                section.mapNanos / 1000, section.encodeNanos / 1000, section.counters.identifiers());
+        }
+    }
+
+    private Totals totals() {
+        final Totals totals = new Totals();
+        for (final PairMetrics pair : pairs.values()) {
+            totals.loadNanos += pair.loadNanos;
+            totals.stubsNanos += pair.stubsNanos;
+            for (final SectionMetrics section : pair.sections.values()) {
+                totals.mapNanos += section.mapNanos;
+                totals.encodeNanos += section.encodeNanos;
+                totals.counters.add(section.counters);
+            }
+        }
+        for (final FileMetrics file : files.values()) {
+            totals.writeNanos += file.writeNanos;
+            totals.hashNanos += file.hashNanos;
+        }
+        return totals;
+    }
+
+    /**
+     * Phase timings of a single version pair.
+     */
+    public static final class PairMetrics {
+
+        private final Map<String, SectionMetrics> sections = new LinkedHashMap<>();
+        private long loadNanos;
+        private long stubsNanos;
+
+        public void addLoad(final long nanos) {
+            loadNanos += nanos;
+        }
+
+        public void addStubs(final long nanos) {
+            stubsNanos += nanos;
+        }
+
+        /**
+         * Returns the metrics of a section, creating them if not yet present.
+         *
+         * @param key section key
+         * @return section metrics
+         */
+        public SectionMetrics section(final String key) {
+            return sections.computeIfAbsent(key, k -> new SectionMetrics());
+        }
+
+        private long totalNanos(final FileMetrics file) {
+            long nanos = loadNanos + stubsNanos;
+            for (final SectionMetrics section : sections.values()) {
+                nanos += section.totalNanos();
+            }
+            return file != null ? nanos + file.writeNanos + file.hashNanos : nanos;
+        }
+
+        private JsonObject toJson(final FileMetrics file) {
+            final JsonObject sectionsObject = new JsonObject();
+            for (final Map.Entry<String, SectionMetrics> entry : sections.entrySet()) {
+                final JsonObject section = entry.getValue().counters.toJson();
+                section.addProperty("mapMicros", entry.getValue().mapNanos / 1000);
+                section.addProperty("encodeMicros", entry.getValue().encodeNanos / 1000);
+                sectionsObject.add(entry.getKey(), section);
+            }
+
+            final JsonObject object = new JsonObject();
+            object.addProperty("totalMicros", totalNanos(file) / 1000);
+            object.addProperty("loadMicros", loadNanos / 1000);
+            object.addProperty("stubsMicros", stubsNanos / 1000);
+            if (file != null) {
+                object.addProperty("writeMicros", file.writeNanos / 1000);
+                object.addProperty("hashMicros", file.hashNanos / 1000);
+            }
+            object.add("sections", sectionsObject);
+            return object;
+        }
+    }
+
+    /**
+     * Timings and mapping counters of a single section of a version pair.
+     */
+    public static final class SectionMetrics {
+
+        private final MappingCounters counters = new MappingCounters();
+        private long mapNanos;
+        private long encodeNanos;
+
+        public MappingCounters counters() {
+            return counters;
+        }
+
+        public void addMap(final long nanos) {
+            mapNanos += nanos;
+        }
+
+        public void addEncode(final long nanos) {
+            encodeNanos += nanos;
+        }
+
+        private long totalNanos() {
+            return mapNanos + encodeNanos;
+        }
+    }
+
+    private static final class FileMetrics {
+
+        private long writeNanos;
+        private long hashNanos;
+    }
+
+    private static final class Totals {
+
+        private final MappingCounters counters = new MappingCounters();
+        private long loadNanos;
+        private long stubsNanos;
+        private long mapNanos;
+        private long encodeNanos;
+        private long writeNanos;
+        private long hashNanos;
+
+        private JsonObject toJson() {
+            final JsonObject object = counters.toJson();
+            object.addProperty("loadMillis", loadNanos / 1_000_000);
+            object.addProperty("stubsMillis", stubsNanos / 1_000_000);
+            object.addProperty("mapMillis", mapNanos / 1_000_000);
+            object.addProperty("encodeMillis", encodeNanos / 1_000_000);
+            object.addProperty("writeMillis", writeNanos / 1_000_000);
+            object.addProperty("hashMillis", hashNanos / 1_000_000);
+            return object;
+        }
+    }
+}
@@ -0,0 +1,105 @@
+/*
+ * This file is part of ViaVersion Mappings - https://github.com/ViaVersion/Mappings
+ * Copyright (C) 2023 Nassim Jahnke
+ * Copyright (C) 2023-2025 ViaVersion and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.viaversion.mappingsgenerator;
+
+import com.viaversion.nbt.tag.ByteTag;
+import com.viaversion.nbt.tag.CompoundTag;
+import com.viaversion.nbt.tag.StringTag;
+import com.viaversion.nbt.tag.Tag;
+import java.io.IOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.Map;
+
+/**
+ * Content-addressed store of packed mapping sections shared between output files.
+ * Every packed section (a compound with an {@code id} byte tag) is stored once, keyed by the hash of its serialized form,
+ * and replaced by a string tag holding that hash in the output file referencing it.
+ */
+public final class SectionStore {
+
+    private static final int HASH_LENGTH = 16;
+    private final CompoundTag sections = new CompoundTag();
+    private long referencedBytes;
+    private long storedBytes;
+    private int references;
+
+    /**
+     * Moves all packed sections of the given output tag into the store.
+     *
+     * @param tag output tag, left unchanged
+     * @return a copy of the output tag with packed sections replaced by their hash
+     */
+    public CompoundTag dedupe(final CompoundTag tag) throws IOException {
+        final CompoundTag output = new CompoundTag();
+        for (final Map.Entry<String, Tag> entry : tag.entrySet()) {
+            if (!(entry.getValue() instanceof final CompoundTag section) || !(section.get("id") instanceof ByteTag)) {
+                output.put(entry.getKey(), entry.getValue());
+                continue;
+            }
+
+            final byte[] bytes = MappingsOptimizer.toBytes(section);
+            final String hash = hash(bytes);
+            if (sections.get(hash) == null) {
+                sections.put(hash, section);
+                storedBytes += bytes.length;
+            }
+            referencedBytes += bytes.length;
+            references++;
+            output.put(entry.getKey(), new StringTag(hash));
+        }
+        return output;
+    }
+
+    /**
+     * Returns the stored sections keyed by their hash.
+     *
+     * @return stored sections
+     */
+    public CompoundTag sections() {
+        return sections;
+    }
+
+    public int references() {
+        return references;
+    }
+
+    public int uniqueSections() {
+        return sections.size();
+    }
+
+    public long referencedBytes() {
+        return referencedBytes;
+    }
+
+    public long storedBytes() {
+        return storedBytes;
+    }
+
+    private static String hash(final byte[] bytes) {
+        try {
+            final byte[] digest = MessageDigest.getInstance("SHA-256").digest(bytes);
+            return HexFormat.of().formatHex(Arrays.copyOf(digest, HASH_LENGTH));
+        } catch (final NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,326 @@
+/*
+ * This file is part of ViaVersion Mappings - https://github.com/ViaVersion/Mappings
+ * Copyright (C) 2023 Nassim Jahnke
+ * Copyright (C) 2023-2025 ViaVersion and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.viaversion.mappingsgenerator;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.viaversion.mappingsgenerator.MappingsLoader.MappingsResult;
+import com.viaversion.nbt.tag.CompoundTag;
+import com.viaversion.nbt.tag.Tag;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Output size analysis of a dry run. Every packed section is recorded with the encoded size of all storage strategies
+ * and is attributed to the output file it ends up in, together with the size the file would have been written with.
+ * Sections are aggregated by type, being their key, prefixed with {@code identifiers/} for identifier files.
+ */
+public final class SizeAnalysis {
+
+    public static final Path REPORT_PATH = Path.of("build", "reports", "mappings", "analysis.json");
+    private static final Logger LOGGER = LoggerFactory.getLogger(SizeAnalysis.class.getSimpleName());
+    private static final int LARGEST_SECTIONS = 25;
+    private static final int SUMMARY_ENTRIES = 5;
+    private final Map<CompoundTag, Section> pendingSections = new IdentityHashMap<>();
+    private final Map<String, FileAnalysis> files = new LinkedHashMap<>();
+
+    /**
+     * Records a packed section, to be attributed to the file containing its tag.
+     *
+     * @param tag          section tag
+     * @param strategy     picked storage strategy id
+     * @param result       mappings result the section was encoded from
+     * @param directBytes  size of the directly stored values, or -1 if not encoded
+     * @param changedBytes size of the changed values, or -1 if not encoded
+     * @param shiftBytes   size of the shifted values, or -1 if not encoded
+     */
+    public synchronized void addSection(
+        final CompoundTag tag,
+        final byte strategy,
+        final MappingsResult result,
+        final int directBytes,
+        final int changedBytes,
+        final int shiftBytes
+    ) {
+        pendingSections.put(tag, new Section(strategy, result.mappings().length, result.mappedSize(), result.identityMappings(),
+            result.emptyMappings(), result.shiftChanges(), directBytes, changedBytes, shiftBytes));
+    }
+
+    /**
+     * Records an output file with the size it would have been written with, attributing all recorded sections in its tag to it.
+     * Sections already attributed to another file are not attributed again.
+     *
+     * @param key  file key
+     * @param tag  tag of the file, or null if it is not an nbt file
+     * @param size encoded size of the file
+     */
+    public synchronized void addFile(final String key, final @Nullable CompoundTag tag, final long size) throws IOException {
+        final FileAnalysis file = files.computeIfAbsent(key, k -> new FileAnalysis());
+        file.size = size;
+        if (tag != null) {
+            attribute(file, "", tag);
+        }
+    }
+
+    private void attribute(final FileAnalysis file, final String prefix, final CompoundTag tag) throws IOException {
+        for (final Map.Entry<String, Tag> entry : tag.entrySet()) {
+            if (!(entry.getValue() instanceof final CompoundTag child)) {
+                continue;
+            }
+
+            final String path = prefix.isEmpty() ? entry.getKey() : prefix + "/" + entry.getKey();
+            final Section section = pendingSections.remove(child);
+            if (section != null) {
+                // Includes the header fields, checkpoints and nested inverse
+                section.bytes = MappingsOptimizer.toBytes(child).length;
+                file.sections.put(path, section);
+            }
+            attribute(file, path, child);
+        }
+    }
+
+    /**
+     * Returns the size a file would have been written with.
+     *
+     * @param key file key
+     * @return encoded file size, or 0 if the file was not recorded
+     */
+    public synchronized long fileSize(final String key) {
+        final FileAnalysis file = files.get(key);
+        return file != null ? file.size : 0;
+    }
+
+    public synchronized long totalSize() {
+        long size = 0;
+        for (final FileAnalysis file : files.values()) {
+            size += file.size;
+        }
+        return size;
+    }
+
+    /**
+     * Writes the analysis of all files, the totals per section type and the largest sections to {@link #REPORT_PATH}.
+     */
+    public synchronized void writeReport() throws IOException {
+        final JsonObject filesObject = new JsonObject();
+        for (final Map.Entry<String, FileAnalysis> entry : files.entrySet()) {
+            final JsonObject sectionsObject = new JsonObject();
+            for (final Map.Entry<String, Section> section : entry.getValue().sections.entrySet()) {
+                sectionsObject.add(section.getKey(), section.getValue().toJson());
+            }
+
+            final JsonObject file = new JsonObject();
+            file.addProperty("size", entry.getValue().size);
+            file.add("sections", sectionsObject);
+            filesObject.add(entry.getKey(), file);
+        }
+
+        final JsonObject typesObject = new JsonObject();
+        for (final Map.Entry<String, TypeTotals> entry : typeTotals()) {
+            typesObject.add(entry.getKey(), entry.getValue().toJson());
+        }
+
+        final JsonArray largestArray = new JsonArray();
+        for (final SectionEntry entry : largestSections(LARGEST_SECTIONS)) {
+            final JsonObject section = entry.section().toJson();
+            section.addProperty("file", entry.file());
+            section.addProperty("section", entry.path());
+            largestArray.add(section);
+        }
+
+        final JsonObject report = new JsonObject();
+        report.addProperty("totalSize", totalSize());
+        report.add("types", typesObject);
+        report.add("largest", largestArray);
+        report.add("files", filesObject);
+        Files.createDirectories(REPORT_PATH.getParent());
+        MappingsOptimizer.writeJson(report, REPORT_PATH);
+        LOGGER.info("Wrote output size analysis to {}", REPORT_PATH);
+    }
+
+    /**
+     * Logs the total size, the section types taking up the most bytes and the largest sections.
+     */
+    public synchronized void printSummary() {
+        int sections = 0;
+        for (final FileAnalysis file : files.values()) {
+            sections += file.sections.size();
+        }
+        LOGGER.info("Analyzed {} files with {} sections: {}kb in total", files.size(), sections, totalSize() / 1024);
+
+        final List<Map.Entry<String, TypeTotals>> types = typeTotals();
+        for (final Map.Entry<String, TypeTotals> entry : types.subList(0, Math.min(SUMMARY_ENTRIES, types.size()))) {
+            final TypeTotals totals = entry.getValue();
+            LOGGER.info("Section type {}: {}kb in {} sections, {} entries, strategies {}", entry.getKey(),
+                totals.bytes / 1024, totals.sections, totals.entries, totals.strategies);
+        }
+
+        for (final SectionEntry entry : largestSections(SUMMARY_ENTRIES)) {
+            final Section section = entry.section();
+            LOGGER.info("Large section {} {}: {} bytes as {}, direct={}, changes={}, shifts={}", entry.file(), entry.path(), section.bytes,
+                MappingsOptimizer.strategyName(section.strategy), section.directBytes, section.changedBytes, section.shiftBytes);
+        }
+    }
+
+    private List<Map.Entry<String, TypeTotals>> typeTotals() {
+        final Map<String, TypeTotals> types = new LinkedHashMap<>();
+        for (final Map.Entry<String, FileAnalysis> file : files.entrySet()) {
+            final boolean identifierFile = file.getKey().indexOf(':') == -1;
+            for (final Map.Entry<String, Section> section : file.getValue().sections.entrySet()) {
+                final String type = identifierFile ? "identifiers/" + section.getKey() : section.getKey();
+                types.computeIfAbsent(type, k -> new TypeTotals()).add(section.getValue());
+            }
+        }
+
+        final List<Map.Entry<String, TypeTotals>> sorted = new ArrayList<>(types.entrySet());
+        sorted.sort(Comparator.comparingLong(entry -> -entry.getValue().bytes));
+        return sorted;
+    }
+
+    private List<SectionEntry> largestSections(final int limit) {
+        final List<SectionEntry> sections = new ArrayList<>();
+        for (final Map.Entry<String, FileAnalysis> file : files.entrySet()) {
+            for (final Map.Entry<String, Section> section : file.getValue().sections.entrySet()) {
+                sections.add(new SectionEntry(file.getKey(), section.getKey(), section.getValue()));
+            }
+        }
+        sections.sort(Comparator.comparingInt(entry -> -entry.section().bytes));
+        return sections.subList(0, Math.min(limit, sections.size()));
+    }
+
+    private record SectionEntry(String file, String path, Section section) {
+    }
+
+    private static final class FileAnalysis {
+
+        private final Map<String, Section> sections = new LinkedHashMap<>();
+        private long size;
+    }
+
+    private static final class Section {
+
+        private final byte strategy;
+        private final int size;
+        private final int mappedSize;
+        private final int identityMappings;
+        private final int emptyMappings;
+        private final int shiftChanges;
+        private final int directBytes;
+        private final int changedBytes;
+        private final int shiftBytes;
+        private int bytes;
+
+        private Section(final byte strategy, final int size, final int mappedSize, final int identityMappings, final int emptyMappings,
+                        final int shiftChanges, final int directBytes, final int changedBytes, final int shiftBytes) {
+            this.strategy = strategy;
+            this.size = size;
+            this.mappedSize = mappedSize;
+            this.identityMappings = identityMappings;
+            this.emptyMappings = emptyMappings;
+            this.shiftChanges = shiftChanges;
+            this.directBytes = directBytes;
+            this.changedBytes = changedBytes;
+            this.shiftBytes = shiftBytes;
+        }
+
+        private JsonObject toJson() {
+            final JsonObject object = new JsonObject();
+            object.addProperty("strategy", MappingsOptimizer.strategyName(strategy));
+            object.addProperty("bytes", bytes);
+            object.addProperty("size", size);
+            if (mappedSize != -1) {
+                object.addProperty("mappedSize", mappedSize);
+            }
+            object.addProperty("identityMappings", identityMappings);
+            object.addProperty("emptyMappings", emptyMappings);
+            object.addProperty("shiftChanges", shiftChanges);
+            if (strategy != MappingsOptimizer.IDENTITY_ID) {
+                final JsonObject alternatives = new JsonObject();
+                alternatives.addProperty("direct", directBytes);
+                alternatives.addProperty("changes", changedBytes);
+                alternatives.addProperty("shifts", shiftBytes);
+                object.add("alternatives", alternatives);
+            }
+            return object;
+        }
+    }
+
+    private static final class TypeTotals {
+
+        private final Map<String, Integer> strategies = new LinkedHashMap<>();
+        private int sections;
+        private long entries;
+        private long identityMappings;
+        private long emptyMappings;
+        private long shiftChanges;
+        private long bytes;
+        private long directBytes;
+        private long changedBytes;
+        private long shiftBytes;
+
+        private void add(final Section section) {
+            strategies.merge(MappingsOptimizer.strategyName(section.strategy), 1, Integer::sum);
+            sections++;
+            entries += section.size;
+            identityMappings += section.identityMappings;
+            emptyMappings += section.emptyMappings;
+            shiftChanges += section.shiftChanges;
+            bytes += section.bytes;
+            if (section.strategy != MappingsOptimizer.IDENTITY_ID) {
+                directBytes += section.directBytes;
+                changedBytes += section.changedBytes;
+                shiftBytes += section.shiftBytes;
+            }
+        }
+
+        private JsonObject toJson() {
+            final JsonObject strategiesObject = new JsonObject();
+            for (final Map.Entry<String, Integer> entry : strategies.entrySet()) {
+                strategiesObject.addProperty(entry.getKey(), entry.getValue());
+            }
+
+            // Total packed sizes if every non-identity section of the type used the same strategy
+            final JsonObject alternatives = new JsonObject();
+            alternatives.addProperty("direct", directBytes);
+            alternatives.addProperty("changes", changedBytes);
+            alternatives.addProperty("shifts", shiftBytes);
+
+            final JsonObject object = new JsonObject();
+            object.addProperty("bytes", bytes);
+            object.addProperty("sections", sections);
+            object.addProperty("entries", entries);
+            object.addProperty("identityMappings", identityMappings);
+            object.addProperty("emptyMappings", emptyMappings);
+            object.addProperty("shiftChanges", shiftChanges);
+            object.add("strategies", strategiesObject);
+            object.add("alternatives", alternatives);
+            return object;
+        }
+    }
+}
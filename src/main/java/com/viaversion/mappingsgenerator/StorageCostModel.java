@@ -0,0 +1,205 @@
+/*
+ * This file is part of ViaVersion Mappings - https://github.com/ViaVersion/Mappings
+ * Copyright (C) 2023 Nassim Jahnke
+ * Copyright (C) 2023-2025 ViaVersion and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.viaversion.mappingsgenerator;
+
+import com.google.gson.JsonObject;
+import com.viaversion.mappingsgenerator.MappingsLoader.MappingsResult;
+import com.viaversion.mappingsgenerator.reader.MappingsReader;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Weighs the encoded size of a packed mappings section against the estimated time consumers need to expand it.
+ * The cost of a strategy is {@code bytes * byteWeight + decodeOperations * nanosPerOperation * nanoWeight}, where
+ * decode operations are the varints read plus the entries written into the mappings array.
+ * <p>
+ * Decode timings depend on the machine they were measured on, so they are stored in a json file and reused by later
+ * runs to keep regenerations reproducible.
+ */
+public final class StorageCostModel {
+
+    /**
+     * Picks strategies purely by encoded length.
+     */
+    public static final StorageCostModel SIZE_ONLY = new StorageCostModel(1, 0, new double[]{1, 1, 1});
+    public static final Path DEFAULT_TIMINGS_PATH = Path.of("decode_cost.json");
+    public static final double DEFAULT_BYTE_WEIGHT = 1;
+    public static final double DEFAULT_NANO_WEIGHT = 0.5;
+    private static final byte[] PACKED_STRATEGIES = {MappingsOptimizer.DIRECT_ID, MappingsOptimizer.SHIFTS_ID, MappingsOptimizer.CHANGES_ID};
+    private static final Logger LOGGER = LoggerFactory.getLogger(StorageCostModel.class.getSimpleName());
+    private static final int CALIBRATION_SIZE = 25_000;
+    private static final int CALIBRATION_ROUNDS = 200;
+    private final double byteWeight;
+    private final double nanoWeight;
+    private final double[] nanosPerOperation;
+
+    /**
+     * Creates a new cost model.
+     *
+     * @param byteWeight        weight of a single encoded byte
+     * @param nanoWeight        weight of a single nanosecond of estimated decode time
+     * @param nanosPerOperation nanoseconds per decode operation, indexed by storage strategy id
+     */
+    public StorageCostModel(final double byteWeight, final double nanoWeight, final double[] nanosPerOperation) {
+        if (nanosPerOperation.length != MappingsOptimizer.CHANGES_ID + 1) {
+            throw new IllegalArgumentException("Expected decode timings for all packed strategies, got " + nanosPerOperation.length);
+        }
+        this.byteWeight = byteWeight;
+        this.nanoWeight = nanoWeight;
+        this.nanosPerOperation = nanosPerOperation;
+    }
+
+    /**
+     * Returns a cost model with the decode timings stored in the given file.
+     * If the file does not exist yet, the decoders are calibrated on the current machine and their timings written to it.
+     *
+     * @param timingsPath path of the json file with nanoseconds per decode operation by storage strategy name
+     * @param byteWeight  weight of a single encoded byte
+     * @param nanoWeight  weight of a single nanosecond of estimated decode time
+     * @return cost model with stored or calibrated timings
+     * @throws IOException if the timings could not be read or written
+     */
+    public static StorageCostModel load(final Path timingsPath, final double byteWeight, final double nanoWeight) throws IOException {
+        if (!Files.exists(timingsPath)) {
+            final double[] nanosPerOperation = calibrate();
+            final JsonObject timings = new JsonObject();
+            for (final byte strategy : PACKED_STRATEGIES) {
+                timings.addProperty(MappingsOptimizer.strategyName(strategy), nanosPerOperation[strategy]);
+            }
+            MappingsOptimizer.writeJson(timings, timingsPath);
+            LOGGER.info("Wrote calibrated decode timings to {}", timingsPath);
+            return new StorageCostModel(byteWeight, nanoWeight, nanosPerOperation);
+        }
+
+        final JsonObject timings;
+        try (final BufferedReader reader = Files.newBufferedReader(timingsPath)) {
+            timings = MappingsGenerator.GSON.fromJson(reader, JsonObject.class);
+        }
+
+        final double[] nanosPerOperation = new double[MappingsOptimizer.CHANGES_ID + 1];
+        for (final byte strategy : PACKED_STRATEGIES) {
+            final String name = MappingsOptimizer.strategyName(strategy);
+            if (!timings.has(name)) {
+                throw new IllegalArgumentException("Missing decode timing for " + name + " in " + timingsPath);
+            }
+            nanosPerOperation[strategy] = timings.get(name).getAsDouble();
+        }
+        return new StorageCostModel(byteWeight, nanoWeight, nanosPerOperation);
+    }
+
+    /**
+     * Returns the nanoseconds per decode operation measured by running each decoder on the current machine.
+     *
+     * @return nanoseconds per decode operation, indexed by storage strategy id
+     */
+    public static double[] calibrate() {
+        final int[] mappings = calibrationMappings();
+        final MappingsResult result = MappingsResult.of(mappings, mappings.length);
+        final int changes = mappings.length - result.identityMappings();
+        final byte[] direct = MappingsOptimizer.directValues(mappings).getValue();
+        final byte[] changed = MappingsOptimizer.changedValues(result, changes).getValue();
+        final byte[] shifts = MappingsOptimizer.shiftValues(result, "calibration").getValue();
+
+        final double[] nanosPerOperation = new double[MappingsOptimizer.CHANGES_ID + 1];
+        nanosPerOperation[MappingsOptimizer.DIRECT_ID] = measure(() -> MappingsReader.decodeDirect(direct, mappings.length))
+            / decodeOperations(MappingsOptimizer.DIRECT_ID, mappings.length, mappings.length);
+        nanosPerOperation[MappingsOptimizer.CHANGES_ID] = measure(() -> MappingsReader.decodeChanges(changed, mappings.length, true))
+            / decodeOperations(MappingsOptimizer.CHANGES_ID, mappings.length, changes);
+        nanosPerOperation[MappingsOptimizer.SHIFTS_ID] = measure(() -> MappingsReader.decodeShifts(shifts, mappings.length))
+            / decodeOperations(MappingsOptimizer.SHIFTS_ID, mappings.length, result.shiftChanges());
+
+        LOGGER.info("Calibrated decode cost in ns per operation: direct={}, shifts={}, changes={}",
+            String.format("%.3f", nanosPerOperation[MappingsOptimizer.DIRECT_ID]),
+            String.format("%.3f", nanosPerOperation[MappingsOptimizer.SHIFTS_ID]),
+            String.format("%.3f", nanosPerOperation[MappingsOptimizer.CHANGES_ID])
+        );
+        return nanosPerOperation;
+    }
+
+    /**
+     * Returns the weighted cost of storing a section with the given strategy.
+     *
+     * @param strategy storage strategy id
+     * @param bytes    encoded length of the section
+     * @param size     number of unmapped entries
+     * @param pairs    number of packed id and value pairs, ignored for direct storage
+     * @return weighted cost, lower is better
+     */
+    public double cost(final byte strategy, final int bytes, final int size, final int pairs) {
+        return bytes * byteWeight + decodeOperations(strategy, size, pairs) * nanosPerOperation[strategy] * nanoWeight;
+    }
+
+    /**
+     * Returns the number of varint reads and array writes needed to expand a section into a full mappings array.
+     */
+    static long decodeOperations(final byte strategy, final int size, final int pairs) {
+        return switch (strategy) {
+            case MappingsOptimizer.DIRECT_ID -> 2L * size;
+            // Identity fill of all entries, then one write per changed entry
+            case MappingsOptimizer.CHANGES_ID -> 2L * pairs + size + pairs;
+            case MappingsOptimizer.SHIFTS_ID -> 2L * pairs + size;
+            default -> throw new IllegalArgumentException("Unknown storage strategy " + strategy);
+        };
+    }
+
+    private static double measure(final Runnable decoder) {
+        // Warm up first, then take the fastest round to filter out noise
+        for (int i = 0; i < CALIBRATION_ROUNDS; i++) {
+            decoder.run();
+        }
+
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < CALIBRATION_ROUNDS; i++) {
+            final long start = System.nanoTime();
+            decoder.run();
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        return best;
+    }
+
+    /**
+     * Returns deterministic mappings resembling a large registry between two versions,
+     * mostly shifted sequences with a few scattered changes and removals.
+     */
+    private static int[] calibrationMappings() {
+        final Random random = new Random(CALIBRATION_SIZE);
+        final int[] mappings = new int[CALIBRATION_SIZE];
+        int mappedId = 0;
+        for (int id = 0; id < mappings.length; id++) {
+            final int roll = random.nextInt(100);
+            if (roll == 0) {
+                mappings[id] = -1;
+                continue;
+            }
+            if (roll == 1) {
+                mappedId += random.nextInt(50);
+            } else if (roll == 2) {
+                mappings[id] = random.nextInt(CALIBRATION_SIZE);
+                continue;
+            }
+            mappings[id] = mappedId++;
+        }
+        return mappings;
+    }
+}
@@ -22,8 +22,6 @@ import com.google.gson.JsonArray;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
 import com.viaversion.mappingsgenerator.MappingsLoader;
-import com.viaversion.mappingsgenerator.MappingsOptimizer;
-import com.viaversion.mappingsgenerator.util.IdRanges;
 import com.viaversion.nbt.tag.CompoundTag;
 import com.viaversion.nbt.tag.ListTag;
 import it.unimi.dsi.fastutil.ints.Int2ObjectMap;
@@ -31,27 +29,53 @@ import it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap;
 import it.unimi.dsi.fastutil.ints.IntArrayList;
 import it.unimi.dsi.fastutil.ints.IntList;
 import it.unimi.dsi.fastutil.objects.Object2IntMap;
-import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
 import java.io.IOException;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
-public final class BlockConnections {
+public final class BlockConnections implements ExtraDataGenerator {
 
     private static final List<String> HORIZONTAL_BLOCK_FACES = List.of("north", "south", "east", "west");
     private static final List<String> CONNECTION_TYPES = List.of("fence", "netherFence", "pane", "cobbleWall", "redstone", "allFalseIfStairPre1_12");
 
-    public static void main(final String[] args) throws Exception {
-        final JsonArray blockstates = MappingsLoader.load("mapping-1.13.json").getAsJsonArray("blockstates");
-        final Object2IntMap<String> statesMap = new Object2IntOpenHashMap<>();
-        statesMap.defaultReturnValue(-1);
+    public static void main(final String[] args) throws IOException {
+        ExtraDataPipeline.run(List.of(new BlockConnections()), args);
+    }
+
+    @Override
+    public String name() {
+        return "blockConnections";
+    }
+
+    @Override
+    public String version() {
+        return "1.13";
+    }
+
+    @Override
+    public List<String> keys() {
+        return List.of("blockstates");
+    }
+
+    @Override
+    public List<String> inputFiles() {
+        return List.of("extra/blockConnections.json", "extra/occluding-states-1.13.json");
+    }
+
+    @Override
+    public List<String> idKeys() {
+        return List.of("profiles/ids", "occluding-states");
+    }
+
+    @Override
+    public CompoundTag generate(final ExtraDataContext context) throws IOException {
+        final JsonArray blockstates = context.mappings(version()).getAsJsonArray("blockstates");
+        final Object2IntMap<String> statesMap = context.index(version(), "blockstates");
         final Map<String, IntList> blockStates = new HashMap<>();
         for (int id = 0; id < blockstates.size(); id++) {
             final String state = blockstates.get(id).getAsString();
-            statesMap.put(state, id);
-
             final int propertiesIndex = state.indexOf('[');
             if (propertiesIndex != -1) {
                 blockStates.computeIfAbsent(state.substring(0, propertiesIndex), $ -> new IntArrayList()).add(id);
@@ -83,15 +107,15 @@ public final class BlockConnections {
         final ListTag<CompoundTag> profilesTag = new ListTag<>(CompoundTag.class);
         for (final Map.Entry<CompoundTag, IntList> entry : profiles.entrySet()) {
             final CompoundTag profileTag = entry.getKey().copy();
-            profileTag.put("ids", IdRanges.encode(entry.getValue()));
+            profileTag.put("ids", context.encodeIds(entry.getValue()));
             profilesTag.add(profileTag);
         }
 
         final CompoundTag tag = new CompoundTag();
         tag.put("profiles", profilesTag);
 
-        addOccludingBlockStates(tag, statesMap);
-        MappingsOptimizer.write(tag, MappingsOptimizer.OUTPUT_DIR.resolve("extra/blockConnections.nbt"));
+        addOccludingBlockStates(tag, statesMap, context);
+        return tag;
     }
 
     private static void addStateId(final Map<CompoundTag, IntList> profiles, final Int2ObjectMap<CompoundTag> stateProfiles, final CompoundTag profile, final int stateId, final String key) {
@@ -137,7 +161,7 @@ public final class BlockConnections {
         return profile;
     }
 
-    private static void addOccludingBlockStates(final CompoundTag tag, final Object2IntMap<String> statesMap) throws IOException {
+    private static void addOccludingBlockStates(final CompoundTag tag, final Object2IntMap<String> statesMap, final ExtraDataContext context) throws IOException {
         final JsonArray states = MappingsLoader.load("extra/occluding-states-1.13.json", JsonArray.class);
         final IntList ids = new IntArrayList(states.size());
         for (final JsonElement stateElement : states) {
@@ -149,7 +173,7 @@ public final class BlockConnections {
             ids.add(id);
         }
 
-        tag.put("occluding-states", IdRanges.encode(ids));
+        tag.put("occluding-states", context.encodeIds(ids));
     }
 
     private static byte connectionTypeToId(final String type) {
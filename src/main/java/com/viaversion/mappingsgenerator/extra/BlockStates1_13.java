@@ -20,9 +20,6 @@ package com.viaversion.mappingsgenerator.extra;
 
 import com.google.gson.JsonArray;
 import com.google.gson.JsonElement;
-import com.google.gson.JsonObject;
-import com.viaversion.mappingsgenerator.MappingsLoader;
-import com.viaversion.mappingsgenerator.MappingsOptimizer;
 import com.viaversion.nbt.tag.CompoundTag;
 import com.viaversion.nbt.tag.IntArrayTag;
 import com.viaversion.nbt.tag.ListTag;
@@ -35,11 +32,30 @@ import java.util.List;
 import java.util.Map;
 
 // Could be furhter improved and re-used if we ever NEED to include every block state string
-public final class BlockStates1_13 {
+public final class BlockStates1_13 implements ExtraDataGenerator {
 
     public static void main(final String[] args) throws IOException {
-        final JsonObject mappings = MappingsLoader.load("mapping-1.13.json");
-        final JsonArray blockstates = mappings.getAsJsonArray("blockstates");
+        ExtraDataPipeline.run(List.of(new BlockStates1_13()), args);
+    }
+
+    @Override
+    public String name() {
+        return "blockstates-1.13";
+    }
+
+    @Override
+    public String version() {
+        return "1.13";
+    }
+
+    @Override
+    public List<String> keys() {
+        return List.of("blockstates");
+    }
+
+    @Override
+    public CompoundTag generate(final ExtraDataContext context) {
+        final JsonArray blockstates = context.mappings(version()).getAsJsonArray("blockstates");
 
         // Store each block once with its properties instead of every full state string.
         // Properties shared between blocks (same name and values) are stored once in a table and referenced by index
@@ -76,8 +92,7 @@ public final class BlockStates1_13 {
         final CompoundTag tag = new CompoundTag();
         tag.put("properties", propertyTable);
         tag.put("blockstates", blocks);
-
-        MappingsOptimizer.write(tag, MappingsOptimizer.OUTPUT_DIR.resolve("extra/blockstates-1.13.nbt"));
+        return tag;
     }
 
     private static CompoundTag toBlockTag(
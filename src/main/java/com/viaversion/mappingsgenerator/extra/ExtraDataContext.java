@@ -0,0 +1,155 @@
+/*
+ * This file is part of ViaVersion Mappings - https://github.com/ViaVersion/Mappings
+ * Copyright (C) 2023 Nassim Jahnke
+ * Copyright (C) 2023-2025 ViaVersion and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.viaversion.mappingsgenerator.extra;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.viaversion.mappingsgenerator.MappingsLoader;
+import com.viaversion.mappingsgenerator.MappingsOptimizer;
+import com.viaversion.mappingsgenerator.util.IdRanges;
+import com.viaversion.mappingsgenerator.util.IdSet;
+import com.viaversion.nbt.tag.ByteArrayTag;
+import com.viaversion.nbt.tag.CompoundTag;
+import it.unimi.dsi.fastutil.ints.IntList;
+import it.unimi.dsi.fastutil.objects.Object2IntMap;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Loads json mappings and identifier to id indexes once and shares them between concurrently running extra data generators.
+ * Returned objects must not be modified.
+ */
+public final class ExtraDataContext {
+
+    /**
+     * Byte tag marking extra data files with id sets stored as {@link IdSet}s, as both layouts are plain byte arrays.
+     */
+    public static final String COMPACT_SETS_MARKER = "compact_sets";
+    private final Map<String, JsonObject> mappings = new ConcurrentHashMap<>();
+    private final Map<String, Object2IntMap<String>> indexes = new ConcurrentHashMap<>();
+    private final boolean compactSets;
+
+    /**
+     * Creates a new context.
+     *
+     * @param compactSets whether id sets are stored as {@link IdSet}s instead of {@link IdRanges}
+     */
+    public ExtraDataContext(final boolean compactSets) {
+        this.compactSets = compactSets;
+    }
+
+    /**
+     * Encodes a set of ids as an {@link IdSet} if compact sets are enabled, else as {@link IdRanges}.
+     *
+     * @param ids ids, sorted in place if needed
+     * @return encoded id set
+     */
+    public ByteArrayTag encodeIds(final IntList ids) {
+        return compactSets ? IdSet.encode(ids) : IdRanges.encode(ids);
+    }
+
+    /**
+     * Returns the sorted ids of a set written by {@link #encodeIds(IntList)} with the same setting.
+     *
+     * @param tag encoded id set
+     * @return sorted ids
+     */
+    public IntList decodeIds(final ByteArrayTag tag) {
+        return compactSets ? IdSet.read(tag).toList() : IdRanges.decode(tag);
+    }
+
+    /**
+     * Marks the given extra data file with the id set layout of this context.
+     * Files with {@link IdRanges} stay unmarked to keep their existing format.
+     *
+     * @param tag extra data file
+     */
+    public void markLayout(final CompoundTag tag) {
+        if (compactSets) {
+            tag.putByte(COMPACT_SETS_MARKER, (byte) 1);
+        }
+    }
+
+    /**
+     * Checks that the id sets of the given extra data file were written with the layout of this context.
+     *
+     * @param tag extra data file
+     * @throws IllegalArgumentException if the file was written with the other layout
+     */
+    public void checkLayout(final CompoundTag tag) {
+        if (tag.contains(COMPACT_SETS_MARKER) != compactSets) {
+            throw new IllegalArgumentException(compactSets
+                ? "Id sets were written as id ranges, run without --compactSets"
+                : "Id sets were written as compact sets, run with --compactSets");
+        }
+    }
+
+    /**
+     * Returns the json mappings of the given version.
+     *
+     * @param version version
+     * @return json mappings
+     */
+    public JsonObject mappings(final String version) {
+        return mappings.computeIfAbsent(version, $ -> {
+            try {
+                final JsonObject object = MappingsLoader.load(MappingsOptimizer.MAPPING_FILE_FORMAT.formatted(version));
+                if (object == null) {
+                    throw new IllegalArgumentException("Mapping file for version " + version + " does not exist");
+                }
+                return object;
+            } catch (final IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    /**
+     * Returns the identifiers of a registry of the given version.
+     *
+     * @param version version
+     * @param key     registry key
+     * @return identifiers, or null if the registry is not present or not stored as an array
+     */
+    public @Nullable JsonArray identifiers(final String version, final String key) {
+        final JsonElement identifiers = mappings(version).get(key);
+        return identifiers != null && identifiers.isJsonArray() ? identifiers.getAsJsonArray() : null;
+    }
+
+    /**
+     * Returns a map of the identifiers of a registry of the given version to their ids, returning -1 for unknown identifiers.
+     *
+     * @param version version
+     * @param key     registry key
+     * @return identifier to id map
+     */
+    public Object2IntMap<String> index(final String version, final String key) {
+        return indexes.computeIfAbsent(version + ":" + key, $ -> {
+            final JsonArray identifiers = identifiers(version, key);
+            if (identifiers == null) {
+                throw new IllegalArgumentException("No " + key + " array in " + version);
+            }
+            return MappingsLoader.arrayToMap(identifiers);
+        });
+    }
+}
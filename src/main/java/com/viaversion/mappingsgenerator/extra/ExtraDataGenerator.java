@@ -0,0 +1,81 @@
+/*
+ * This file is part of ViaVersion Mappings - https://github.com/ViaVersion/Mappings
+ * Copyright (C) 2023 Nassim Jahnke
+ * Copyright (C) 2023-2025 ViaVersion and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.viaversion.mappingsgenerator.extra;
+
+import com.viaversion.nbt.tag.CompoundTag;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Generates an extra data file for a single version, run as part of the {@link ExtraDataPipeline}.
+ * Generators may run concurrently and must only share state through the given {@link ExtraDataContext}.
+ */
+public interface ExtraDataGenerator {
+
+    /**
+     * Returns the name of the generated file in {@code output/extra/}, without file extension.
+     *
+     * @return file name
+     */
+    String name();
+
+    /**
+     * Returns the version the data is generated for.
+     *
+     * @return version
+     */
+    String version();
+
+    /**
+     * Returns the registries of the version's json mappings the generator reads.
+     * Ids contained in the generated data are those of the first one.
+     *
+     * @return registry keys
+     */
+    List<String> keys();
+
+    /**
+     * Returns the files in {@code mappings/} the generator reads besides the json mappings of its version.
+     * The generator is skipped if none of them changed since its file was last written.
+     *
+     * @return relative paths of input files
+     */
+    default List<String> inputFiles() {
+        return List.of();
+    }
+
+    /**
+     * Returns the paths of the tags in the generated data holding ids of the first registry, which {@link ExtraProjection}
+     * maps to other versions. Path elements are separated by {@code /}, a list of compounds applies the rest of the path
+     * to each of its elements. Data without such ids is not projected.
+     *
+     * @return paths of id tags
+     */
+    default List<String> idKeys() {
+        return List.of();
+    }
+
+    /**
+     * Generates the extra data.
+     *
+     * @param context context with shared mappings and identifier indexes
+     * @return generated tag
+     */
+    CompoundTag generate(ExtraDataContext context) throws IOException;
+}
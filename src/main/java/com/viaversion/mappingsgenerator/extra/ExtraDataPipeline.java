@@ -0,0 +1,171 @@
+/*
+ * This file is part of ViaVersion Mappings - https://github.com/ViaVersion/Mappings
+ * Copyright (C) 2023 Nassim Jahnke
+ * Copyright (C) 2023-2025 ViaVersion and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.viaversion.mappingsgenerator.extra;
+
+import com.viaversion.mappingsgenerator.MappingsOptimizer;
+import com.viaversion.mappingsgenerator.RunContext;
+import com.viaversion.mappingsgenerator.util.IdSet;
+import com.viaversion.nbt.tag.CompoundTag;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.CRC32;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Runs extra data generators concurrently with shared mappings and identifier indexes, then writes their files to
+ * {@code output/extra/} through the {@link RunContext} so that they are part of the output hash tracking.
+ * <p>
+ * The hash of each generator's input files and id set layout is stored next to its file hash, and generators whose
+ * inputs did not change since then are skipped, unless {@code --force} is given.
+ */
+public final class ExtraDataPipeline {
+
+    public static final Path OUTPUT_EXTRA_DIR = MappingsOptimizer.OUTPUT_DIR.resolve("extra");
+    public static final List<ExtraDataGenerator> GENERATORS = List.of(
+        new BlockConnections(),
+        new BlockStates1_13(),
+        new MotionBlocking1_14(),
+        new SpecialRecipes1_21_2(),
+        new Fluids26_1()
+    );
+    private static final Logger LOGGER = LoggerFactory.getLogger(ExtraDataPipeline.class.getSimpleName());
+
+    public static void main(final String[] args) throws IOException {
+        run(GENERATORS, args);
+    }
+
+    /**
+     * Runs the given generators with a freshly loaded run context and writes the collected file hashes afterwards.
+     * Id sets are written as {@link IdSet}s if {@code --compactSets} is given, and all generators are run
+     * regardless of their inputs if {@code --force} is given.
+     *
+     * @param generators generators to run
+     * @param args       program arguments
+     */
+    public static void run(final List<ExtraDataGenerator> generators, final String[] args) throws IOException {
+        final RunContext runContext = RunContext.load();
+        if (Arrays.asList(args).contains("--compactSets")) {
+            runContext.enableCompactSets();
+        }
+        run(runContext, generators, Arrays.asList(args).contains("--force"));
+        runContext.saveHashes();
+    }
+
+    /**
+     * Runs the given generators concurrently and writes their files in the given order.
+     *
+     * @param runContext run context to write the files with
+     * @param generators generators to run
+     * @param force      whether to also run generators whose inputs did not change
+     */
+    public static void run(final RunContext runContext, final List<ExtraDataGenerator> generators, final boolean force) throws IOException {
+        final List<ExtraDataGenerator> changedGenerators = new ArrayList<>(generators.size());
+        final List<Long> inputHashes = new ArrayList<>(generators.size());
+        for (final ExtraDataGenerator generator : generators) {
+            final long inputHash = inputHash(generator, runContext.compactSets());
+            // Dry runs analyze all files
+            if (!force && !runContext.dryRun() && runContext.isUpToDate(fileKey(generator), inputHash, outputPath(generator))) {
+                LOGGER.info("Skipped {} for {}, its inputs are unchanged", generator.name(), generator.version());
+                continue;
+            }
+            changedGenerators.add(generator);
+            inputHashes.add(inputHash);
+        }
+        if (changedGenerators.isEmpty()) {
+            return;
+        }
+
+        final ExtraDataContext context = new ExtraDataContext(runContext.compactSets());
+        final ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, Math.min(changedGenerators.size(), Runtime.getRuntime().availableProcessors())));
+        try {
+            final List<Future<CompoundTag>> results = new ArrayList<>(changedGenerators.size());
+            for (final ExtraDataGenerator generator : changedGenerators) {
+                results.add(executor.submit(() -> generator.generate(context)));
+            }
+
+            Files.createDirectories(OUTPUT_EXTRA_DIR);
+            for (int i = 0; i < changedGenerators.size(); i++) {
+                final ExtraDataGenerator generator = changedGenerators.get(i);
+                final CompoundTag tag = result(generator, results.get(i));
+                context.markLayout(tag);
+                runContext.writeFile(fileKey(generator), tag, outputPath(generator));
+                if (!runContext.dryRun()) {
+                    runContext.setInputHash(fileKey(generator), inputHashes.get(i));
+                }
+                LOGGER.info("Generated {} for {}", generator.name(), generator.version());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static String fileKey(final ExtraDataGenerator generator) {
+        return "extra/" + generator.name();
+    }
+
+    private static Path outputPath(final ExtraDataGenerator generator) {
+        return OUTPUT_EXTRA_DIR.resolve(generator.name() + ".nbt");
+    }
+
+    /**
+     * Returns a hash of the json mappings of the generator's version, its other input files and the id set layout.
+     */
+    private static long inputHash(final ExtraDataGenerator generator, final boolean compactSets) throws IOException {
+        final CRC32 crc32 = new CRC32();
+        final List<String> files = new ArrayList<>();
+        files.add(MappingsOptimizer.MAPPING_FILE_FORMAT.formatted(generator.version()));
+        files.addAll(generator.inputFiles());
+        for (final String file : files) {
+            crc32.update(file.getBytes(StandardCharsets.UTF_8));
+            crc32.update(Files.readAllBytes(MappingsOptimizer.MAPPINGS_DIR.resolve(file)));
+        }
+        crc32.update(compactSets ? 1 : 0);
+        return crc32.getValue();
+    }
+
+    private static CompoundTag result(final ExtraDataGenerator generator, final Future<CompoundTag> result) throws IOException {
+        try {
+            return result.get();
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while generating " + generator.name(), e);
+        } catch (final ExecutionException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof final IOException ioException) {
+                throw ioException;
+            } else if (cause instanceof final UncheckedIOException uncheckedIOException) {
+                throw uncheckedIOException.getCause();
+            } else if (cause instanceof final RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException("Failed to generate " + generator.name(), cause);
+        }
+    }
+}
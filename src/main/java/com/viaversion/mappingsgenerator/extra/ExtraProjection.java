@@ -0,0 +1,207 @@
+/*
+ * This file is part of ViaVersion Mappings - https://github.com/ViaVersion/Mappings
+ * Copyright (C) 2023 Nassim Jahnke
+ * Copyright (C) 2023-2025 ViaVersion and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.viaversion.mappingsgenerator.extra;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.viaversion.mappingsgenerator.ErrorStrategy;
+import com.viaversion.mappingsgenerator.ManualRunner;
+import com.viaversion.mappingsgenerator.MappingsComposer;
+import com.viaversion.mappingsgenerator.MappingsLoader;
+import com.viaversion.mappingsgenerator.MappingsLoader.MappingsResult;
+import com.viaversion.mappingsgenerator.MappingsOptimizer;
+import com.viaversion.mappingsgenerator.RunContext;
+import com.viaversion.mappingsgenerator.util.IdSet;
+import com.viaversion.nbt.tag.ByteArrayTag;
+import com.viaversion.nbt.tag.CompoundTag;
+import com.viaversion.nbt.tag.IntArrayTag;
+import com.viaversion.nbt.tag.ListTag;
+import com.viaversion.nbt.tag.Tag;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.ints.IntList;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Projects the extra data files, generated for a single version, to every other version through the composed mappings
+ * of all versions in between. Only the id tags declared by each generator's {@link ExtraDataGenerator#idKeys()} are
+ * projected: id sets are projected to the set of mapped ids, with unmapped ids dropped, int arrays are projected
+ * element-wise with unmapped ids set to -1. All other tags are copied. Id sets are read and written as {@link IdSet}s if
+ * {@code --compactSets} is given, which has to match the setting the extra data files were generated with.
+ * <p>
+ * Has to be run after the generators of the {@link ExtraDataPipeline}, the projected files are written to
+ * {@code output/extra/projected/<name>-<version>.nbt} through the {@link RunContext}.
+ */
+public final class ExtraProjection {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ExtraProjection.class.getSimpleName());
+    private static final Path PROJECTED_DIR = ExtraDataPipeline.OUTPUT_EXTRA_DIR.resolve("projected");
+
+    public static void main(final String[] args) throws IOException {
+        final List<String> versions = ManualRunner.allVersions();
+        final RunContext runContext = RunContext.load();
+        if (Arrays.asList(args).contains("--compactSets")) {
+            runContext.enableCompactSets();
+        }
+        final ExtraDataContext context = new ExtraDataContext(runContext.compactSets());
+        Files.createDirectories(PROJECTED_DIR);
+
+        for (final ExtraDataGenerator generator : ExtraDataPipeline.GENERATORS) {
+            if (generator.idKeys().isEmpty()) {
+                continue;
+            }
+
+            final Path inputPath = ExtraDataPipeline.OUTPUT_EXTRA_DIR.resolve(generator.name() + ".nbt");
+            final CompoundTag tag = runContext.readFile(inputPath);
+            final Map<String, int[]> versionMappings = projectedMappings(generator.version(), generator.keys().get(0), versions, context);
+
+            // Version suffixes are replaced by the projected version
+            final String versionSuffix = "-" + generator.version();
+            final String name = generator.name().endsWith(versionSuffix)
+                ? generator.name().substring(0, generator.name().length() - versionSuffix.length())
+                : generator.name();
+            for (final Map.Entry<String, int[]> entry : versionMappings.entrySet()) {
+                final String fileName = name + "-" + entry.getKey();
+                runContext.writeFile("extra/projected/" + fileName, project(context, tag, generator.idKeys(), entry.getValue()), PROJECTED_DIR.resolve(fileName + ".nbt"));
+            }
+            LOGGER.info("Projected {} from {} to {} versions", name, generator.version(), versionMappings.size());
+        }
+        runContext.saveHashes();
+    }
+
+    /**
+     * Returns a copy of the given extra data tag with the ids in the given tags mapped.
+     * The tag has to be written with the same id set layout as the context uses.
+     *
+     * @param context  context with the id set encoding of the tag
+     * @param tag      extra data tag
+     * @param idKeys   paths of the id tags, as declared by {@link ExtraDataGenerator#idKeys()}
+     * @param mappings mappings from the extra data's version to the target version
+     * @return projected tag
+     */
+    public static CompoundTag project(final ExtraDataContext context, final CompoundTag tag, final List<String> idKeys, final int[] mappings) {
+        context.checkLayout(tag);
+        final CompoundTag projected = tag.copy();
+        for (final String idKey : idKeys) {
+            project(context, projected, idKey.split("/"), 0, mappings);
+        }
+        return projected;
+    }
+
+    private static void project(final ExtraDataContext context, final CompoundTag tag, final String[] path, final int index, final int[] mappings) {
+        final Tag child = tag.get(path[index]);
+        if (index == path.length - 1) {
+            tag.put(path[index], projectIds(context, child, mappings, path));
+        } else if (child instanceof final CompoundTag compound) {
+            project(context, compound, path, index + 1, mappings);
+        } else if (child instanceof final ListTag<?> list) {
+            for (final Tag element : list) {
+                if (!(element instanceof final CompoundTag compound)) {
+                    throw new IllegalArgumentException("Expected a list of compounds at " + String.join("/", path));
+                }
+                project(context, compound, path, index + 1, mappings);
+            }
+        } else {
+            throw new IllegalArgumentException("Missing id tag " + String.join("/", path));
+        }
+    }
+
+    private static Tag projectIds(final ExtraDataContext context, final Tag tag, final int[] mappings, final String[] path) {
+        if (tag instanceof final ByteArrayTag idSet) {
+            final IntList ids = context.decodeIds(idSet);
+            final int[] mappedIds = new int[ids.size()];
+            int size = 0;
+            for (int i = 0; i < ids.size(); i++) {
+                final int mappedId = map(mappings, ids.getInt(i));
+                if (mappedId != -1) {
+                    mappedIds[size++] = mappedId;
+                }
+            }
+
+            // Several ids may be mapped to the same one
+            Arrays.sort(mappedIds, 0, size);
+            final IntList projected = new IntArrayList(size);
+            for (int i = 0; i < size; i++) {
+                if (i == 0 || mappedIds[i] != mappedIds[i - 1]) {
+                    projected.add(mappedIds[i]);
+                }
+            }
+            return context.encodeIds(projected);
+        } else if (tag instanceof final IntArrayTag intArray) {
+            final int[] ids = intArray.getValue();
+            final int[] projected = new int[ids.length];
+            for (int i = 0; i < ids.length; i++) {
+                projected[i] = map(mappings, ids[i]);
+            }
+            return new IntArrayTag(projected);
+        }
+        throw new IllegalArgumentException("Missing id tag or unsupported tag type at " + String.join("/", path));
+    }
+
+    private static int map(final int[] mappings, final int id) {
+        return id >= 0 && id < mappings.length ? mappings[id] : -1;
+    }
+
+    /**
+     * Returns the mappings from the given version to every version reachable through array-based mappings of the registry,
+     * composed step by step in both directions.
+     */
+    private static Map<String, int[]> projectedMappings(final String version, final String key, final List<String> versions, final ExtraDataContext context) throws IOException {
+        final int sourceIndex = versions.indexOf(version);
+        if (sourceIndex == -1) {
+            throw new IllegalArgumentException("Unknown version " + version);
+        }
+
+        final JsonArray sourceIdentifiers = context.identifiers(version, key);
+        if (sourceIdentifiers == null) {
+            throw new IllegalArgumentException("No " + key + " array in " + version);
+        }
+
+        final Map<String, int[]> versionMappings = new HashMap<>();
+        final MappingsResult identity = MappingsComposer.identity(sourceIdentifiers.size());
+        versionMappings.put(version, identity.mappings());
+        for (final int step : new int[]{-1, 1}) {
+            MappingsResult result = identity;
+            JsonArray previousIdentifiers = sourceIdentifiers;
+            for (int i = sourceIndex + step; i >= 0 && i < versions.size(); i += step) {
+                final String from = versions.get(i - step);
+                final String to = versions.get(i);
+                final JsonArray identifiers = context.identifiers(to, key);
+                if (identifiers == null) {
+                    // Pre 1.13 registries are not stored as arrays
+                    break;
+                }
+
+                final JsonObject diff = MappingsLoader.load(MappingsOptimizer.MAPPINGS_DIR.resolve("diff"), MappingsOptimizer.DIFF_FILE_FORMAT.formatted(from, to));
+                final JsonObject diffIdentifiers = diff != null ? diff.getAsJsonObject(key) : null;
+                result = MappingsComposer.compose(result, MappingsLoader.map(previousIdentifiers, identifiers, diffIdentifiers, ErrorStrategy.IGNORE));
+                versionMappings.put(to, result.mappings());
+                previousIdentifiers = identifiers;
+            }
+        }
+        return versionMappings;
+    }
+}
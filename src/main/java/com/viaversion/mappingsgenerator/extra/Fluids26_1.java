@@ -2,24 +2,44 @@ package com.viaversion.mappingsgenerator.extra;
 
 import com.google.gson.JsonArray;
 import com.google.gson.JsonElement;
-import com.google.gson.JsonObject;
-import com.viaversion.mappingsgenerator.MappingsLoader;
-import com.viaversion.mappingsgenerator.MappingsOptimizer;
-import com.viaversion.mappingsgenerator.util.IdRanges;
-import com.viaversion.nbt.io.NBTIO;
 import com.viaversion.nbt.tag.CompoundTag;
 import it.unimi.dsi.fastutil.ints.IntArrayList;
 import it.unimi.dsi.fastutil.ints.IntList;
 import java.io.IOException;
+import java.util.List;
 import java.util.Set;
 
-public final class Fluids26_1 {
+public final class Fluids26_1 implements ExtraDataGenerator {
 
     private static final Set<String> FLUID_BLOCKS = Set.of("water", "lava", "kelp", "seagrass", "tall_seagrass", "bubble_column", "kelp_plant");
 
     public static void main(final String[] args) throws IOException {
-        final JsonObject mappings = MappingsLoader.load("mapping-26.1.json");
-        final JsonArray array = mappings.getAsJsonArray("blockstates");
+        ExtraDataPipeline.run(List.of(new Fluids26_1()), args);
+    }
+
+    @Override
+    public String name() {
+        return "fluids-26.1";
+    }
+
+    @Override
+    public String version() {
+        return "26.1";
+    }
+
+    @Override
+    public List<String> keys() {
+        return List.of("blockstates");
+    }
+
+    @Override
+    public List<String> idKeys() {
+        return List.of("fluids");
+    }
+
+    @Override
+    public CompoundTag generate(final ExtraDataContext context) {
+        final JsonArray array = context.mappings(version()).getAsJsonArray("blockstates");
         int i = 0;
         final IntList list = new IntArrayList();
         for (final JsonElement element : array) {
@@ -31,7 +51,7 @@ public final class Fluids26_1 {
             i++;
         }
         final CompoundTag tag = new CompoundTag();
-        tag.put("fluids", IdRanges.encode(list));
-        NBTIO.writer().named().write(MappingsOptimizer.OUTPUT_DIR.resolve("extra/fluids-26.1.nbt"), tag, false);
+        tag.put("fluids", context.encodeIds(list));
+        return tag;
     }
 }
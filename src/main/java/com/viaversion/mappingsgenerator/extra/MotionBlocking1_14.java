@@ -19,28 +19,49 @@
 package com.viaversion.mappingsgenerator.extra;
 
 import com.google.gson.JsonArray;
-import com.google.gson.JsonObject;
 import com.viaversion.mappingsgenerator.MappingsLoader;
-import com.viaversion.mappingsgenerator.MappingsOptimizer;
-import com.viaversion.mappingsgenerator.util.IdRanges;
 import com.viaversion.nbt.tag.CompoundTag;
 import it.unimi.dsi.fastutil.ints.IntArrayList;
 import it.unimi.dsi.fastutil.ints.IntList;
 import it.unimi.dsi.fastutil.objects.Object2IntMap;
-import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
 import java.io.IOException;
+import java.util.List;
 
-public final class MotionBlocking1_14 {
+public final class MotionBlocking1_14 implements ExtraDataGenerator {
 
     public static void main(final String[] args) throws IOException {
-        final JsonObject mappedData = MappingsLoader.load("mapping-1.14.json");
-        final JsonArray mappedBlockStates = mappedData.getAsJsonArray("blockstates");
-        final Object2IntMap<String> blockStateMap = new Object2IntOpenHashMap<>(mappedBlockStates.size());
-        blockStateMap.defaultReturnValue(-1);
-        for (int i = 0; i < mappedBlockStates.size(); i++) {
-            final String state = mappedBlockStates.get(i).getAsString();
-            blockStateMap.put(state, i);
-        }
+        ExtraDataPipeline.run(List.of(new MotionBlocking1_14()), args);
+    }
+
+    @Override
+    public String name() {
+        return "heightmap-1.14";
+    }
+
+    @Override
+    public String version() {
+        return "1.14";
+    }
+
+    @Override
+    public List<String> keys() {
+        return List.of("blockstates");
+    }
+
+    @Override
+    public List<String> inputFiles() {
+        return List.of("extra/motion-blocking-1.14.json");
+    }
+
+    @Override
+    public List<String> idKeys() {
+        return List.of("motionBlocking", "nonFullBlocks");
+    }
+
+    @Override
+    public CompoundTag generate(final ExtraDataContext context) throws IOException {
+        final JsonArray mappedBlockStates = context.mappings(version()).getAsJsonArray("blockstates");
+        final Object2IntMap<String> blockStateMap = context.index(version(), "blockstates");
 
         final JsonArray motionBlocking = MappingsLoader.load("extra/motion-blocking-1.14.json").getAsJsonArray("motion_blocking");
         final IntList motionBlockingIds = new IntArrayList(motionBlocking.size());
@@ -65,8 +86,8 @@ public final class MotionBlocking1_14 {
         }
 
         final CompoundTag tag = new CompoundTag();
-        tag.put("motionBlocking", IdRanges.encode(motionBlockingIds));
-        tag.put("nonFullBlocks", IdRanges.encode(nonFullBlocks));
-        MappingsOptimizer.write(tag, MappingsOptimizer.OUTPUT_DIR.resolve("extra/heightmap-1.14.nbt"));
+        tag.put("motionBlocking", context.encodeIds(motionBlockingIds));
+        tag.put("nonFullBlocks", context.encodeIds(nonFullBlocks));
+        return tag;
     }
 }
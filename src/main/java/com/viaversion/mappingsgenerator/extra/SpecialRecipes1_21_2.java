@@ -18,15 +18,13 @@
  */
 package com.viaversion.mappingsgenerator.extra;
 
-import com.google.gson.JsonObject;
-import com.viaversion.mappingsgenerator.MappingsLoader;
-import com.viaversion.mappingsgenerator.MappingsOptimizer;
 import com.viaversion.nbt.tag.CompoundTag;
 import com.viaversion.nbt.tag.IntArrayTag;
 import it.unimi.dsi.fastutil.objects.Object2IntMap;
 import java.io.IOException;
+import java.util.List;
 
-public final class SpecialRecipes1_21_2 {
+public final class SpecialRecipes1_21_2 implements ExtraDataGenerator {
 
     private static final String[] SMITHING_ADDITION = {"diamond", "redstone", "emerald", "lapis_lazuli", "gold_ingot", "quartz", "netherite_ingot", "iron_ingot", "copper_ingot", "amethyst_shard"};
     private static final String[] SMITHING_TEMPLATE = {"raiser_armor_trim_smithing_template", "spire_armor_trim_smithing_template", "silence_armor_trim_smithing_template", "wild_armor_trim_smithing_template", "snout_armor_trim_smithing_template", "host_armor_trim_smithing_template", "wayfinder_armor_trim_smithing_template", "ward_armor_trim_smithing_template", "dune_armor_trim_smithing_template", "bolt_armor_trim_smithing_template", "netherite_upgrade_smithing_template", "flow_armor_trim_smithing_template", "vex_armor_trim_smithing_template", "tide_armor_trim_smithing_template", "eye_armor_trim_smithing_template", "rib_armor_trim_smithing_template", "coast_armor_trim_smithing_template", "sentry_armor_trim_smithing_template", "shaper_armor_trim_smithing_template"};
@@ -37,9 +35,33 @@ public final class SpecialRecipes1_21_2 {
     private static final String[] CAMPFIRE_INPUT = {"kelp", "rabbit", "potato", "cod", "salmon", "porkchop", "beef", "chicken", "mutton"};
 
     public static void main(final String[] args) throws IOException {
-        final JsonObject mappings = MappingsLoader.load("mapping-1.21.2.json");
+        ExtraDataPipeline.run(List.of(new SpecialRecipes1_21_2()), args);
+    }
+
+    @Override
+    public String name() {
+        return "recipe-inputs-1.21.2";
+    }
+
+    @Override
+    public String version() {
+        return "1.21.2";
+    }
+
+    @Override
+    public List<String> keys() {
+        return List.of("items");
+    }
+
+    @Override
+    public List<String> idKeys() {
+        return List.of("smithing_addition", "smithing_template", "furnace_input", "smithing_base", "smoker_input", "blast_furnace_input", "campfire_input");
+    }
+
+    @Override
+    public CompoundTag generate(final ExtraDataContext context) {
         final CompoundTag tag = new CompoundTag();
-        final Object2IntMap<String> items = MappingsLoader.arrayToMap(mappings.getAsJsonArray("items"));
+        final Object2IntMap<String> items = context.index(version(), "items");
         write(tag, items, SMITHING_ADDITION, "smithing_addition");
         write(tag, items, SMITHING_TEMPLATE, "smithing_template");
         write(tag, items, FURNACE_INPUT, "furnace_input");
@@ -47,7 +69,7 @@ public final class SpecialRecipes1_21_2 {
         write(tag, items, SMOKER_INPUT, "smoker_input");
         write(tag, items, BLAST_FURNACE_INPUT, "blast_furnace_input");
         write(tag, items, CAMPFIRE_INPUT, "campfire_input");
-        MappingsOptimizer.write(tag, MappingsOptimizer.OUTPUT_DIR.resolve("extra/recipe-inputs-1.21.2.nbt"));
+        return tag;
     }
 
     private static void write(final CompoundTag tag, final Object2IntMap<String> items, final String[] identifiers, final String key) {
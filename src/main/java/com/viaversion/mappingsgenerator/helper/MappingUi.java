@@ -9,7 +9,10 @@ import com.sun.net.httpserver.HttpServer;
 import com.viaversion.mappingsgenerator.ErrorStrategy;
 import com.viaversion.mappingsgenerator.ManualRunner;
 import com.viaversion.mappingsgenerator.MappingsLoader;
+import com.viaversion.mappingsgenerator.MemoryAccounting;
+import com.viaversion.mappingsgenerator.jfr.UiRequestEvent;
 import com.viaversion.mappingsgenerator.util.GsonUtil;
+import com.viaversion.mappingsgenerator.util.HeapEstimator;
 import com.viaversion.mappingsgenerator.util.Version;
 import java.io.BufferedReader;
 import java.io.IOException;
@@ -101,12 +104,15 @@ public final class MappingUi {
         server.createContext("/api/regenerate-nbt", safe(this::handleRegenerateNbt));
         server.createContext("/api/move-current-output", safe(this::handleMoveCurrentOutput));
         server.createContext("/api/move-identifiers", safe(this::handleMoveIdentifiers));
+        server.createContext("/api/memory", safe(this::handleMemory));
         server.start();
         System.out.println("UI running at: http://127.0.0.1:" + port + "/");
     }
 
     private static HttpHandler safe(final HttpHandler handler) {
         return exchange -> {
+            final UiRequestEvent event = new UiRequestEvent();
+            event.begin();
             try {
                 handler.handle(exchange);
             } catch (final Exception e) {
@@ -118,6 +124,13 @@ public final class MappingUi {
                     // Response was already partially sent
                 }
             }
+            event.end();
+            if (event.shouldCommit()) {
+                event.method = exchange.getRequestMethod();
+                event.path = exchange.getRequestURI().getPath();
+                event.status = exchange.getResponseCode();
+                event.commit();
+            }
         };
     }
 
@@ -155,6 +168,21 @@ public final class MappingUi {
         send(exchange, 200, "application/json", GsonUtil.GSON.toJson(response));
     }
 
+    private void handleMemory(final HttpExchange exchange) throws IOException {
+        if (!method(exchange, RequestMethod.GET)) {
+            return;
+        }
+
+        final MemoryAccounting memoryAccounting = new MemoryAccounting();
+        for (final Map.Entry<String, JsonObject> entry : mappingCache.entrySet()) {
+            memoryAccounting.recordJson(entry.getKey(), "mapping json", entry.getValue());
+        }
+        for (final Map.Entry<String, JsonArray> entry : blockStateCache.entrySet()) {
+            memoryAccounting.record(entry.getKey(), "block states", HeapEstimator.of(entry.getValue()));
+        }
+        send(exchange, 200, "application/json", GsonUtil.GSON.toJson(memoryAccounting.toJson()));
+    }
+
     private void handleState(final HttpExchange exchange) throws IOException {
         if (!method(exchange, RequestMethod.GET)) {
             return;
@@ -0,0 +1,44 @@
+/*
+ * This file is part of ViaVersion Mappings - https://github.com/ViaVersion/Mappings
+ * Copyright (C) 2023 Nassim Jahnke
+ * Copyright (C) 2023-2025 ViaVersion and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.viaversion.mappingsgenerator.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("com.viaversion.mappingsgenerator.DiffStubs")
+@Label("Diff Stubs")
+@Category({"ViaVersion", "Mappings"})
+@Description("Generation of diff stubs for missing mappings between two versions.")
+@StackTrace(false)
+public final class DiffStubsEvent extends Event {
+
+    @Label("From Version")
+    public String from;
+
+    @Label("To Version")
+    public String to;
+
+    @Label("Written")
+    @Description("Whether the diff file was changed")
+    public boolean written;
+}
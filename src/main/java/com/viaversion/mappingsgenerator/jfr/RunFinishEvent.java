@@ -0,0 +1,42 @@
+/*
+ * This file is part of ViaVersion Mappings - https://github.com/ViaVersion/Mappings
+ * Copyright (C) 2023 Nassim Jahnke
+ * Copyright (C) 2023-2025 ViaVersion and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.viaversion.mappingsgenerator.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("com.viaversion.mappingsgenerator.RunFinish")
+@Label("Run Finish")
+@Category({"ViaVersion", "Mappings"})
+@Description("Writing of the global identifier table, shared files and file hashes after a batch of optimizer runs.")
+@StackTrace(false)
+public final class RunFinishEvent extends Event {
+
+    @Label("Files")
+    @Description("Number of output files with recorded hashes")
+    public int files;
+
+    @Label("Registries")
+    @Description("Number of registries in the global identifier table")
+    public int registries;
+}
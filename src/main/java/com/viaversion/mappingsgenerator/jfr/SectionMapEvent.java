@@ -0,0 +1,55 @@
+/*
+ * This file is part of ViaVersion Mappings - https://github.com/ViaVersion/Mappings
+ * Copyright (C) 2023 Nassim Jahnke
+ * Copyright (C) 2023-2025 ViaVersion and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.viaversion.mappingsgenerator.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("com.viaversion.mappingsgenerator.SectionMap")
+@Label("Section Map")
+@Category({"ViaVersion", "Mappings"})
+@Description("Mapping of the identifiers of a registry between two versions.")
+@StackTrace(false)
+public final class SectionMapEvent extends Event {
+
+    @Label("From Version")
+    public String from;
+
+    @Label("To Version")
+    public String to;
+
+    @Label("Section")
+    public String section;
+
+    @Label("Size")
+    @Description("Number of unmapped identifiers")
+    public int size;
+
+    @Label("Mapped Size")
+    @Description("Number of mapped identifiers")
+    public int mappedSize;
+
+    @Label("Empty Mappings")
+    @Description("Number of identifiers without a mapping")
+    public int emptyMappings;
+}
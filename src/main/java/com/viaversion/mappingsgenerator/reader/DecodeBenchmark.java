@@ -0,0 +1,380 @@
+/*
+ * This file is part of ViaVersion Mappings - https://github.com/ViaVersion/Mappings
+ * Copyright (C) 2023 Nassim Jahnke
+ * Copyright (C) 2023-2025 ViaVersion and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.viaversion.mappingsgenerator.reader;
+
+import com.viaversion.mappingsgenerator.MappingsOptimizer;
+import com.viaversion.nbt.tag.ByteTag;
+import com.viaversion.nbt.tag.CompoundTag;
+import com.viaversion.nbt.tag.ListTag;
+import com.viaversion.nbt.tag.StringTag;
+import com.viaversion.nbt.tag.Tag;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.stream.Stream;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Measures how long consumers take to turn an output directory into lookup tables, decoding every section of every
+ * {@code .nbt} and compressed file with the {@link MappingsReader}. Files are read from memory, so only decompression, nbt parsing and
+ * decoding are measured, each as the best of several runs. The time to first lookup is the time to read a file and look
+ * up a single id in its first section through a {@link MappingsReader#view(CompoundTag) view}. Identifier delta sections
+ * are decoded against their already resolved base tables, while their time to first lookup includes reading and applying
+ * the whole delta chain, like a consumer loading only that version would have to.
+ * <p>
+ * Given two output directories, both are measured and the second one is compared against the first, so that
+ * format changes can be judged by their decode cost as well as by their size.
+ */
+public final class DecodeBenchmark {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(DecodeBenchmark.class.getSimpleName());
+    private static final int RUNS = 5;
+
+    public static void main(final String[] args) throws IOException {
+        if (args.length < 1 || args.length > 2) {
+            LOGGER.error("Required args: [old output dir] output dir");
+            System.exit(1);
+        }
+
+        final Path outputDir = Path.of(args[args.length - 1]);
+        if (args.length == 1) {
+            // Untimed pass to warm up the decoders
+            measure(outputDir);
+            measure(outputDir).print();
+            return;
+        }
+
+        final Path oldOutputDir = Path.of(args[0]);
+        measure(oldOutputDir);
+        measure(outputDir);
+        final Report oldReport = measure(oldOutputDir);
+        final Report report = measure(outputDir);
+        oldReport.print();
+        report.print();
+        report.compare(oldReport);
+    }
+
+    /**
+     * Reads and decodes all files of the given output directory.
+     *
+     * @param outputDir output directory, possibly with compressed files and a sections file
+     * @return decode report
+     */
+    public static Report measure(final Path outputDir) throws IOException {
+        final Report report = new Report(outputDir);
+        final Path dictionaryPath = outputDir.resolve(MappingsOptimizer.OUTPUT_DEFLATE_DICTIONARY_FILE);
+        final byte[] dictionary = Files.exists(dictionaryPath) ? Files.readAllBytes(dictionaryPath) : null;
+
+        // Shared by all files, so it is read once at startup instead of being part of every file's first lookup
+        final Path sectionsPath = existingPath(outputDir.resolve(MappingsOptimizer.OUTPUT_SECTIONS_FILE));
+        CompoundTag sections = null;
+        if (Files.exists(sectionsPath)) {
+            final byte[] bytes = Files.readAllBytes(sectionsPath);
+            for (int run = 0; run < RUNS; run++) {
+                final long start = System.nanoTime();
+                sections = read(sectionsPath, bytes, dictionary);
+                report.sectionsReadNanos = Math.min(report.sectionsReadNanos, System.nanoTime() - start);
+            }
+            report.bytes += bytes.length;
+        }
+
+        final Map<Path, byte[]> files = new TreeMap<>();
+        try (final Stream<Path> stream = Files.walk(outputDir)) {
+            for (final Path path : stream.filter(path -> isOutputFile(path) && !path.equals(sectionsPath)).toList()) {
+                files.put(path, Files.readAllBytes(path));
+            }
+        }
+
+        // Identifier files of non-special versions, which may be written as deltas
+        final IdentifierFileLoader identifierFiles = version -> {
+            final Path path = existingPath(outputDir.resolve(MappingsOptimizer.OUTPUT_IDENTIFIERS_FILE_FORMAT.formatted(version)));
+            final byte[] bytes = files.get(path);
+            if (bytes == null) {
+                throw new IOException("Missing identifier file of version " + version);
+            }
+            return read(path, bytes, dictionary);
+        };
+        final BaseTables baseTables = new BaseTables(identifierFiles, sections);
+        for (final Map.Entry<Path, byte[]> entry : files.entrySet()) {
+            measureFile(entry.getKey(), entry.getValue(), dictionary, sections, identifierFiles, baseTables, report);
+        }
+        return report;
+    }
+
+    private static void measureFile(
+        final Path path,
+        final byte[] bytes,
+        final byte @Nullable [] dictionary,
+        @Nullable final CompoundTag sections,
+        final IdentifierFileLoader identifierFiles,
+        final BaseTables baseTables,
+        final Report report
+    ) throws IOException {
+        CompoundTag file = null;
+        long readNanos = Long.MAX_VALUE;
+        long firstLookupNanos = Long.MAX_VALUE;
+        for (int run = 0; run < RUNS; run++) {
+            final long start = System.nanoTime();
+            file = read(path, bytes, dictionary);
+            readNanos = Math.min(readNanos, System.nanoTime() - start);
+
+            if (file.contains("chain")) {
+                // Identifier deltas can only be looked up once their chain is read and applied
+                final Map<String, int[]> tables = MappingsReader.identifierTables(file, identifierFiles, sections);
+                report.checksum += tables.size();
+                firstLookupNanos = Math.min(firstLookupNanos, System.nanoTime() - start);
+                continue;
+            }
+
+            final CompoundTag firstSection = firstSection(file, sections);
+            if (firstSection != null) {
+                report.checksum += MappingsReader.view(firstSection).get(0);
+                firstLookupNanos = Math.min(firstLookupNanos, System.nanoTime() - start);
+            }
+        }
+
+        report.files++;
+        report.bytes += bytes.length;
+        report.readNanos += readNanos;
+        if (firstLookupNanos != Long.MAX_VALUE) {
+            report.lookupFiles++;
+            report.firstLookupNanos += firstLookupNanos;
+            report.maxFirstLookupNanos = Math.max(report.maxFirstLookupNanos, firstLookupNanos);
+        }
+
+        final ListTag<StringTag> chain = file.getListTag("chain", StringTag.class);
+        final Map<String, int[]> fileBaseTables = chain != null ? baseTables.get(chain.get(chain.size() - 1).getValue()) : Map.of();
+        for (final Map.Entry<String, Tag> entry : file.entrySet()) {
+            final CompoundTag section = MappingsReader.section(file, entry.getKey(), sections);
+            if (section == null || !(section.get("id") instanceof ByteTag)) {
+                continue;
+            }
+
+            final byte strategy = section.getByte("id");
+            final int[] baseTable = fileBaseTables.get(entry.getKey());
+            if (strategy == MappingsOptimizer.DELTA_ID && baseTable == null) {
+                throw new IllegalArgumentException("Missing base table for identifier delta " + entry.getKey());
+            }
+
+            final boolean sparse = MappingsReader.isSparse(section);
+            long decodeNanos = Long.MAX_VALUE;
+            for (int run = 0; run < RUNS; run++) {
+                final long start = System.nanoTime();
+                if (sparse) {
+                    report.checksum += MappingsReader.decodeSparse(section).size();
+                } else {
+                    final int[] mappings = strategy == MappingsOptimizer.DELTA_ID ? MappingsReader.decodeDelta(baseTable, section) : MappingsReader.decode(section);
+                    report.checksum += mappings.length;
+                }
+                decodeNanos = Math.min(decodeNanos, System.nanoTime() - start);
+            }
+
+            final int size = section.getInt("size");
+            final int packedBytes = strategy == MappingsOptimizer.DELTA_ID
+                ? section.getByteArrayTag("rem").getValue().length + section.getByteArrayTag("ins").getValue().length
+                : section.contains("val") ? MappingsReader.values(section).length : 0;
+            final String strategyName = MappingsOptimizer.strategyName(strategy);
+            report.strategies.computeIfAbsent(strategyName, k -> new Stats()).add(size, packedBytes, decodeNanos);
+            report.sections.computeIfAbsent(entry.getKey(), k -> new Stats()).add(size, packedBytes, decodeNanos);
+        }
+    }
+
+    private static CompoundTag read(final Path path, final byte[] bytes, final byte @Nullable [] dictionary) throws IOException {
+        if (!isCompressed(path)) {
+            return MappingsReader.readFile(bytes, null);
+        }
+        if (dictionary == null) {
+            throw new IOException("Missing " + MappingsOptimizer.OUTPUT_DEFLATE_DICTIONARY_FILE + " for compressed file " + path);
+        }
+        return MappingsReader.readFile(bytes, dictionary);
+    }
+
+    private static boolean isOutputFile(final Path path) {
+        return path.getFileName().toString().endsWith(".nbt") || isCompressed(path);
+    }
+
+    private static boolean isCompressed(final Path path) {
+        return path.getFileName().toString().endsWith(MappingsOptimizer.COMPRESSED_FILE_EXTENSION);
+    }
+
+    /**
+     * Returns the compressed variant of an output file path if only that one exists.
+     */
+    private static Path existingPath(final Path path) {
+        final Path compressedPath = MappingsOptimizer.compressedPath(path);
+        return !Files.exists(path) && Files.exists(compressedPath) ? compressedPath : path;
+    }
+
+    private static @Nullable CompoundTag firstSection(final CompoundTag file, @Nullable final CompoundTag sections) {
+        for (final Map.Entry<String, Tag> entry : file.entrySet()) {
+            final CompoundTag section = MappingsReader.section(file, entry.getKey(), sections);
+            if (section != null && section.get("id") instanceof ByteTag && section.getInt("size") > 0) {
+                return section;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Resolved identifier tables of the base versions of identifier deltas, so that every delta section is only timed
+     * on its own, the same as applying it to the previously loaded version.
+     */
+    private static final class BaseTables {
+
+        private final Map<String, Map<String, int[]>> tables = new HashMap<>();
+        private final IdentifierFileLoader identifierFiles;
+        private final CompoundTag sections;
+
+        private BaseTables(final IdentifierFileLoader identifierFiles, @Nullable final CompoundTag sections) {
+            this.identifierFiles = identifierFiles;
+            this.sections = sections;
+        }
+
+        private Map<String, int[]> get(final String version) throws IOException {
+            Map<String, int[]> versionTables = tables.get(version);
+            if (versionTables == null) {
+                versionTables = MappingsReader.identifierTables(identifierFiles.load(version), identifierFiles, sections);
+                tables.put(version, versionTables);
+            }
+            return versionTables;
+        }
+    }
+
+    /**
+     * Decode measurements of a single output directory.
+     */
+    public static final class Report {
+
+        private final Path outputDir;
+        private final Map<String, Stats> strategies = new TreeMap<>();
+        private final Map<String, Stats> sections = new TreeMap<>();
+        private int files;
+        private int lookupFiles;
+        private long bytes;
+        private long readNanos;
+        private long sectionsReadNanos = Long.MAX_VALUE;
+        private long firstLookupNanos;
+        private long maxFirstLookupNanos;
+        private long checksum;
+
+        private Report(final Path outputDir) {
+            this.outputDir = outputDir;
+        }
+
+        /**
+         * Returns the total time to read all files and decode all of their sections, including the sections file.
+         *
+         * @return startup time in nanoseconds
+         */
+        public long startupNanos() {
+            long nanos = readNanos + (sectionsReadNanos != Long.MAX_VALUE ? sectionsReadNanos : 0);
+            for (final Stats stats : strategies.values()) {
+                nanos += stats.nanos;
+            }
+            return nanos;
+        }
+
+        public long bytes() {
+            return bytes;
+        }
+
+        public void print() {
+            LOGGER.info("{}: {} files ({}kb) read in {}, all sections decoded after {}", outputDir, files, bytes / 1024,
+                millis(readNanos), millis(startupNanos()));
+            if (sectionsReadNanos != Long.MAX_VALUE) {
+                LOGGER.info("Sections file read in {}", millis(sectionsReadNanos));
+            }
+            if (lookupFiles != 0) {
+                LOGGER.info("Time to first lookup: {}µs on average, {}µs at most", firstLookupNanos / lookupFiles / 1000, maxFirstLookupNanos / 1000);
+            }
+            for (final Map.Entry<String, Stats> entry : strategies.entrySet()) {
+                LOGGER.info("Strategy {}: {}", entry.getKey(), entry.getValue());
+            }
+            for (final Map.Entry<String, Stats> entry : sections.entrySet()) {
+                LOGGER.info("Section {}: {}", entry.getKey(), entry.getValue());
+            }
+        }
+
+        /**
+         * Prints the changes of this report compared to an older one.
+         *
+         * @param old report of the old output directory
+         */
+        public void compare(final Report old) {
+            LOGGER.info("{} compared to {}: size {}, read {}, startup {}", outputDir, old.outputDir,
+                change(old.bytes, bytes), change(old.readNanos, readNanos), change(old.startupNanos(), startupNanos()));
+            if (lookupFiles != 0 && old.lookupFiles != 0) {
+                LOGGER.info("Time to first lookup: average {}, max {}",
+                    change(old.firstLookupNanos / old.lookupFiles, firstLookupNanos / lookupFiles), change(old.maxFirstLookupNanos, maxFirstLookupNanos));
+            }
+            compare("Strategy", old.strategies, strategies);
+            compare("Section", old.sections, sections);
+        }
+
+        private static void compare(final String type, final Map<String, Stats> old, final Map<String, Stats> current) {
+            final TreeSet<String> keys = new TreeSet<>(old.keySet());
+            keys.addAll(current.keySet());
+            for (final String key : keys) {
+                final Stats oldStats = old.getOrDefault(key, new Stats());
+                final Stats stats = current.getOrDefault(key, new Stats());
+                LOGGER.info("{} {}: sections {} → {}, packed size {}, decode time {}", type, key, oldStats.count, stats.count,
+                    change(oldStats.bytes, stats.bytes), change(oldStats.nanos, stats.nanos));
+            }
+        }
+
+        private static String change(final long old, final long current) {
+            if (old == 0) {
+                return current == 0 ? "unchanged" : "new";
+            }
+            return String.format("%+.1f%%", (current - old) * 100D / old);
+        }
+    }
+
+    private static final class Stats {
+
+        private int count;
+        private long ids;
+        private long bytes;
+        private long nanos;
+
+        private void add(final int ids, final int bytes, final long nanos) {
+            this.count++;
+            this.ids += ids;
+            this.bytes += bytes;
+            this.nanos += nanos;
+        }
+
+        @Override
+        public String toString() {
+            final double seconds = Math.max(nanos, 1) / 1_000_000_000D;
+            return String.format("%d sections, %d ids, %dkb packed, decoded in %s (%.1fM ids/s, %.1fMB/s)",
+                count, ids, bytes / 1024, millis(nanos), ids / seconds / 1_000_000, bytes / seconds / 1024 / 1024);
+        }
+    }
+
+    private static String millis(final long nanos) {
+        return String.format("%.2fms", nanos / 1_000_000D);
+    }
+}
@@ -0,0 +1,38 @@
+/*
+ * This file is part of ViaVersion Mappings - https://github.com/ViaVersion/Mappings
+ * Copyright (C) 2023 Nassim Jahnke
+ * Copyright (C) 2023-2025 ViaVersion and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.viaversion.mappingsgenerator.reader;
+
+import com.viaversion.nbt.tag.CompoundTag;
+import java.io.IOException;
+
+/**
+ * Loads the identifier files of other versions, see {@link MappingsReader#identifierTables(CompoundTag, IdentifierFileLoader, CompoundTag)}.
+ */
+@FunctionalInterface
+public interface IdentifierFileLoader {
+
+    /**
+     * Loads the identifier file of the given version.
+     *
+     * @param version version of the identifier file
+     * @return identifier file tag
+     * @throws IOException if the file cannot be read
+     */
+    CompoundTag load(String version) throws IOException;
+}
@@ -0,0 +1,680 @@
+/*
+ * This file is part of ViaVersion Mappings - https://github.com/ViaVersion/Mappings
+ * Copyright (C) 2023 Nassim Jahnke
+ * Copyright (C) 2023-2025 ViaVersion and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.viaversion.mappingsgenerator.reader;
+
+import com.viaversion.mappingsgenerator.MappingsOptimizer;
+import com.viaversion.mappingsgenerator.OutputBundle;
+import com.viaversion.mappingsgenerator.util.DeflateDictionary;
+import com.viaversion.mappingsgenerator.util.FrontCodedStrings;
+import com.viaversion.mappingsgenerator.util.PerfectHash;
+import com.viaversion.mappingsgenerator.util.VarInts;
+import com.viaversion.nbt.io.NBTIO;
+import com.viaversion.nbt.tag.ByteArrayTag;
+import com.viaversion.nbt.tag.ByteTag;
+import com.viaversion.nbt.tag.CompoundTag;
+import com.viaversion.nbt.tag.ListTag;
+import com.viaversion.nbt.tag.StringTag;
+import com.viaversion.nbt.tag.Tag;
+import it.unimi.dsi.fastutil.ints.Int2IntMap;
+import it.unimi.dsi.fastutil.ints.Int2IntOpenHashMap;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.DataFormatException;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Reads the packed sections written by {@link MappingsOptimizer}, either expanded into full mappings arrays,
+ * as lazily decoded views, or streamed to a visitor without any intermediate arrays. Also resolves identifier deltas,
+ * and reads the front coded global identifier table, perfect hash functions and inverse mappings.
+ * Mirrors ViaVersion's MappingDataLoader and has to be kept in sync with the optimizer's encoders.
+ */
+public final class MappingsReader {
+
+    /**
+     * Reads an output file, decompressing it first if a dictionary is given.
+     *
+     * @param bytes      file contents
+     * @param dictionary preset dictionary the file was compressed with, or null if not compressed
+     * @return file tag
+     */
+    public static CompoundTag readFile(final byte[] bytes, final byte @Nullable [] dictionary) throws IOException {
+        byte[] data = bytes;
+        if (dictionary != null) {
+            try {
+                data = DeflateDictionary.decompress(bytes, dictionary);
+            } catch (final DataFormatException e) {
+                throw new IOException("Invalid compressed data", e);
+            }
+        }
+        return NBTIO.reader(CompoundTag.class).named().read(new ByteArrayInputStream(data));
+    }
+
+    /**
+     * Reads an output file from a bundle, copying the packed values of its sections back into them.
+     *
+     * @param bundle output bundle
+     * @param name   relative path of the file
+     * @return file tag, or null if not part of the bundle
+     */
+    public static @Nullable CompoundTag readFile(final OutputBundle bundle, final String name) throws IOException {
+        final ByteBuffer file = bundle.file(name);
+        if (file == null) {
+            return null;
+        }
+
+        final CompoundTag tag = readFile(bytes(file), null);
+        for (final Map.Entry<String, Tag> entry : tag.entrySet()) {
+            if (!(entry.getValue() instanceof final CompoundTag section) || !(section.get("id") instanceof ByteTag)) {
+                continue;
+            }
+
+            final ByteBuffer values = bundle.values(name, entry.getKey());
+            if (values != null) {
+                section.put("val", new ByteArrayTag(bytes(values)));
+            }
+        }
+        return tag;
+    }
+
+    private static byte[] bytes(final ByteBuffer buffer) {
+        final byte[] bytes = new byte[buffer.remaining()];
+        buffer.get(bytes);
+        return bytes;
+    }
+
+    /**
+     * Returns a section of an output file, resolving references to deduplicated sections.
+     *
+     * @param file     output file tag
+     * @param key      section key
+     * @param sections contents of the sections file, or null if sections are not deduplicated
+     * @return section, or null if not present
+     */
+    public static @Nullable CompoundTag section(final CompoundTag file, final String key, @Nullable final CompoundTag sections) {
+        final Tag tag = file.get(key);
+        if (tag instanceof final StringTag hash) {
+            if (sections == null) {
+                throw new IllegalArgumentException("Section " + key + " is deduplicated, but no sections were given");
+            }
+            return sections.getCompoundTag(hash.getValue());
+        }
+        return tag instanceof final CompoundTag section ? section : null;
+    }
+
+    /**
+     * Resolves the identifier to global id tables of an identifier file, applying the identifier files of its delta chain
+     * starting from the keyframe if it was written with identifier deltas.
+     *
+     * @param file     identifier file tag
+     * @param files    loader for the identifier files of the versions in the delta chain
+     * @param sections contents of the sections file, or null if sections are not deduplicated
+     * @return identifier to global id table of every registry
+     */
+    public static Map<String, int[]> identifierTables(
+        final CompoundTag file,
+        final IdentifierFileLoader files,
+        @Nullable final CompoundTag sections
+    ) throws IOException {
+        Map<String, int[]> tables = Map.of();
+        final ListTag<StringTag> chain = file.getListTag("chain", StringTag.class);
+        if (chain != null) {
+            for (final StringTag version : chain) {
+                tables = applyIdentifierFile(tables, files.load(version.getValue()), sections);
+            }
+        }
+        return applyIdentifierFile(tables, file, sections);
+    }
+
+    private static Map<String, int[]> applyIdentifierFile(final Map<String, int[]> baseTables, final CompoundTag file, @Nullable final CompoundTag sections) {
+        final Map<String, int[]> tables = new HashMap<>();
+        for (final String key : file.keySet()) {
+            final CompoundTag section = section(file, key, sections);
+            if (section == null || !(section.get("id") instanceof ByteTag)) {
+                continue;
+            }
+
+            if (section.getByte("id") != MappingsOptimizer.DELTA_ID) {
+                tables.put(key, decode(section));
+                continue;
+            }
+
+            final int[] baseTable = baseTables.get(key);
+            if (baseTable == null) {
+                throw new IllegalArgumentException("Missing base table for identifier delta " + key);
+            }
+            tables.put(key, decodeDelta(baseTable, section));
+        }
+        return tables;
+    }
+
+    /**
+     * Reads the global identifier table, written either as string lists or as front coded strings per registry.
+     *
+     * @param file identifier table file tag
+     * @return identifiers of every registry, indexed by global id
+     */
+    public static Map<String, List<String>> globalIdentifiers(final CompoundTag file) {
+        final Map<String, List<String>> globalIdentifiers = new HashMap<>();
+        for (final Map.Entry<String, Tag> entry : file.entrySet()) {
+            final List<String> identifiers = new ArrayList<>();
+            if (entry.getValue() instanceof final CompoundTag frontCodedTag) {
+                final FrontCodedStrings frontCoded = FrontCodedStrings.read(frontCodedTag);
+                for (int id = 0; id < frontCoded.size(); id++) {
+                    identifiers.add(frontCoded.string(id));
+                }
+            } else if (entry.getValue() instanceof final ListTag<?> list) {
+                for (final Tag identifier : list) {
+                    identifiers.add(((StringTag) identifier).getValue());
+                }
+            } else {
+                continue;
+            }
+            globalIdentifiers.put(entry.getKey(), identifiers);
+        }
+        return globalIdentifiers;
+    }
+
+    /**
+     * Returns the perfect hash function of a registry from an identifier file.
+     *
+     * @param file identifier file tag
+     * @param key  registry key
+     * @return perfect hash function, or null if the file has none for the registry
+     */
+    public static @Nullable PerfectHash perfectHash(final CompoundTag file, final String key) {
+        final CompoundTag perfectHashes = file.getCompoundTag("mph");
+        final CompoundTag perfectHash = perfectHashes != null ? perfectHashes.getCompoundTag(key) : null;
+        return perfectHash != null ? PerfectHash.read(perfectHash) : null;
+    }
+
+    /**
+     * Returns the id of an identifier in a version through the perfect hash function of the version's registry.
+     *
+     * @param perfectHash       perfect hash function of the registry
+     * @param identifier        identifier to look up
+     * @param table             identifier to global id table of the registry
+     * @param globalIdentifiers global identifiers of the registry
+     * @return id of the identifier, or -1 if not present
+     * @see #identifierTables(CompoundTag, IdentifierFileLoader, CompoundTag)
+     */
+    public static int identifierId(final PerfectHash perfectHash, final String identifier, final int[] table, final List<String> globalIdentifiers) {
+        final int candidate = perfectHash.candidate(identifier);
+        if (candidate == -1 || table[candidate] == -1) {
+            return -1;
+        }
+        return identifier.equals(globalIdentifiers.get(table[candidate])) ? candidate : -1;
+    }
+
+    /**
+     * Expands a section into its full mappings array.
+     *
+     * @param section packed section
+     * @return mappings, with -1 for unmapped ids
+     */
+    public static int[] decode(final CompoundTag section) {
+        final int size = section.getInt("size");
+        final byte strategy = section.getByte("id");
+        return switch (strategy) {
+            case MappingsOptimizer.IDENTITY_ID -> decodeIdentity(size);
+            case MappingsOptimizer.DIRECT_ID -> decodeDirect(values(section), size);
+            case MappingsOptimizer.SHIFTS_ID -> decodeShifts(values(section), size);
+            case MappingsOptimizer.CHANGES_ID -> {
+                if (isSparse(section)) {
+                    throw sparseSection();
+                }
+                yield decodeChanges(values(section), size, !section.contains("nofill"));
+            }
+            case MappingsOptimizer.DELTA_ID -> throw deltaSection();
+            default -> throw new IllegalArgumentException("Unknown storage strategy " + strategy);
+        };
+    }
+
+    /**
+     * Returns a view of a section that decodes it on first access, or with checkpoints, decodes only the pairs needed for every lookup.
+     *
+     * @param section packed section
+     * @return mappings view
+     */
+    public static MappingsView view(final CompoundTag section) {
+        final int size = section.getInt("size");
+        final int mappedSize = section.getInt("mappedSize", -1);
+        final byte strategy = section.getByte("id");
+        if (strategy == MappingsOptimizer.IDENTITY_ID) {
+            return new IdentityView(size, mappedSize);
+        }
+        if (strategy == MappingsOptimizer.DELTA_ID) {
+            throw deltaSection();
+        }
+        if (isSparse(section)) {
+            return new SparseView(decodeSparse(section), size, mappedSize);
+        }
+        if (hasCheckpoints(section)) {
+            return checkpointView(section, ByteBuffer.wrap(values(section)));
+        }
+        return new LazyView(section, size, mappedSize);
+    }
+
+    /**
+     * Returns whether the section holds changed values with ids beyond its size. These are only written for pre 1.13
+     * mappings keyed by sparse legacy ids, whose size only counts the mapped entries, and have to be read as a map.
+     *
+     * @param section packed section
+     * @return whether the section has to be read with {@link #decodeSparse(CompoundTag)}
+     */
+    public static boolean isSparse(final CompoundTag section) {
+        if (section.getByte("id") != MappingsOptimizer.CHANGES_ID || !section.contains("nofill")) {
+            return false;
+        }
+
+        final ByteBuffer buf = ByteBuffer.wrap(values(section));
+        int at = -1;
+        while (buf.hasRemaining()) {
+            at += VarInts.read(buf) + 1;
+            VarInts.readZigZag(buf);
+        }
+        return at >= section.getInt("size");
+    }
+
+    /**
+     * Decodes changed id and mapped id pairs into a map, for sections with sparse ids.
+     *
+     * @param section packed changed values section
+     * @return mapped id of every changed id, returning -1 for all other ids
+     */
+    public static Int2IntMap decodeSparse(final CompoundTag section) {
+        if (section.getByte("id") != MappingsOptimizer.CHANGES_ID) {
+            throw new IllegalArgumentException("Only changed values can be read as a map, got storage strategy " + section.getByte("id"));
+        }
+
+        final ByteBuffer buf = ByteBuffer.wrap(values(section));
+        final Int2IntMap mappings = new Int2IntOpenHashMap(section.getInt("size"));
+        mappings.defaultReturnValue(-1);
+        int at = -1;
+        int value = 0;
+        while (buf.hasRemaining()) {
+            at += VarInts.read(buf) + 1;
+            value += VarInts.readZigZag(buf);
+            mappings.put(at, value);
+        }
+        return mappings;
+    }
+
+    /**
+     * Returns whether the section is stored as pairs with a checkpoint table, allowing single lookups without decoding all pairs.
+     */
+    static boolean hasCheckpoints(final CompoundTag section) {
+        final byte strategy = section.getByte("id");
+        return (strategy == MappingsOptimizer.SHIFTS_ID || strategy == MappingsOptimizer.CHANGES_ID) && section.contains("chk");
+    }
+
+    /**
+     * Returns a view looking up single ids from the closest checkpoint, reading the packed pairs from the given buffer.
+     */
+    static MappingsView checkpointView(final CompoundTag section, final ByteBuffer values) {
+        return new CheckpointView(
+            values,
+            section.getIntArrayTag("chk").getValue(),
+            section.getByte("id") == MappingsOptimizer.SHIFTS_ID,
+            !section.contains("nofill"),
+            section.getInt("size"),
+            section.getInt("mappedSize", -1)
+        );
+    }
+
+    /**
+     * Decodes a section id by id in ascending order, without creating a mappings array.
+     *
+     * @param section packed section
+     * @param visitor visitor receiving every id and its mapped id
+     */
+    public static void accept(final CompoundTag section, final MappingsVisitor visitor) {
+        final int size = section.getInt("size");
+        final byte strategy = section.getByte("id");
+        if (strategy == MappingsOptimizer.IDENTITY_ID) {
+            for (int id = 0; id < size; id++) {
+                visitor.visit(id, id);
+            }
+            return;
+        }
+
+        if (strategy == MappingsOptimizer.DELTA_ID) {
+            throw deltaSection();
+        }
+        if (isSparse(section)) {
+            throw sparseSection();
+        }
+
+        final ByteBuffer buf = ByteBuffer.wrap(values(section));
+        if (strategy == MappingsOptimizer.DIRECT_ID) {
+            int mappedId = 0;
+            for (int id = 0; id < size; id++) {
+                mappedId += VarInts.readZigZag(buf);
+                visitor.visit(id, mappedId);
+            }
+            return;
+        }
+
+        final boolean shifts = strategy == MappingsOptimizer.SHIFTS_ID;
+        if (!shifts && strategy != MappingsOptimizer.CHANGES_ID) {
+            throw new IllegalArgumentException("Unknown storage strategy " + strategy);
+        }
+
+        final boolean fill = !section.contains("nofill");
+        int id = 0;
+        int mappedId = 0;
+        int at = -1;
+        int value = 0;
+        while (buf.hasRemaining()) {
+            at += VarInts.read(buf) + 1;
+            value += VarInts.readZigZag(buf);
+            for (; id < at; id++) {
+                // Continue the previous sequence or fill the gap between changes
+                visitor.visit(id, shifts ? mappedId++ : fill ? id : -1);
+            }
+            if (shifts) {
+                mappedId = value;
+            } else {
+                visitor.visit(id++, value);
+            }
+        }
+        for (; id < size; id++) {
+            visitor.visit(id, shifts ? mappedId++ : fill ? id : -1);
+        }
+    }
+
+    /**
+     * Returns mappings of every id to itself.
+     *
+     * @param size number of ids
+     * @return identity mappings
+     */
+    public static int[] decodeIdentity(final int size) {
+        final int[] mappings = new int[size];
+        for (int id = 0; id < size; id++) {
+            mappings[id] = id;
+        }
+        return mappings;
+    }
+
+    /**
+     * Decodes mapped ids packed as zigzag varints of the difference to the previous mapped id.
+     *
+     * @param values packed values
+     * @param size   number of ids
+     * @return mappings
+     */
+    public static int[] decodeDirect(final byte[] values, final int size) {
+        final ByteBuffer buf = ByteBuffer.wrap(values);
+        final int[] mappings = new int[size];
+        int prev = 0;
+        for (int i = 0; i < size; i++) {
+            prev += VarInts.readZigZag(buf);
+            mappings[i] = prev;
+        }
+        return mappings;
+    }
+
+    /**
+     * Decodes changed id and mapped id pairs.
+     *
+     * @param values packed pairs
+     * @param size   number of ids
+     * @param fill   whether ids without a pair are mapped to themselves instead of -1
+     * @return mappings
+     */
+    public static int[] decodeChanges(final byte[] values, final int size, final boolean fill) {
+        final ByteBuffer buf = ByteBuffer.wrap(values);
+        final int[] mappings;
+        if (fill) {
+            mappings = decodeIdentity(size);
+        } else {
+            mappings = new int[size];
+            Arrays.fill(mappings, -1);
+        }
+
+        int at = -1;
+        int value = 0;
+        while (buf.hasRemaining()) {
+            at += VarInts.read(buf) + 1;
+            value += VarInts.readZigZag(buf);
+            mappings[at] = value;
+        }
+        return mappings;
+    }
+
+    /**
+     * Decodes shift pairs, each starting a new sequence of consecutive mapped ids.
+     *
+     * @param values packed pairs
+     * @param size   number of ids
+     * @return mappings
+     */
+    public static int[] decodeShifts(final byte[] values, final int size) {
+        final ByteBuffer buf = ByteBuffer.wrap(values);
+        final int[] mappings = new int[size];
+        int id = 0;
+        int mappedId = 0;
+        int at = -1;
+        int value = 0;
+        while (buf.hasRemaining()) {
+            at += VarInts.read(buf) + 1;
+            value += VarInts.readZigZag(buf);
+            // Continue the previous sequence up to the next shift
+            for (; id < at; id++) {
+                mappings[id] = mappedId++;
+            }
+            mappedId = value;
+        }
+        for (; id < size; id++) {
+            mappings[id] = mappedId++;
+        }
+        return mappings;
+    }
+
+    /**
+     * Decodes the inverse mappings of a section, stored as a packed section if the mappings are injective,
+     * or as a table of the unmapped ids of every mapped id otherwise.
+     *
+     * @param section packed section
+     * @return ascending unmapped ids of every mapped id, or null if the section has no inverse mappings
+     */
+    public static int @Nullable [][] decodeInverse(final CompoundTag section) {
+        final CompoundTag inverse = section.getCompoundTag("inv");
+        if (inverse == null) {
+            return null;
+        }
+
+        final int[][] ids = new int[inverse.getInt("size")][];
+        if (inverse.get("id") instanceof ByteTag) {
+            final int[] mappings = decode(inverse);
+            for (int mappedId = 0; mappedId < ids.length; mappedId++) {
+                ids[mappedId] = mappings[mappedId] != -1 ? new int[]{mappings[mappedId]} : new int[0];
+            }
+            return ids;
+        }
+
+        final int[] offsets = decodeDirect(inverse.getByteArrayTag("off").getValue(), ids.length + 1);
+        final int[] values = decodeDirect(inverse.getByteArrayTag("val").getValue(), offsets[ids.length]);
+        for (int mappedId = 0; mappedId < ids.length; mappedId++) {
+            ids[mappedId] = Arrays.copyOfRange(values, offsets[mappedId], offsets[mappedId + 1]);
+        }
+        return ids;
+    }
+
+    /**
+     * Reconstructs a full identifier table from its base table and an identifier delta section.
+     *
+     * @param base  identifier to global id table of the base version
+     * @param delta identifier delta section
+     * @return identifier to global id table
+     */
+    public static int[] decodeDelta(final int[] base, final CompoundTag delta) {
+        final int[] table = new int[delta.getInt("size")];
+        final ByteBuffer removed = ByteBuffer.wrap(delta.getByteArrayTag("rem").getValue());
+        final ByteBuffer inserted = ByteBuffer.wrap(delta.getByteArrayTag("ins").getValue());
+
+        int nextRemoved = removed.hasRemaining() ? VarInts.read(removed) : -1;
+        int nextInsertedAt = -1;
+        int insertedValue = 0;
+        if (inserted.hasRemaining()) {
+            nextInsertedAt = VarInts.read(inserted);
+            insertedValue = VarInts.readZigZag(inserted);
+        }
+
+        int basePosition = 0;
+        for (int i = 0; i < table.length; i++) {
+            if (i == nextInsertedAt) {
+                table[i] = insertedValue;
+                if (inserted.hasRemaining()) {
+                    nextInsertedAt += VarInts.read(inserted) + 1;
+                    insertedValue += VarInts.readZigZag(inserted);
+                }
+                continue;
+            }
+
+            // Skip removed entries of the base table
+            while (basePosition == nextRemoved) {
+                basePosition++;
+                nextRemoved = removed.hasRemaining() ? nextRemoved + VarInts.read(removed) + 1 : -1;
+            }
+            table[i] = base[basePosition++];
+        }
+        return table;
+    }
+
+    private static IllegalArgumentException sparseSection() {
+        return new IllegalArgumentException("Sections with sparse ids can only be read as a map, see decodeSparse");
+    }
+
+    private static IllegalArgumentException deltaSection() {
+        return new IllegalArgumentException("Identifier delta sections can only be decoded against their base table, see identifierTables");
+    }
+
+    static byte[] values(final CompoundTag section) {
+        return section.getByteArrayTag("val").getValue();
+    }
+
+    private record IdentityView(int size, int mappedSize) implements MappingsView {
+
+        @Override
+        public int get(final int id) {
+            return id >= 0 && id < size ? id : -1;
+        }
+    }
+
+    private record SparseView(Int2IntMap mappings, int size, int mappedSize) implements MappingsView {
+
+        @Override
+        public int get(final int id) {
+            return mappings.get(id);
+        }
+    }
+
+    private static final class LazyView implements MappingsView {
+
+        private final CompoundTag section;
+        private final int size;
+        private final int mappedSize;
+        private int[] mappings;
+
+        private LazyView(final CompoundTag section, final int size, final int mappedSize) {
+            this.section = section;
+            this.size = size;
+            this.mappedSize = mappedSize;
+        }
+
+        @Override
+        public int get(final int id) {
+            if (id < 0 || id >= size) {
+                return -1;
+            }
+            if (mappings == null) {
+                mappings = decode(section);
+            }
+            return mappings[id];
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public int mappedSize() {
+            return mappedSize;
+        }
+    }
+
+    /**
+     * Looks up single ids by starting to decode at the closest checkpoint, reading at most one checkpoint interval of pairs.
+     */
+    private record CheckpointView(ByteBuffer buf, int[] checkpoints, boolean shifts, boolean fill, int size, int mappedSize) implements MappingsView {
+
+        @Override
+        public int get(final int id) {
+            if (id < 0 || id >= size) {
+                return -1;
+            }
+
+            // Find the last checkpoint whose previous pair is not after the id
+            int low = 0;
+            int high = checkpoints.length / 3 - 1;
+            int checkpoint = -1;
+            while (low <= high) {
+                final int mid = (low + high) >>> 1;
+                if (checkpoints[mid * 3 + 1] <= id) {
+                    checkpoint = mid;
+                    low = mid + 1;
+                } else {
+                    high = mid - 1;
+                }
+            }
+
+            int at = -1;
+            int value = 0;
+            buf.position(0);
+            if (checkpoint != -1) {
+                buf.position(checkpoints[checkpoint * 3]);
+                at = checkpoints[checkpoint * 3 + 1];
+                value = checkpoints[checkpoint * 3 + 2];
+            }
+
+            // Move to the last pair not after the id
+            while (buf.hasRemaining()) {
+                final int nextAt = at + VarInts.read(buf) + 1;
+                if (nextAt > id) {
+                    break;
+                }
+                at = nextAt;
+                value += VarInts.readZigZag(buf);
+            }
+
+            if (shifts) {
+                return at == -1 ? id : value + (id - at);
+            }
+            return at == id ? value : fill ? id : -1;
+        }
+    }
+}
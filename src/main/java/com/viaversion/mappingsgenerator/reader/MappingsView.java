@@ -0,0 +1,47 @@
+/*
+ * This file is part of ViaVersion Mappings - https://github.com/ViaVersion/Mappings
+ * Copyright (C) 2023 Nassim Jahnke
+ * Copyright (C) 2023-2025 ViaVersion and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.viaversion.mappingsgenerator.reader;
+
+/**
+ * Read access to the mappings of a single section, decoded on demand. Views are not thread-safe.
+ */
+public interface MappingsView {
+
+    /**
+     * Returns the mapped id of the given id.
+     *
+     * @param id unmapped id
+     * @return mapped id, or -1 if unmapped or out of bounds
+     */
+    int get(int id);
+
+    /**
+     * Returns the number of unmapped ids.
+     *
+     * @return number of unmapped ids
+     */
+    int size();
+
+    /**
+     * Returns the number of mapped ids.
+     *
+     * @return number of mapped ids, or -1 if not known
+     */
+    int mappedSize();
+}
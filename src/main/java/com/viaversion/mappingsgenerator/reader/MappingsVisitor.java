@@ -0,0 +1,34 @@
+/*
+ * This file is part of ViaVersion Mappings - https://github.com/ViaVersion/Mappings
+ * Copyright (C) 2023 Nassim Jahnke
+ * Copyright (C) 2023-2025 ViaVersion and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.viaversion.mappingsgenerator.reader;
+
+/**
+ * Receives the mappings of a section one id at a time, see {@link MappingsReader#accept(com.viaversion.nbt.tag.CompoundTag, MappingsVisitor)}.
+ */
+@FunctionalInterface
+public interface MappingsVisitor {
+
+    /**
+     * Called for every unmapped id in ascending order.
+     *
+     * @param id       unmapped id
+     * @param mappedId mapped id, or -1 if unmapped
+     */
+    void visit(int id, int mappedId);
+}
@@ -0,0 +1,137 @@
+/*
+ * This file is part of ViaVersion Mappings - https://github.com/ViaVersion/Mappings
+ * Copyright (C) 2023 Nassim Jahnke
+ * Copyright (C) 2023-2025 ViaVersion and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.viaversion.mappingsgenerator.reader;
+
+import com.viaversion.mappingsgenerator.MappingsOptimizer;
+import com.viaversion.nbt.tag.CompoundTag;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+
+/**
+ * Keeps mapping tables outside of the Java heap, so that long-lived tables of all loaded files neither count towards
+ * the heap size nor have to be traced by the garbage collector.
+ * <p>
+ * Tables are sliced out of shared direct buffer chunks, only tables larger than a chunk get their own buffer.
+ * The memory is released once the arena and all views created by it are unreachable.
+ */
+public final class OffHeapArena {
+
+    public static final int DEFAULT_CHUNK_SIZE = 4 * 1024 * 1024;
+    private final int chunkSize;
+    private ByteBuffer chunk;
+    private long allocatedBytes;
+    private long usedBytes;
+
+    public OffHeapArena() {
+        this(DEFAULT_CHUNK_SIZE);
+    }
+
+    public OffHeapArena(final int chunkSize) {
+        if (chunkSize < Long.BYTES) {
+            throw new IllegalArgumentException("Chunk size too small: " + chunkSize);
+        }
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Decodes a section into an off-heap int table.
+     *
+     * @param section packed section
+     * @return view of the decoded table
+     */
+    public MappingsView decode(final CompoundTag section) {
+        if (section.getByte("id") == MappingsOptimizer.IDENTITY_ID || MappingsReader.isSparse(section)) {
+            // Nothing to store, or only a few entries spread over a large id range
+            return MappingsReader.view(section);
+        }
+
+        final IntBuffer table = allocate(section.getInt("size") * Integer.BYTES).asIntBuffer();
+        MappingsReader.accept(section, table::put);
+        return new TableView(table, section.getInt("mappedSize", -1));
+    }
+
+    /**
+     * Copies the packed values of a section into off-heap memory and looks ids up directly in them,
+     * decoding only from the closest checkpoint. Sections without checkpoints are decoded into a table instead.
+     *
+     * @param section packed section
+     * @return view of the packed values
+     */
+    public MappingsView map(final CompoundTag section) {
+        if (!MappingsReader.hasCheckpoints(section) || MappingsReader.isSparse(section)) {
+            return decode(section);
+        }
+
+        final byte[] values = MappingsReader.values(section);
+        final ByteBuffer buffer = allocate(values.length);
+        buffer.put(0, values);
+        return MappingsReader.checkpointView(section, buffer);
+    }
+
+    /**
+     * Returns the number of off-heap bytes reserved by this arena, including unused space at the end of chunks.
+     *
+     * @return reserved bytes
+     */
+    public synchronized long allocatedBytes() {
+        return allocatedBytes;
+    }
+
+    /**
+     * Returns the number of off-heap bytes taken by tables and packed values.
+     *
+     * @return used bytes
+     */
+    public synchronized long usedBytes() {
+        return usedBytes;
+    }
+
+    private synchronized ByteBuffer allocate(final int bytes) {
+        // Keep every slice 8 byte aligned
+        final int alignedBytes = (bytes + Long.BYTES - 1) & -Long.BYTES;
+        usedBytes += bytes;
+        if (alignedBytes > chunkSize) {
+            allocatedBytes += bytes;
+            return ByteBuffer.allocateDirect(bytes).order(ByteOrder.nativeOrder());
+        }
+
+        if (chunk == null || chunk.remaining() < alignedBytes) {
+            chunk = ByteBuffer.allocateDirect(chunkSize);
+            allocatedBytes += chunkSize;
+        }
+
+        final ByteBuffer slice = chunk.slice(chunk.position(), bytes).order(ByteOrder.nativeOrder());
+        chunk.position(chunk.position() + alignedBytes);
+        return slice;
+    }
+
+    private record TableView(IntBuffer table, int mappedSize) implements MappingsView {
+
+        @Override
+        public int get(final int id) {
+            return id >= 0 && id < table.limit() ? table.get(id) : -1;
+        }
+
+        @Override
+        public int size() {
+            return table.limit();
+        }
+    }
+}
@@ -0,0 +1,183 @@
+/*
+ * This file is part of ViaVersion Mappings - https://github.com/ViaVersion/Mappings
+ * Copyright (C) 2023 Nassim Jahnke
+ * Copyright (C) 2023-2025 ViaVersion and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.viaversion.mappingsgenerator.util;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import it.unimi.dsi.fastutil.objects.Object2IntMap;
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Compresses output files with zlib, using a preset dictionary of common identifier fragments.
+ * The dictionary is built from the global identifier table and has to be shipped once next to the compressed files.
+ */
+public final class DeflateDictionary {
+
+    /**
+     * Maximum size of a preset dictionary, bound by the deflate window size.
+     */
+    public static final int MAX_SIZE = 32 * 1024;
+    private static final String[] TAG_NAMES = {"version", "mappedSize", "size", "val", "id"};
+
+    /**
+     * Builds a preset dictionary from the fragments of all identifiers in the global identifier table.
+     * Fragments are scored by how many bytes they would cover across all identifiers, with the highest scoring
+     * ones placed at the end of the dictionary, where back-references are the cheapest. Remaining space is
+     * filled with full identifiers.
+     *
+     * @param globalIdentifiers global identifier table
+     * @return dictionary of at most {@link #MAX_SIZE} bytes
+     */
+    public static byte[] train(final JsonObject globalIdentifiers) {
+        final Object2IntMap<String> counts = new Object2IntOpenHashMap<>();
+        for (final Map.Entry<String, JsonElement> entry : globalIdentifiers.entrySet()) {
+            final JsonArray identifiers = entry.getValue().getAsJsonArray();
+            for (final JsonElement identifier : identifiers) {
+                for (final String fragment : identifier.getAsString().split("[_:./]")) {
+                    if (fragment.length() > 2) {
+                        counts.mergeInt(fragment, 1, Integer::sum);
+                    }
+                }
+            }
+        }
+
+        final List<Object2IntMap.Entry<String>> fragments = new ArrayList<>(counts.object2IntEntrySet());
+        fragments.sort(Comparator.<Object2IntMap.Entry<String>>comparingLong(entry -> (long) entry.getIntValue() * entry.getKey().length())
+            .reversed()
+            .thenComparing(Map.Entry::getKey));
+
+        // Reserve the very end for the tag and registry names used in every file
+        final List<String> tagNames = new ArrayList<>(globalIdentifiers.keySet());
+        tagNames.addAll(List.of(TAG_NAMES));
+        final List<byte[]> selected = new ArrayList<>();
+        int size = 0;
+        for (final String tagName : tagNames) {
+            size += tagName.length();
+        }
+        for (final Object2IntMap.Entry<String> fragment : fragments) {
+            if (fragment.getIntValue() < 2) {
+                break;
+            }
+
+            final byte[] bytes = (fragment.getKey() + '_').getBytes(StandardCharsets.UTF_8);
+            if (size + bytes.length > MAX_SIZE) {
+                continue;
+            }
+            selected.add(bytes);
+            size += bytes.length;
+        }
+
+        // Split the remaining space between full identifiers of every registry,
+        // the most recently added ones being the most likely to still be in use
+        final List<byte[]> filler = new ArrayList<>();
+        final int registryBudget = (MAX_SIZE - size) / Math.max(globalIdentifiers.size(), 1);
+        for (final Map.Entry<String, JsonElement> entry : globalIdentifiers.entrySet()) {
+            final JsonArray identifiers = entry.getValue().getAsJsonArray();
+            int registrySize = 0;
+            for (int i = identifiers.size() - 1; i >= 0; i--) {
+                final byte[] bytes = identifiers.get(i).getAsString().getBytes(StandardCharsets.UTF_8);
+                if (registrySize + bytes.length > registryBudget) {
+                    break;
+                }
+                filler.add(bytes);
+                registrySize += bytes.length;
+            }
+            size += registrySize;
+        }
+
+        final ByteArrayOutputStream out = new ByteArrayOutputStream(size);
+        for (final byte[] bytes : filler) {
+            out.writeBytes(bytes);
+        }
+        for (int i = selected.size() - 1; i >= 0; i--) {
+            out.writeBytes(selected.get(i));
+        }
+        for (final String tagName : tagNames) {
+            out.writeBytes(tagName.getBytes(StandardCharsets.UTF_8));
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Compresses the given data in the zlib format with the given preset dictionary.
+     *
+     * @param data       data to compress
+     * @param dictionary preset dictionary
+     * @return compressed data
+     */
+    public static byte[] compress(final byte[] data, final byte[] dictionary) {
+        final Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+        try {
+            deflater.setDictionary(dictionary);
+            deflater.setInput(data);
+            deflater.finish();
+
+            final ByteArrayOutputStream out = new ByteArrayOutputStream(data.length / 2);
+            final byte[] buffer = new byte[8192];
+            while (!deflater.finished()) {
+                final int length = deflater.deflate(buffer);
+                out.write(buffer, 0, length);
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    /**
+     * Decompresses zlib data compressed with {@link #compress(byte[], byte[])}.
+     *
+     * @param data       compressed data
+     * @param dictionary preset dictionary the data was compressed with
+     * @return uncompressed data
+     * @throws DataFormatException if the data is malformed or was compressed with a different dictionary
+     */
+    public static byte[] decompress(final byte[] data, final byte[] dictionary) throws DataFormatException {
+        final Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(data);
+            final ByteArrayOutputStream out = new ByteArrayOutputStream(data.length * 4);
+            final byte[] buffer = new byte[8192];
+            while (!inflater.finished()) {
+                final int length = inflater.inflate(buffer);
+                if (length == 0) {
+                    if (inflater.needsDictionary()) {
+                        inflater.setDictionary(dictionary);
+                    } else if (inflater.needsInput() && !inflater.finished()) {
+                        throw new DataFormatException("Unexpected end of compressed data");
+                    }
+                }
+                out.write(buffer, 0, length);
+            }
+            return out.toByteArray();
+        } finally {
+            inflater.end();
+        }
+    }
+}
@@ -0,0 +1,235 @@
+/*
+ * This file is part of ViaVersion Mappings - https://github.com/ViaVersion/Mappings
+ * Copyright (C) 2023 Nassim Jahnke
+ * Copyright (C) 2023-2025 ViaVersion and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.viaversion.mappingsgenerator.util;
+
+import com.viaversion.nbt.tag.ByteArrayTag;
+import com.viaversion.nbt.tag.CompoundTag;
+import com.viaversion.nbt.tag.IntArrayTag;
+import it.unimi.dsi.fastutil.bytes.ByteArrayList;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Sorted dictionary of strings with shared prefixes removed, split into blocks that each start with a full string.
+ * <p>
+ * In {@code str}, the first string of every block is stored as its varint byte length and UTF-8 bytes, every further
+ * string of the block as the varint length of the prefix shared with the string before it, the varint length of the
+ * remaining suffix and the suffix bytes. {@code rst} contains the byte offset of every block, {@code blk} the number
+ * of strings per block. {@code ids} contains the original index of every string in sorted order, stored as zigzag
+ * varints of the difference to the previous index.
+ * <p>
+ * Lookups binary search the first strings of the blocks and then scan a single block, comparing raw bytes,
+ * so only the strings actually returned are ever created.
+ */
+public final class FrontCodedStrings {
+
+    public static final int DEFAULT_BLOCK_SIZE = 16;
+    private final byte[] data;
+    private final int[] restarts;
+    private final int blockSize;
+    private final int[] sortedIds;
+    private final int[] positions;
+
+    private FrontCodedStrings(final byte[] data, final int[] restarts, final int blockSize, final int[] sortedIds) {
+        this.data = data;
+        this.restarts = restarts;
+        this.blockSize = blockSize;
+        this.sortedIds = sortedIds;
+        this.positions = new int[sortedIds.length];
+        for (int i = 0; i < sortedIds.length; i++) {
+            positions[sortedIds[i]] = i;
+        }
+    }
+
+    /**
+     * Encodes the given strings, whose index in the list is kept as their id.
+     *
+     * @param strings   strings to encode, without duplicates
+     * @param blockSize number of strings per block
+     * @return front coded strings tag
+     */
+    public static CompoundTag encode(final List<String> strings, final int blockSize) {
+        final byte[][] bytes = new byte[strings.size()][];
+        final Integer[] order = new Integer[strings.size()];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = strings.get(i).getBytes(StandardCharsets.UTF_8);
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> Arrays.compareUnsigned(bytes[a], bytes[b]));
+
+        final ByteArrayList out = new ByteArrayList();
+        final ByteArrayList ids = new ByteArrayList();
+        final int[] restarts = new int[(bytes.length + blockSize - 1) / blockSize];
+        byte[] prev = null;
+        int prevId = 0;
+        for (int i = 0; i < order.length; i++) {
+            final byte[] string = bytes[order[i]];
+            if (i % blockSize == 0) {
+                restarts[i / blockSize] = out.size();
+                VarInts.write(out, string.length);
+                out.addElements(out.size(), string);
+            } else {
+                final int shared = Arrays.mismatch(prev, string);
+                if (shared == -1) {
+                    throw new IllegalArgumentException("Duplicate string " + strings.get(order[i]));
+                }
+
+                VarInts.write(out, shared);
+                VarInts.write(out, string.length - shared);
+                out.addElements(out.size(), string, shared, string.length - shared);
+            }
+
+            VarInts.writeZigZag(ids, order[i] - prevId);
+            prevId = order[i];
+            prev = string;
+        }
+
+        final CompoundTag tag = new CompoundTag();
+        tag.putInt("size", bytes.length);
+        tag.putInt("blk", blockSize);
+        tag.put("str", new ByteArrayTag(out.toByteArray()));
+        tag.put("rst", new IntArrayTag(restarts));
+        tag.put("ids", new ByteArrayTag(ids.toByteArray()));
+        return tag;
+    }
+
+    /**
+     * Reads front coded strings written by {@link #encode(List, int)}.
+     *
+     * @param tag front coded strings tag
+     * @return front coded strings
+     */
+    public static FrontCodedStrings read(final CompoundTag tag) {
+        final int[] sortedIds = new int[tag.getInt("size")];
+        final ByteBuffer ids = ByteBuffer.wrap(tag.getByteArrayTag("ids").getValue());
+        int prevId = 0;
+        for (int i = 0; i < sortedIds.length; i++) {
+            prevId += VarInts.readZigZag(ids);
+            sortedIds[i] = prevId;
+        }
+        return new FrontCodedStrings(tag.getByteArrayTag("str").getValue(), tag.getIntArrayTag("rst").getValue(), tag.getInt("blk"), sortedIds);
+    }
+
+    /**
+     * Returns the id of the given string.
+     *
+     * @param string string to look up
+     * @return id of the string, or -1 if not present
+     */
+    public int id(final String string) {
+        final byte[] key = string.getBytes(StandardCharsets.UTF_8);
+
+        // Find the last block starting with a string less than or equal to the key
+        int low = 0;
+        int high = restarts.length - 1;
+        int block = -1;
+        while (low <= high) {
+            final int mid = (low + high) >>> 1;
+            final ByteBuffer buf = ByteBuffer.wrap(data).position(restarts[mid]);
+            final int length = VarInts.read(buf);
+            final int compare = Arrays.compareUnsigned(data, buf.position(), buf.position() + length, key, 0, key.length);
+            if (compare == 0) {
+                return sortedIds[mid * blockSize];
+            } else if (compare < 0) {
+                block = mid;
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        if (block == -1) {
+            return -1;
+        }
+
+        // Scan the block, keeping the length of the prefix the current string (which sorts before the key) shares with the key
+        final ByteBuffer buf = ByteBuffer.wrap(data).position(restarts[block]);
+        int length = VarInts.read(buf);
+        int matched = prefixLength(data, buf.position(), length, key, 0);
+        buf.position(buf.position() + length);
+        final int end = Math.min((block + 1) * blockSize, sortedIds.length);
+        for (int i = block * blockSize + 1; i < end; i++) {
+            final int shared = VarInts.read(buf);
+            length = VarInts.read(buf);
+            if (shared < matched) {
+                // Differs from the previous string where that one still matched the key, so it sorts after the key
+                return -1;
+            }
+
+            if (shared == matched) {
+                final int offset = buf.position();
+                final int suffixMatched = prefixLength(data, offset, length, key, matched);
+                if (suffixMatched == length) {
+                    if (matched + suffixMatched == key.length) {
+                        return sortedIds[i];
+                    }
+                } else if (matched + suffixMatched == key.length
+                    || Byte.toUnsignedInt(data[offset + suffixMatched]) > Byte.toUnsignedInt(key[matched + suffixMatched])) {
+                    return -1;
+                }
+                matched += suffixMatched;
+            }
+            buf.position(buf.position() + length);
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the string with the given id.
+     *
+     * @param id id of the string
+     * @return the string, or null if out of bounds
+     */
+    public @Nullable String string(final int id) {
+        if (id < 0 || id >= positions.length) {
+            return null;
+        }
+
+        final int position = positions[id];
+        final int block = position / blockSize;
+        final ByteBuffer buf = ByteBuffer.wrap(data).position(restarts[block]);
+        int length = VarInts.read(buf);
+        byte[] string = new byte[length];
+        buf.get(string);
+        for (int i = block * blockSize; i < position; i++) {
+            final int shared = VarInts.read(buf);
+            length = VarInts.read(buf);
+            final byte[] next = Arrays.copyOf(string, shared + length);
+            buf.get(next, shared, length);
+            string = next;
+        }
+        return new String(string, StandardCharsets.UTF_8);
+    }
+
+    public int size() {
+        return sortedIds.length;
+    }
+
+    private static int prefixLength(final byte[] data, final int offset, final int length, final byte[] key, final int keyOffset) {
+        final int max = Math.min(length, key.length - keyOffset);
+        for (int i = 0; i < max; i++) {
+            if (data[offset + i] != key[keyOffset + i]) {
+                return i;
+            }
+        }
+        return max;
+    }
+}
@@ -0,0 +1,133 @@
+/*
+ * This file is part of ViaVersion Mappings - https://github.com/ViaVersion/Mappings
+ * Copyright (C) 2023 Nassim Jahnke
+ * Copyright (C) 2023-2025 ViaVersion and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.viaversion.mappingsgenerator.util;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonPrimitive;
+import it.unimi.dsi.fastutil.HashCommon;
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
+import java.util.Map;
+
+/**
+ * Deterministic estimates of the retained heap size of loaded mapping data, assuming a 64-bit JVM with compressed
+ * oops and compact strings: 12 byte object headers, 16 byte array headers, 4 byte references and 8 byte alignment.
+ * Gson trees are estimated as parsed by Gson, with every object backed by a linked tree map, every array by an
+ * array list grown one element at a time, and every string and number primitive holding its own string.
+ */
+public final class HeapEstimator {
+
+    private static final int OBJECT_HEADER = 12;
+    private static final int ARRAY_HEADER = 16;
+    private static final int REFERENCE = 4;
+    private static final int STRING = align(OBJECT_HEADER + REFERENCE + 4 + 2);
+    private static final int JSON_ELEMENT = align(OBJECT_HEADER + REFERENCE);
+    private static final int ARRAY_LIST = align(OBJECT_HEADER + 8 + REFERENCE);
+    private static final int TREE_MAP = align(OBJECT_HEADER + 6 * REFERENCE + 8 + 1);
+    private static final int TREE_MAP_NODE = align(OBJECT_HEADER + 7 * REFERENCE + 4 + 1);
+    private static final int OPEN_HASH_MAP = align(OBJECT_HEADER + 5 * REFERENCE + 6 * 4 + 1);
+    private static final int DEFAULT_LIST_CAPACITY = 10;
+
+    /**
+     * Returns the estimated size of a json element and everything it references.
+     *
+     * @param element json element
+     * @return estimated size in bytes
+     */
+    public static long of(final JsonElement element) {
+        if (element instanceof final JsonObject object) {
+            long size = JSON_ELEMENT + TREE_MAP + TREE_MAP_NODE;
+            for (final Map.Entry<String, JsonElement> entry : object.entrySet()) {
+                size += TREE_MAP_NODE + of(entry.getKey()) + of(entry.getValue());
+            }
+            return size;
+        } else if (element instanceof final JsonArray array) {
+            long size = JSON_ELEMENT + ARRAY_LIST + referenceArray(listCapacity(array.size()));
+            for (final JsonElement child : array) {
+                size += of(child);
+            }
+            return size;
+        } else if (element instanceof final JsonPrimitive primitive) {
+            if (primitive.isBoolean()) {
+                return JSON_ELEMENT; // Shared boolean instances
+            }
+            // Numbers are lazily parsed from their string
+            return (primitive.isNumber() ? JSON_ELEMENT + JSON_ELEMENT : JSON_ELEMENT) + of(primitive.getAsString());
+        }
+        return 0; // Shared null instance
+    }
+
+    /**
+     * Returns the estimated size of a string and its backing array.
+     *
+     * @param string string
+     * @return estimated size in bytes
+     */
+    public static long of(final String string) {
+        boolean latin1 = true;
+        for (int i = 0; i < string.length() && latin1; i++) {
+            latin1 = string.charAt(i) < 256;
+        }
+        return STRING + byteArray(latin1 ? string.length() : string.length() * 2L);
+    }
+
+    /**
+     * Returns the estimated size of an {@link Object2IntOpenHashMap} created with its expected size, excluding its keys.
+     *
+     * @param size number of entries
+     * @return estimated size in bytes
+     */
+    public static long openHashMap(final int size) {
+        final int tableSize = HashCommon.arraySize(size, 0.75F) + 1;
+        return OPEN_HASH_MAP + referenceArray(tableSize) + intArray(tableSize);
+    }
+
+    public static long intArray(final long length) {
+        return align(ARRAY_HEADER + length * 4);
+    }
+
+    public static long byteArray(final long length) {
+        return align(ARRAY_HEADER + length);
+    }
+
+    public static long referenceArray(final long length) {
+        return align(ARRAY_HEADER + length * REFERENCE);
+    }
+
+    private static int listCapacity(final int size) {
+        if (size == 0) {
+            return 0;
+        }
+
+        int capacity = DEFAULT_LIST_CAPACITY;
+        while (capacity < size) {
+            capacity += capacity >> 1;
+        }
+        return capacity;
+    }
+
+    private static int align(final int size) {
+        return (size + 7) & ~7;
+    }
+
+    private static long align(final long size) {
+        return (size + 7) & ~7L;
+    }
+}
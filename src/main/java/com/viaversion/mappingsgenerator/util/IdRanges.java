@@ -20,7 +20,9 @@ package com.viaversion.mappingsgenerator.util;
 
 import com.viaversion.nbt.tag.ByteArrayTag;
 import it.unimi.dsi.fastutil.bytes.ByteArrayList;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
 import it.unimi.dsi.fastutil.ints.IntList;
+import java.nio.ByteBuffer;
 
 /**
  * Reads sets of non-negative ints stored as ranges, packed into a byte array of varints.
@@ -55,4 +57,26 @@ public final class IdRanges {
         }
         return new ByteArrayTag(out.toByteArray());
     }
+
+    /**
+     * Returns the sorted ids of a set written by {@link #encode(IntList)}.
+     *
+     * @param tag id ranges tag
+     * @return sorted ids
+     */
+    public static IntList decode(final ByteArrayTag tag) {
+        final ByteBuffer buf = ByteBuffer.wrap(tag.getValue());
+        final IntList ids = new IntArrayList();
+        int prevEnd = -1;
+        while (buf.hasRemaining()) {
+            final int offset = VarInts.read(buf);
+            final int start = prevEnd == -1 ? offset : prevEnd + offset;
+            final int end = start + VarInts.read(buf);
+            for (int id = start; id <= end; id++) {
+                ids.add(id);
+            }
+            prevEnd = end + 1;
+        }
+        return ids;
+    }
 }
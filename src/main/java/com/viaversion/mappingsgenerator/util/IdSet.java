@@ -0,0 +1,314 @@
+/*
+ * This file is part of ViaVersion Mappings - https://github.com/ViaVersion/Mappings
+ * Copyright (C) 2023 Nassim Jahnke
+ * Copyright (C) 2023-2025 ViaVersion and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.viaversion.mappingsgenerator.util;
+
+import com.viaversion.nbt.tag.ByteArrayTag;
+import it.unimi.dsi.fastutil.bytes.ByteArrayList;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.ints.IntList;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Set of non-negative ints split into chunks of 65536 ids, each stored in whichever of three containers is smallest:
+ * <ul>
+ *     <li>Runs: the number of ranges and each range packed like {@link IdRanges}</li>
+ *     <li>Bitset: the number of bytes and the bits of all ids of the chunk up to the highest one contained</li>
+ *     <li>Array: the number of ids, the first id and the difference of every further id to the previous one minus one</li>
+ * </ul>
+ * The byte array starts with the number of chunks, followed by the high 16 bits, the container type and the container of every chunk.
+ * All numbers are stored as varints, ids within a container only with their low 16 bits.
+ * <p>
+ * Lookups in a decoded set find the chunk and then check a bit in constant time, or binary search the runs or the array.
+ */
+public final class IdSet {
+
+    public static final byte RUNS = 0;
+    public static final byte BITSET = 1;
+    public static final byte ARRAY = 2;
+    private static final int CHUNK_BITS = 16;
+    private static final int LOW_MASK = (1 << CHUNK_BITS) - 1;
+    private final int[] keys;
+    private final Container[] containers;
+    private final int size;
+
+    private IdSet(final int[] keys, final Container[] containers) {
+        this.keys = keys;
+        this.containers = containers;
+        int size = 0;
+        for (final Container container : containers) {
+            size += container.size();
+        }
+        this.size = size;
+    }
+
+    /**
+     * Encodes the given ids, sorting them in the process.
+     *
+     * @param ids ids to encode, without duplicates
+     * @return id set tag
+     */
+    public static ByteArrayTag encode(final IntList ids) {
+        ids.sort(null);
+
+        final ByteArrayList out = new ByteArrayList();
+        final ByteArrayList chunks = new ByteArrayList();
+        int chunkCount = 0;
+        int start = 0;
+        while (start < ids.size()) {
+            final int key = ids.getInt(start) >>> CHUNK_BITS;
+            int end = start;
+            while (end < ids.size() && ids.getInt(end) >>> CHUNK_BITS == key) {
+                if (end > start && ids.getInt(end) == ids.getInt(end - 1)) {
+                    throw new IllegalArgumentException("Duplicate id " + ids.getInt(end));
+                }
+                end++;
+            }
+
+            final int[] low = new int[end - start];
+            for (int i = 0; i < low.length; i++) {
+                low[i] = ids.getInt(start + i) & LOW_MASK;
+            }
+
+            final ByteArrayList[] encoded = {encodeRuns(low), encodeBitset(low), encodeArray(low)};
+            byte type = RUNS;
+            for (byte i = BITSET; i <= ARRAY; i++) {
+                if (encoded[i].size() < encoded[type].size()) {
+                    type = i;
+                }
+            }
+
+            VarInts.write(chunks, key);
+            chunks.add(type);
+            chunks.addElements(chunks.size(), encoded[type].elements(), 0, encoded[type].size());
+            chunkCount++;
+            start = end;
+        }
+
+        VarInts.write(out, chunkCount);
+        out.addElements(out.size(), chunks.elements(), 0, chunks.size());
+        return new ByteArrayTag(out.toByteArray());
+    }
+
+    /**
+     * Reads a set written by {@link #encode(IntList)}.
+     *
+     * @param tag id set tag
+     * @return id set
+     */
+    public static IdSet read(final ByteArrayTag tag) {
+        final ByteBuffer buf = ByteBuffer.wrap(tag.getValue());
+        final int chunkCount = buf.hasRemaining() ? VarInts.read(buf) : 0;
+        final int[] keys = new int[chunkCount];
+        final Container[] containers = new Container[chunkCount];
+        for (int i = 0; i < chunkCount; i++) {
+            keys[i] = VarInts.read(buf);
+            final byte type = buf.get();
+            containers[i] = switch (type) {
+                case RUNS -> readRuns(buf);
+                case BITSET -> readBitset(buf);
+                case ARRAY -> readArray(buf);
+                default -> throw new IllegalArgumentException("Unknown container type " + type);
+            };
+        }
+        return new IdSet(keys, containers);
+    }
+
+    public boolean contains(final int id) {
+        if (id < 0) {
+            return false;
+        }
+
+        final int chunk = Arrays.binarySearch(keys, id >>> CHUNK_BITS);
+        return chunk >= 0 && containers[chunk].contains(id & LOW_MASK);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns all ids of the set in ascending order.
+     *
+     * @return sorted ids
+     */
+    public IntList toList() {
+        final IntList ids = new IntArrayList(size);
+        for (int i = 0; i < keys.length; i++) {
+            containers[i].addTo(ids, keys[i] << CHUNK_BITS);
+        }
+        return ids;
+    }
+
+    private static ByteArrayList encodeRuns(final int[] low) {
+        final IntList starts = new IntArrayList();
+        final IntList ends = new IntArrayList();
+        for (int i = 0; i < low.length; i++) {
+            if (i == 0 || low[i] != low[i - 1] + 1) {
+                starts.add(low[i]);
+                ends.add(low[i]);
+            } else {
+                ends.set(ends.size() - 1, low[i]);
+            }
+        }
+
+        final ByteArrayList out = new ByteArrayList();
+        VarInts.write(out, starts.size());
+        int prevEnd = 0;
+        for (int i = 0; i < starts.size(); i++) {
+            VarInts.write(out, starts.getInt(i) - prevEnd);
+            VarInts.write(out, ends.getInt(i) - starts.getInt(i));
+            prevEnd = ends.getInt(i) + 1;
+        }
+        return out;
+    }
+
+    private static ByteArrayList encodeBitset(final int[] low) {
+        final byte[] bits = new byte[(low[low.length - 1] >>> 3) + 1];
+        for (final int id : low) {
+            bits[id >>> 3] |= (byte) (1 << (id & 7));
+        }
+
+        final ByteArrayList out = new ByteArrayList();
+        VarInts.write(out, bits.length);
+        out.addElements(out.size(), bits);
+        return out;
+    }
+
+    private static ByteArrayList encodeArray(final int[] low) {
+        final ByteArrayList out = new ByteArrayList();
+        VarInts.write(out, low.length);
+        VarInts.write(out, low[0]);
+        for (int i = 1; i < low.length; i++) {
+            VarInts.write(out, low[i] - low[i - 1] - 1);
+        }
+        return out;
+    }
+
+    private static Container readRuns(final ByteBuffer buf) {
+        final int[] starts = new int[VarInts.read(buf)];
+        final int[] ends = new int[starts.length];
+        int prevEnd = 0;
+        for (int i = 0; i < starts.length; i++) {
+            starts[i] = prevEnd + VarInts.read(buf);
+            ends[i] = starts[i] + VarInts.read(buf);
+            prevEnd = ends[i] + 1;
+        }
+        return new Runs(starts, ends);
+    }
+
+    private static Container readBitset(final ByteBuffer buf) {
+        final byte[] bytes = new byte[VarInts.read(buf)];
+        buf.get(bytes);
+        final long[] words = new long[(bytes.length + 7) >>> 3];
+        int size = 0;
+        for (int i = 0; i < bytes.length; i++) {
+            words[i >>> 3] |= (bytes[i] & 0xFFL) << ((i & 7) << 3);
+            size += Integer.bitCount(bytes[i] & 0xFF);
+        }
+        return new Bitset(words, size);
+    }
+
+    private static Container readArray(final ByteBuffer buf) {
+        final int[] values = new int[VarInts.read(buf)];
+        int value = -1;
+        for (int i = 0; i < values.length; i++) {
+            value = i == 0 ? VarInts.read(buf) : value + VarInts.read(buf) + 1;
+            values[i] = value;
+        }
+        return new Array(values);
+    }
+
+    private sealed interface Container permits Runs, Bitset, Array {
+
+        boolean contains(int low);
+
+        int size();
+
+        void addTo(IntList ids, int base);
+    }
+
+    private record Runs(int[] starts, int[] ends) implements Container {
+
+        @Override
+        public boolean contains(final int low) {
+            final int index = Arrays.binarySearch(starts, low);
+            // Either starts a run or lies within the run starting before it
+            return index >= 0 || (index != -1 && low <= ends[-index - 2]);
+        }
+
+        @Override
+        public int size() {
+            int size = 0;
+            for (int i = 0; i < starts.length; i++) {
+                size += ends[i] - starts[i] + 1;
+            }
+            return size;
+        }
+
+        @Override
+        public void addTo(final IntList ids, final int base) {
+            for (int i = 0; i < starts.length; i++) {
+                for (int low = starts[i]; low <= ends[i]; low++) {
+                    ids.add(base | low);
+                }
+            }
+        }
+    }
+
+    private record Bitset(long[] words, int size) implements Container {
+
+        @Override
+        public boolean contains(final int low) {
+            final int word = low >>> 6;
+            return word < words.length && (words[word] & (1L << low)) != 0;
+        }
+
+        @Override
+        public void addTo(final IntList ids, final int base) {
+            for (int word = 0; word < words.length; word++) {
+                long bits = words[word];
+                while (bits != 0) {
+                    ids.add(base | ((word << 6) + Long.numberOfTrailingZeros(bits)));
+                    bits &= bits - 1;
+                }
+            }
+        }
+    }
+
+    private record Array(int[] values) implements Container {
+
+        @Override
+        public boolean contains(final int low) {
+            return Arrays.binarySearch(values, low) >= 0;
+        }
+
+        @Override
+        public int size() {
+            return values.length;
+        }
+
+        @Override
+        public void addTo(final IntList ids, final int base) {
+            for (final int low : values) {
+                ids.add(base | low);
+            }
+        }
+    }
+}
@@ -0,0 +1,239 @@
+/*
+ * This file is part of ViaVersion Mappings - https://github.com/ViaVersion/Mappings
+ * Copyright (C) 2023 Nassim Jahnke
+ * Copyright (C) 2023-2025 ViaVersion and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.viaversion.mappingsgenerator.util;
+
+import com.viaversion.nbt.tag.ByteArrayTag;
+import com.viaversion.nbt.tag.CompoundTag;
+import it.unimi.dsi.fastutil.bytes.ByteArrayList;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Minimal perfect hash function from identifiers to their ids, built by hash and displace.
+ * <p>
+ * Keys are first distributed into buckets by their unseeded hash. Starting with the largest bucket, every bucket
+ * then gets the smallest seed that moves all of its keys into slots not taken yet, so that every key ends up in its own
+ * slot out of exactly as many slots as there are keys. A lookup costs two hashes and one array access, the candidate id
+ * then has to be checked against the actual identifier, since keys outside the original set also map to some slot.
+ * <p>
+ * {@code seeds} contains the seed of every bucket as varints, {@code val} the id of every slot stored as zigzag varints
+ * of the difference to the previous id.
+ */
+public final class PerfectHash {
+
+    private static final int KEYS_PER_BUCKET = 4;
+    private static final int MAX_SEED = 1 << 24;
+    private final int[] seeds;
+    private final int[] values;
+
+    private PerfectHash(final int[] seeds, final int[] values) {
+        this.seeds = seeds;
+        this.values = values;
+    }
+
+    /**
+     * Builds a perfect hash function over the given identifiers, mapping each identifier to its index.
+     *
+     * @param identifiers identifiers, null entries are left out and duplicates map to their last index
+     * @return perfect hash tag
+     */
+    public static CompoundTag build(final List<String> identifiers) {
+        final Map<String, Integer> lastIds = new LinkedHashMap<>();
+        for (int id = 0; id < identifiers.size(); id++) {
+            final String identifier = identifiers.get(id);
+            if (identifier != null) {
+                lastIds.put(identifier, id);
+            }
+        }
+
+        final List<byte[]> keys = new ArrayList<>(lastIds.size());
+        final IntArrayList ids = new IntArrayList(lastIds.size());
+        for (final Map.Entry<String, Integer> entry : lastIds.entrySet()) {
+            keys.add(entry.getKey().getBytes(StandardCharsets.UTF_8));
+            ids.add(entry.getValue().intValue());
+        }
+
+        final int size = keys.size();
+        final int bucketCount = Math.max((size + KEYS_PER_BUCKET - 1) / KEYS_PER_BUCKET, 1);
+        final List<IntArrayList> buckets = new ArrayList<>(bucketCount);
+        for (int i = 0; i < bucketCount; i++) {
+            buckets.add(new IntArrayList());
+        }
+        for (int i = 0; i < size; i++) {
+            buckets.get(reduce(hash(keys.get(i), 0), bucketCount)).add(i);
+        }
+
+        final Integer[] order = new Integer[bucketCount];
+        for (int i = 0; i < bucketCount; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> Integer.compare(buckets.get(b).size(), buckets.get(a).size()));
+
+        final int[] seeds = new int[bucketCount];
+        final int[] values = new int[size];
+        final boolean[] taken = new boolean[size];
+        for (final int bucketIndex : order) {
+            final IntArrayList bucket = buckets.get(bucketIndex);
+            if (bucket.isEmpty()) {
+                break;
+            }
+
+            final int[] slots = new int[bucket.size()];
+            int seed = 1;
+            while (!place(bucket, keys, seed, taken, slots)) {
+                if (++seed == MAX_SEED) {
+                    throw new IllegalStateException("Could not find a seed for a bucket of " + bucket.size() + " keys");
+                }
+            }
+
+            seeds[bucketIndex] = seed;
+            for (int i = 0; i < bucket.size(); i++) {
+                final int key = bucket.getInt(i);
+                final int slot = reduce(hash(keys.get(key), seed), size);
+                taken[slot] = true;
+                values[slot] = ids.getInt(key);
+            }
+        }
+
+        final ByteArrayList seedsOut = new ByteArrayList();
+        for (final int seed : seeds) {
+            VarInts.write(seedsOut, seed);
+        }
+        final ByteArrayList valuesOut = new ByteArrayList();
+        int prev = 0;
+        for (final int value : values) {
+            VarInts.writeZigZag(valuesOut, value - prev);
+            prev = value;
+        }
+
+        final CompoundTag tag = new CompoundTag();
+        tag.putInt("size", size);
+        tag.putInt("buckets", bucketCount);
+        tag.put("seeds", new ByteArrayTag(seedsOut.toByteArray()));
+        tag.put("val", new ByteArrayTag(valuesOut.toByteArray()));
+        return tag;
+    }
+
+    /**
+     * Reads a perfect hash function written by {@link #build(List)}.
+     *
+     * @param tag perfect hash tag
+     * @return perfect hash function
+     */
+    public static PerfectHash read(final CompoundTag tag) {
+        final int[] seeds = new int[tag.getInt("buckets")];
+        final ByteBuffer seedsBuf = ByteBuffer.wrap(tag.getByteArrayTag("seeds").getValue());
+        for (int i = 0; i < seeds.length; i++) {
+            seeds[i] = VarInts.read(seedsBuf);
+        }
+
+        final int[] values = new int[tag.getInt("size")];
+        final ByteBuffer valuesBuf = ByteBuffer.wrap(tag.getByteArrayTag("val").getValue());
+        int prev = 0;
+        for (int i = 0; i < values.length; i++) {
+            prev += VarInts.readZigZag(valuesBuf);
+            values[i] = prev;
+        }
+        return new PerfectHash(seeds, values);
+    }
+
+    /**
+     * Returns the id the given identifier would have if it was part of the original identifiers.
+     * The identifier with that id still has to be compared against the given one.
+     *
+     * @param identifier identifier to look up
+     * @return candidate id, or -1 if there are no identifiers
+     */
+    public int candidate(final String identifier) {
+        if (values.length == 0) {
+            return -1;
+        }
+
+        final byte[] key = identifier.getBytes(StandardCharsets.UTF_8);
+        final int seed = seeds[reduce(hash(key, 0), seeds.length)];
+        return values[reduce(hash(key, seed), values.length)];
+    }
+
+    /**
+     * Returns the id of the given identifier.
+     *
+     * @param identifier  identifier to look up
+     * @param identifiers identifiers the function was built from
+     * @return id of the identifier, or -1 if not present
+     */
+    public int id(final String identifier, final List<String> identifiers) {
+        final int candidate = candidate(identifier);
+        return candidate != -1 && identifier.equals(identifiers.get(candidate)) ? candidate : -1;
+    }
+
+    public int size() {
+        return values.length;
+    }
+
+    /**
+     * Returns the seeded 32-bit FNV-1a hash of the given bytes, finished with the MurmurHash3 mixer.
+     *
+     * @param bytes bytes to hash
+     * @param seed  seed, 0 for bucket selection
+     * @return hash
+     */
+    public static int hash(final byte[] bytes, final int seed) {
+        int hash = 0x811C9DC5 ^ (seed * 0x9E3779B9);
+        for (final byte b : bytes) {
+            hash ^= b & 0xFF;
+            hash *= 0x01000193;
+        }
+
+        hash ^= hash >>> 16;
+        hash *= 0x85EBCA6B;
+        hash ^= hash >>> 13;
+        hash *= 0xC2B2AE35;
+        hash ^= hash >>> 16;
+        return hash;
+    }
+
+    private static boolean place(final IntArrayList bucket, final List<byte[]> keys, final int seed, final boolean[] taken, final int[] slots) {
+        for (int i = 0; i < bucket.size(); i++) {
+            final int slot = reduce(hash(keys.get(bucket.getInt(i)), seed), taken.length);
+            if (taken[slot]) {
+                return false;
+            }
+            for (int j = 0; j < i; j++) {
+                if (slots[j] == slot) {
+                    return false;
+                }
+            }
+            slots[i] = slot;
+        }
+        return true;
+    }
+
+    /**
+     * Maps a hash to {@code [0, bound)} without a division.
+     */
+    private static int reduce(final int hash, final int bound) {
+        return (int) (((hash & 0xFFFFFFFFL) * bound) >>> 32);
+    }
+}
@@ -0,0 +1,41 @@
+package com.viaversion.mappingsgenerator;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.viaversion.mappingsgenerator.MappingsLoader.MappingsResult;
+import java.util.List;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+final class MappingCountersTest {
+
+    @Test
+    void testMappingCounters() {
+        final JsonArray unmapped = new JsonArray();
+        for (final String identifier : List.of("stone", "old_wall[up=true]", "dirt", "removed[a=b]", "grass", "cursed", "unknown")) {
+            unmapped.add(identifier);
+        }
+        final JsonArray mapped = new JsonArray();
+        for (final String identifier : List.of("stone", "wall[up=true]", "coarse_dirt", "grass_block")) {
+            mapped.add(identifier);
+        }
+        final JsonObject diff = new JsonObject();
+        diff.addProperty("old_wall", "wall[");
+        diff.addProperty("dirt", "coarse_dirt");
+        diff.addProperty("removed", "");
+        diff.addProperty("4", "grass_block");
+        diff.addProperty("cursed", "id:2");
+
+        final MappingCounters counters = new MappingCounters();
+        final MappingsResult result = MappingsLoader.map(unmapped, mapped, diff, ErrorStrategy.IGNORE, counters);
+        Assertions.assertArrayEquals(new int[]{0, 1, 2, -1, 3, 2, -1}, result.mappings());
+        Assertions.assertEquals(7, counters.identifiers);
+        Assertions.assertEquals(1, counters.valueHits);
+        Assertions.assertEquals(1, counters.idHits);
+        Assertions.assertEquals(1, counters.wildcardHits);
+        Assertions.assertEquals(1, counters.wildcardExpansions);
+        Assertions.assertEquals(1, counters.emptyHits);
+        Assertions.assertEquals(1, counters.rawIdHits);
+        Assertions.assertEquals(1, counters.misses);
+    }
+}
@@ -1,23 +1,43 @@
 package com.viaversion.mappingsgenerator;
 
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
 import com.viaversion.mappingsgenerator.MappingsLoader.MappingsResult;
+import com.viaversion.mappingsgenerator.extra.ExtraDataContext;
+import com.viaversion.mappingsgenerator.extra.ExtraProjection;
+import com.viaversion.mappingsgenerator.reader.MappingsReader;
+import com.viaversion.mappingsgenerator.reader.MappingsView;
+import com.viaversion.mappingsgenerator.reader.OffHeapArena;
+import com.viaversion.mappingsgenerator.util.DeflateDictionary;
+import com.viaversion.mappingsgenerator.util.FrontCodedStrings;
+import com.viaversion.mappingsgenerator.util.IdRanges;
+import com.viaversion.mappingsgenerator.util.IdSet;
+import com.viaversion.mappingsgenerator.util.PerfectHash;
 import com.viaversion.mappingsgenerator.util.VarInts;
-import com.viaversion.nbt.io.NBTIO;
 import com.viaversion.nbt.tag.ByteArrayTag;
 import com.viaversion.nbt.tag.ByteTag;
 import com.viaversion.nbt.tag.CompoundTag;
+import com.viaversion.nbt.tag.IntArrayTag;
+import com.viaversion.nbt.tag.ListTag;
+import com.viaversion.nbt.tag.StringTag;
 import com.viaversion.nbt.tag.Tag;
+import it.unimi.dsi.fastutil.ints.Int2IntMap;
 import it.unimi.dsi.fastutil.ints.IntArrayList;
 import it.unimi.dsi.fastutil.ints.IntList;
-import java.io.BufferedInputStream;
 import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
+import java.util.Random;
 import java.util.stream.Stream;
+import java.util.zip.DataFormatException;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 
@@ -43,38 +63,504 @@ final class MappingFormatTest {
             final String name = Arrays.toString(mappings);
             Assertions.assertArrayEquals(mappings, decodeDirect(MappingsOptimizer.directValues(mappings), mappings.length), name);
 
-            final MappingsResult result = result(mappings);
+            final MappingsResult result = MappingsResult.of(mappings, -1);
             final int changes = mappings.length - result.identityMappings();
-            final int[][] changedPairs = decodePairs(MappingsOptimizer.changedValues(result, changes));
-            Assertions.assertArrayEquals(mappings, reconstructChanged(changedPairs, mappings.length), name);
+            final ByteArrayTag changedValues = MappingsOptimizer.changedValues(result, changes);
+            Assertions.assertArrayEquals(mappings, reconstructChanged(decodePairs(changedValues), mappings.length), name);
 
-            final int[][] shiftPairs = decodePairs(MappingsOptimizer.shiftValues(result, name));
-            Assertions.assertArrayEquals(mappings, reconstructShifts(shiftPairs, mappings.length), name);
+            final ByteArrayTag shiftValues = MappingsOptimizer.shiftValues(result, name);
+            Assertions.assertArrayEquals(mappings, reconstructShifts(decodePairs(shiftValues), mappings.length), name);
+
+            // The reference reader has to agree with the independent decoding above
+            Assertions.assertArrayEquals(mappings, MappingsReader.decodeDirect(MappingsOptimizer.directValues(mappings).getValue(), mappings.length), name);
+            Assertions.assertArrayEquals(mappings, MappingsReader.decodeChanges(changedValues.getValue(), mappings.length, true), name);
+            Assertions.assertArrayEquals(mappings, MappingsReader.decodeShifts(shiftValues.getValue(), mappings.length), name);
+
+            checkReader(section(MappingsOptimizer.DIRECT_ID, mappings.length, MappingsOptimizer.directValues(mappings)), name);
+            for (final int interval : new int[]{0, 1, 2}) {
+                // Without checkpoints, and with checkpoints after every or every second pair
+                checkReader(withCheckpoints(section(MappingsOptimizer.CHANGES_ID, mappings.length, changedValues), interval), name);
+                checkReader(withCheckpoints(section(MappingsOptimizer.SHIFTS_ID, mappings.length, shiftValues), interval), name);
+            }
+        }
+    }
+
+    @Test
+    void testMappingsReader() {
+        final CompoundTag identity = new CompoundTag();
+        identity.putByte("id", MappingsOptimizer.IDENTITY_ID);
+        identity.putInt("size", 4);
+        Assertions.assertArrayEquals(new int[]{0, 1, 2, 3}, MappingsReader.decode(identity));
+        checkReader(identity, "identity");
+
+        // Without fill, ids between the changed ones are unmapped
+        final CompoundTag noFill = section(MappingsOptimizer.CHANGES_ID, 6, MappingsOptimizer.atValuePairs(new int[]{1, 4}, new int[]{7, 2}));
+        noFill.putByte("nofill", (byte) 1);
+        Assertions.assertArrayEquals(new int[]{-1, 7, -1, -1, 2, -1}, MappingsReader.decode(noFill));
+        checkReader(withCheckpoints(noFill, 1), "nofill");
+
+        final MappingsView view = MappingsReader.view(noFill);
+        Assertions.assertEquals(-1, view.get(-1));
+        Assertions.assertEquals(-1, view.get(6));
+        Assertions.assertEquals(6, view.size());
+        Assertions.assertEquals(-1, view.mappedSize());
+
+        // Pre 1.13 sections only count their entries as the size, their sparse ids go beyond it
+        final CompoundTag sparse = section(MappingsOptimizer.CHANGES_ID, 2, MappingsOptimizer.atValuePairs(new int[]{1, 4}, new int[]{7, 2}));
+        sparse.putByte("nofill", (byte) 1);
+        Assertions.assertTrue(MappingsReader.isSparse(sparse));
+        Assertions.assertFalse(MappingsReader.isSparse(noFill));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> MappingsReader.decode(sparse));
+        checkSparse(withCheckpoints(sparse, 1), "sparse");
+        Assertions.assertEquals(2, MappingsReader.view(sparse).get(4));
+        Assertions.assertEquals(-1, MappingsReader.view(sparse).get(2));
+
+        final CompoundTag file = new CompoundTag();
+        final CompoundTag sections = new CompoundTag();
+        sections.put("abc", identity);
+        file.putString("items", "abc");
+        file.put("blocks", noFill);
+        Assertions.assertSame(identity, MappingsReader.section(file, "items", sections));
+        Assertions.assertSame(noFill, MappingsReader.section(file, "blocks", null));
+        Assertions.assertNull(MappingsReader.section(file, "sounds", sections));
+    }
+
+    @Test
+    void testPairCheckpoints() {
+        final int[] at = new int[1000];
+        final int[] values = new int[at.length];
+        for (int i = 0; i < at.length; i++) {
+            at[i] = i * 7 + i % 5;
+            values[i] = i % 2 == 0 ? i * 1000 : -1;
+        }
+
+        final ByteArrayTag packed = MappingsOptimizer.atValuePairs(at, values);
+        final int[] checkpoints = MappingsOptimizer.pairCheckpoints(packed, 256).getValue();
+        Assertions.assertEquals(3 * 3, checkpoints.length);
+        for (int i = 0; i < checkpoints.length; i += 3) {
+            final int pair = (i / 3 + 1) * 256;
+            Assertions.assertEquals(at[pair - 1], checkpoints[i + 1]);
+            Assertions.assertEquals(values[pair - 1], checkpoints[i + 2]);
+
+            // Decoding from the checkpoint has to continue with the exact pair it was taken at
+            final ByteBuffer buf = ByteBuffer.wrap(packed.getValue()).position(checkpoints[i]);
+            Assertions.assertEquals(at[pair], checkpoints[i + 1] + 1 + VarInts.read(buf));
+            Assertions.assertEquals(values[pair], checkpoints[i + 2] + VarInts.readZigZag(buf));
+        }
+    }
+
+    @Test
+    void testIdentifierDeltas() throws IOException {
+        final List<int[][]> cases = List.of(
+            new int[][]{{0, 1, 2, 3}, {0, 1, 2, 3}}, // Unchanged
+            new int[][]{{0, 1, 2, 3}, {0, 4, 1, 2, 3, 5}}, // Insertions
+            new int[][]{{0, 1, 2, 3, 4}, {1, 3}}, // Removals
+            new int[][]{{0, 1, 2, 3, 4}, {4, 0, 1, 2, 3}}, // Moved entry
+            new int[][]{{0, -1, 2, -1}, {-1, 0, 2, 7, -1}}, // Unmapped entries
+            new int[][]{{}, {3, 2, 1}}, // New registry contents
+            new int[][]{{3, 2, 1}, {}} // Cleared registry
+        );
+        for (final int[][] tables : cases) {
+            final CompoundTag delta = IdentifierDeltas.encode(tables[0], tables[1]);
+            Assertions.assertArrayEquals(tables[1], MappingsReader.decodeDelta(tables[0], delta), Arrays.deepToString(tables));
+        }
+
+        // Only the moved entry should be stored
+        final CompoundTag moved = IdentifierDeltas.encode(new int[]{0, 1, 2, 3, 4}, new int[]{4, 0, 1, 2, 3});
+        Assertions.assertEquals(1, decodePairs(moved.getByteArrayTag("ins"))[0].length);
+
+        // Files are resolved by applying their chain from the keyframe on
+        final int[][] versions = {{0, 1, 2, 3}, {0, 1, 3, 4}, {5, 0, 1, 3, 4}};
+        final CompoundTag keyframe = new CompoundTag();
+        keyframe.put("blocks", section(MappingsOptimizer.DIRECT_ID, versions[0].length, MappingsOptimizer.directValues(versions[0])));
+        final CompoundTag firstDelta = new CompoundTag();
+        firstDelta.put("chain", stringList("a"));
+        firstDelta.put("blocks", IdentifierDeltas.encode(versions[0], versions[1]));
+        final CompoundTag secondDelta = new CompoundTag();
+        secondDelta.put("chain", stringList("a", "b"));
+        secondDelta.put("blocks", IdentifierDeltas.encode(versions[1], versions[2]));
+        final Map<String, CompoundTag> files = Map.of("a", keyframe, "b", firstDelta);
+        Assertions.assertArrayEquals(versions[0], MappingsReader.identifierTables(keyframe, files::get, null).get("blocks"));
+        Assertions.assertArrayEquals(versions[2], MappingsReader.identifierTables(secondDelta, files::get, null).get("blocks"));
+    }
+
+    @Test
+    void testIdentifierRenumbering() {
+        final JsonObject globalIdentifiers = new JsonObject();
+        globalIdentifiers.add("blocks", jsonArray("a", "d", "g", "b", "e", "c", "f")); // Interleaved by later additions
+        globalIdentifiers.add("items", jsonArray("a", "b", "c")); // Already in the cheapest order
+        final List<JsonObject> versions = new ArrayList<>();
+        for (final JsonArray blocks : List.of(jsonArray("a", "b", "c"), jsonArray("a", "b", "c", "d", "e", "f"), jsonArray("a", "b", "c", "d", "e", "f", "g"))) {
+            final JsonObject version = new JsonObject();
+            version.add("blocks", blocks);
+            version.add("items", jsonArray("a", "b", "c"));
+            versions.add(version);
+        }
+
+        final JsonObject renumbered = IdentifierRenumbering.renumber(globalIdentifiers, versions);
+        Assertions.assertEquals(globalIdentifiers.keySet(), renumbered.keySet());
+        for (final String key : globalIdentifiers.keySet()) {
+            final JsonArray current = globalIdentifiers.getAsJsonArray(key);
+            final JsonArray reordered = renumbered.getAsJsonArray(key);
+            final List<String> currentIds = new ArrayList<>(current.asList().stream().map(JsonElement::getAsString).toList());
+            final List<String> reorderedIds = new ArrayList<>(reordered.asList().stream().map(JsonElement::getAsString).toList());
+            currentIds.sort(null);
+            reorderedIds.sort(null);
+            Assertions.assertEquals(currentIds, reorderedIds, key);
+            Assertions.assertTrue(IdentifierRenumbering.encodedSize(key, reordered, versions) <= IdentifierRenumbering.encodedSize(key, current, versions), key);
+        }
+        Assertions.assertEquals(globalIdentifiers.get("items"), renumbered.get("items"));
+        Assertions.assertTrue(IdentifierRenumbering.encodedSize("blocks", renumbered.getAsJsonArray("blocks"), versions)
+            < IdentifierRenumbering.encodedSize("blocks", globalIdentifiers.getAsJsonArray("blocks"), versions));
+    }
+
+    @Test
+    void testDeflateDictionary() throws DataFormatException {
+        final String[] colors = {"white", "orange", "magenta", "light_blue", "yellow", "lime", "pink", "gray"};
+        final String[] materials = {"wool", "carpet", "concrete", "concrete_powder", "stained_glass", "terracotta", "bed", "banner"};
+        final JsonArray blocks = new JsonArray();
+        for (final String material : materials) {
+            for (final String color : colors) {
+                blocks.add("minecraft:" + color + "_" + material);
+            }
+        }
+        final JsonObject globalIdentifiers = new JsonObject();
+        globalIdentifiers.add("blocks", blocks);
+
+        final byte[] dictionary = DeflateDictionary.train(globalIdentifiers);
+        Assertions.assertTrue(dictionary.length > 0 && dictionary.length <= DeflateDictionary.MAX_SIZE, "dictionary size " + dictionary.length);
+
+        final StringBuilder data = new StringBuilder();
+        for (int i = blocks.size() - 1; i >= 0; i -= 3) {
+            data.append(blocks.get(i).getAsString()).append(i);
+        }
+        final byte[] bytes = data.toString().getBytes(StandardCharsets.UTF_8);
+        final byte[] compressed = DeflateDictionary.compress(bytes, dictionary);
+        Assertions.assertArrayEquals(bytes, DeflateDictionary.decompress(compressed, dictionary));
+        Assertions.assertArrayEquals(new byte[0], DeflateDictionary.decompress(DeflateDictionary.compress(new byte[0], dictionary), dictionary));
+
+        // The fragments in the dictionary have to be picked up as back-references
+        Assertions.assertTrue(compressed.length < DeflateDictionary.compress(bytes, new byte[]{0}).length);
+    }
+
+    @Test
+    void testFrontCodedStrings() {
+        final List<String> strings = new ArrayList<>(List.of("minecraft:stone", "minecraft:stone_slab", "minecraft:air", "b", "ab", "a", "minecraft:é"));
+        for (int i = 0; i < 100; i++) {
+            strings.add("minecraft:" + Integer.toString(i * 7919, 36) + "_block");
+        }
+
+        for (final int blockSize : new int[]{1, 4, 16}) {
+            final FrontCodedStrings frontCoded = FrontCodedStrings.read(FrontCodedStrings.encode(strings, blockSize));
+            Assertions.assertEquals(strings.size(), frontCoded.size());
+            for (int id = 0; id < strings.size(); id++) {
+                Assertions.assertEquals(strings.get(id), frontCoded.string(id));
+                Assertions.assertEquals(id, frontCoded.id(strings.get(id)), strings.get(id));
+                Assertions.assertEquals(-1, frontCoded.id(strings.get(id) + "_"), strings.get(id));
+            }
+
+            for (final String missing : List.of("", "0", "aa", "minecraft:", "minecraft:stone_", "minecraft:stonf", "zzz")) {
+                Assertions.assertEquals(-1, frontCoded.id(missing), missing);
+            }
+        }
+
+        // The global identifier table may contain string lists and front coded strings
+        final CompoundTag table = new CompoundTag();
+        table.put("blocks", FrontCodedStrings.encode(strings, FrontCodedStrings.DEFAULT_BLOCK_SIZE));
+        table.put("items", stringList("minecraft:stick", "minecraft:apple"));
+        final Map<String, List<String>> globalIdentifiers = MappingsReader.globalIdentifiers(table);
+        Assertions.assertEquals(strings, globalIdentifiers.get("blocks"));
+        Assertions.assertEquals(List.of("minecraft:stick", "minecraft:apple"), globalIdentifiers.get("items"));
+    }
+
+    @Test
+    void testPerfectHash() {
+        for (final int size : new int[]{0, 1, 5, 1000}) {
+            final List<String> identifiers = new ArrayList<>();
+            for (int i = 0; i < size; i++) {
+                identifiers.add(i % 97 == 3 ? null : "minecraft:entry_" + Integer.toString(i * 31, 36));
+            }
+
+            final PerfectHash perfectHash = PerfectHash.read(PerfectHash.build(identifiers));
+            for (int id = 0; id < identifiers.size(); id++) {
+                if (identifiers.get(id) != null) {
+                    Assertions.assertEquals(id, perfectHash.id(identifiers.get(id), identifiers), identifiers.get(id));
+                }
+            }
+            Assertions.assertEquals(-1, perfectHash.id("minecraft:missing", identifiers));
+        }
+
+        // Identifier files only contain global ids, which are resolved through the global identifier table
+        final List<String> globalIdentifiers = List.of("minecraft:air", "minecraft:stone", "minecraft:dirt", "minecraft:removed");
+        final List<String> identifiers = List.of("minecraft:dirt", "minecraft:air", "minecraft:stone");
+        final int[] table = {2, 0, 1};
+        final CompoundTag perfectHashes = new CompoundTag();
+        perfectHashes.put("blocks", PerfectHash.build(identifiers));
+        final CompoundTag file = new CompoundTag();
+        file.put("mph", perfectHashes);
+        final PerfectHash perfectHash = MappingsReader.perfectHash(file, "blocks");
+        for (int id = 0; id < identifiers.size(); id++) {
+            Assertions.assertEquals(id, MappingsReader.identifierId(perfectHash, identifiers.get(id), table, globalIdentifiers));
         }
+        Assertions.assertEquals(-1, MappingsReader.identifierId(perfectHash, "minecraft:removed", table, globalIdentifiers));
+        Assertions.assertNull(MappingsReader.perfectHash(file, "items"));
+    }
+
+    @Test
+    void testMappingsComposition() {
+        final MappingsResult first = MappingsResult.of(new int[]{0, 2, -1, 3, 1}, 4);
+        final MappingsResult second = MappingsResult.of(new int[]{5, -1, 0, 1}, 6);
+        final MappingsResult composed = MappingsComposer.compose(first, second);
+        Assertions.assertArrayEquals(new int[]{5, 0, -1, 1, -1}, composed.mappings());
+        Assertions.assertEquals(6, composed.mappedSize());
+        Assertions.assertEquals(2, composed.emptyMappings());
+
+        final MappingsResult identity = MappingsComposer.identity(4);
+        Assertions.assertArrayEquals(second.mappings(), MappingsComposer.compose(identity, second).mappings());
+        Assertions.assertArrayEquals(first.mappings(), MappingsComposer.compose(first, identity).mappings());
+    }
+
+    @Test
+    void testInverseMappings() {
+        final int[] injective = {2, -1, 0, 5};
+        Assertions.assertArrayEquals(new int[]{2, -1, 0, -1, -1, 3}, MappingsOptimizer.injectiveInverse(injective, 6));
+
+        final int[] mappings = {1, 1, -1, 0, 3, 1, 7};
+        Assertions.assertNull(MappingsOptimizer.injectiveInverse(mappings, 4));
+        final CompoundTag table = MappingsOptimizer.inverseTable(mappings, 4);
+        final int[] offsets = decodeDirect(table.getByteArrayTag("off"), table.getInt("size") + 1);
+        final int[] ids = decodeDirect(table.getByteArrayTag("val"), offsets[offsets.length - 1]);
+        Assertions.assertArrayEquals(new int[]{0, 1, 4, 4, 5}, offsets);
+        Assertions.assertArrayEquals(new int[]{3, 0, 1, 5, 4}, ids);
+
+        final CompoundTag section = section(MappingsOptimizer.DIRECT_ID, mappings.length, MappingsOptimizer.directValues(mappings));
+        section.put("inv", table);
+        Assertions.assertArrayEquals(new int[][]{{3}, {0, 1, 5}, {}, {4}}, MappingsReader.decodeInverse(section));
+        final int[] inverse = MappingsOptimizer.injectiveInverse(injective, 6);
+        section.put("inv", section(MappingsOptimizer.DIRECT_ID, inverse.length, MappingsOptimizer.directValues(inverse)));
+        Assertions.assertArrayEquals(new int[][]{{2}, {}, {0}, {}, {}, {3}}, MappingsReader.decodeInverse(section));
+    }
+
+    @Test
+    void testOffHeapArena() {
+        final Random random = new Random(41);
+        final int[] mappings = new int[1000];
+        for (int id = 0; id < mappings.length; id++) {
+            mappings[id] = random.nextInt(20) == 0 ? -1 : id + random.nextInt(3);
+        }
+        final MappingsResult result = MappingsResult.of(mappings, -1);
+        final List<CompoundTag> sections = List.of(
+            section(MappingsOptimizer.DIRECT_ID, mappings.length, MappingsOptimizer.directValues(mappings)),
+            withCheckpoints(section(MappingsOptimizer.SHIFTS_ID, mappings.length, MappingsOptimizer.shiftValues(result, "shifts")), 16),
+            withCheckpoints(section(MappingsOptimizer.CHANGES_ID, mappings.length, MappingsOptimizer.changedValues(result, mappings.length - result.identityMappings())), 16)
+        );
+
+        // Small chunks, so that tables are spread over several chunks or get their own buffer
+        final OffHeapArena arena = new OffHeapArena(1024);
+        for (final CompoundTag section : sections) {
+            for (final MappingsView view : List.of(arena.decode(section), arena.map(section))) {
+                Assertions.assertEquals(mappings.length, view.size());
+                for (int id = 0; id < mappings.length; id++) {
+                    Assertions.assertEquals(mappings[id], view.get(id), "id " + id);
+                }
+                Assertions.assertEquals(-1, view.get(-1));
+                Assertions.assertEquals(-1, view.get(mappings.length));
+            }
+        }
+        Assertions.assertTrue(arena.usedBytes() > 0);
+        Assertions.assertTrue(arena.allocatedBytes() >= arena.usedBytes());
+    }
+
+    @Test
+    void testIdSet() {
+        final Random random = new Random(39);
+        final IntList ids = new IntArrayList();
+        for (int id = 0; id < 3000; id++) {
+            // Dense runs, then alternating ids, then sparse ids
+            if (id < 1000 ? id % 200 < 150 : id < 2000 ? id % 2 == 0 : random.nextInt(50) == 0) {
+                ids.add(id);
+            }
+        }
+        ids.add(70_000);
+        ids.add(200_000);
+
+        final IdSet set = IdSet.read(IdSet.encode(new IntArrayList(ids)));
+        Assertions.assertEquals(ids.size(), set.size());
+        Assertions.assertEquals(ids, set.toList());
+        for (int id = -1; id < 3100; id++) {
+            Assertions.assertEquals(ids.contains(id), set.contains(id), "id " + id);
+        }
+        Assertions.assertTrue(set.contains(70_000));
+        Assertions.assertFalse(set.contains(70_001));
+        Assertions.assertTrue(set.contains(200_000));
+        Assertions.assertTrue(IdSet.read(IdSet.encode(new IntArrayList())).toList().isEmpty());
+
+        // Alternating ids are cheapest as a bitset, a single run as runs, a few sparse ids as an array
+        final IntList alternating = new IntArrayList();
+        for (int id = 0; id < 1000; id += 2) {
+            alternating.add(id);
+        }
+        Assertions.assertEquals(IdSet.BITSET, IdSet.encode(alternating).getValue()[2]);
+        Assertions.assertEquals(IdSet.RUNS, IdSet.encode(new IntArrayList(new int[]{5, 6, 7, 8, 9, 10})).getValue()[2]);
+        Assertions.assertEquals(IdSet.ARRAY, IdSet.encode(new IntArrayList(new int[]{5, 100, 1000})).getValue()[2]);
+    }
+
+    @Test
+    void testExtraProjection() {
+        final IntList ids = new IntArrayList(new int[]{0, 1, 2, 5, 7, 8, 20});
+        Assertions.assertEquals(ids, IdRanges.decode(IdRanges.encode(new IntArrayList(ids))));
+        Assertions.assertTrue(IdRanges.decode(IdRanges.encode(new IntArrayList())).isEmpty());
+
+        final CompoundTag profile = new CompoundTag();
+        profile.putByte("0", (byte) 3);
+        profile.put("ids", IdSet.encode(new IntArrayList(new int[]{1, 2, 3})));
+        final ListTag<CompoundTag> profiles = new ListTag<>(CompoundTag.class);
+        profiles.add(profile);
+        final CompoundTag tag = new CompoundTag();
+        tag.put("profiles", profiles);
+        tag.put("set", IdSet.encode(new IntArrayList(ids)));
+        tag.put("list", new IntArrayTag(new int[]{4, 0, 2}));
+        tag.put("properties", new IntArrayTag(new int[]{0, 1})); // Not an id tag
+
+        // Ids 1 and 2 map to the same id, 5 and 20 are unmapped or out of range
+        final int[] mappings = {3, 4, 4, 0, 1, -1, 6, 7, 9};
+        final ExtraDataContext context = new ExtraDataContext(true);
+        Assertions.assertThrows(IllegalArgumentException.class, () -> ExtraProjection.project(context, tag, List.of("set"), mappings));
+        context.markLayout(tag);
+        final CompoundTag projected = ExtraProjection.project(context, tag, List.of("profiles/ids", "set", "list"), mappings);
+        Assertions.assertEquals(IntList.of(3, 4, 7, 9), IdSet.read(projected.getByteArrayTag("set")).toList());
+        Assertions.assertArrayEquals(new int[]{1, 3, 4}, projected.getIntArrayTag("list").getValue());
+        Assertions.assertArrayEquals(new int[]{0, 1}, projected.getIntArrayTag("properties").getValue());
+        final CompoundTag projectedProfile = projected.getListTag("profiles", CompoundTag.class).get(0);
+        Assertions.assertEquals(3, projectedProfile.getByte("0"));
+        Assertions.assertEquals(IntList.of(0, 4), IdSet.read(projectedProfile.getByteArrayTag("ids")).toList());
+        Assertions.assertThrows(IllegalArgumentException.class, () -> ExtraProjection.project(context, tag, List.of("missing"), mappings));
+
+        // Id ranges are read and written back as such without compact sets
+        final CompoundTag ranges = new CompoundTag();
+        ranges.put("set", IdRanges.encode(new IntArrayList(ids)));
+        final ExtraDataContext rangesContext = new ExtraDataContext(false);
+        rangesContext.markLayout(ranges);
+        final CompoundTag projectedRanges = ExtraProjection.project(rangesContext, ranges, List.of("set"), mappings);
+        Assertions.assertEquals(IntList.of(3, 4, 7, 9), IdRanges.decode(projectedRanges.getByteArrayTag("set")));
+        Assertions.assertFalse(projectedRanges.contains(ExtraDataContext.COMPACT_SETS_MARKER));
+
+        // Projecting with the other layout fails instead of misreading the byte arrays
+        Assertions.assertThrows(IllegalArgumentException.class, () -> ExtraProjection.project(rangesContext, projected, List.of("set"), mappings));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> ExtraProjection.project(context, ranges, List.of("set"), mappings));
     }
 
     @Test
     void testOutputFilesRoundTrip() throws IOException {
-        if (!Files.exists(MappingsOptimizer.OUTPUT_DIR.resolve("identifier-table.nbt"))) {
+        final Path identifierTablePath = MappingsOptimizer.OUTPUT_DIR.resolve(MappingsOptimizer.OUTPUT_GLOBAL_IDENTIFIERS_FILE);
+        if (!Files.exists(identifierTablePath) && !Files.exists(MappingsOptimizer.compressedPath(identifierTablePath))) {
             ManualRunner.regenerateNbtOutputFiles(ErrorStrategy.ERROR);
         }
 
+        final Path dictionaryPath = MappingsOptimizer.OUTPUT_DIR.resolve(MappingsOptimizer.OUTPUT_DEFLATE_DICTIONARY_FILE);
         int sections = 0;
         try (final Stream<Path> stream = Files.walk(MappingsOptimizer.OUTPUT_DIR)) {
             for (final Path path : stream.filter(path -> {
                 final String name = path.getFileName().toString();
-                return name.startsWith("mappings-") || name.startsWith("identifiers-");
+                return name.startsWith("mappings-") || name.startsWith("identifiers-") || name.startsWith("sections.");
             }).toList()) {
-                final CompoundTag tag;
-                try (final BufferedInputStream in = new BufferedInputStream(Files.newInputStream(path))) {
-                    tag = NBTIO.reader(CompoundTag.class).named().read(in);
-                }
+                final boolean compressed = path.getFileName().toString().endsWith(MappingsOptimizer.COMPRESSED_FILE_EXTENSION);
+                final CompoundTag tag = MappingsReader.readFile(Files.readAllBytes(path), compressed ? Files.readAllBytes(dictionaryPath) : null);
                 sections += checkSections(tag, path.getFileName().toString());
             }
         }
         Assertions.assertTrue(sections > 100, "Didn't check enough sections: " + sections);
     }
 
+    @Test
+    void testOutputBundle() throws IOException {
+        final Path directory = Files.createTempDirectory("bundle");
+        final Path bundlePath = Files.createTempFile("mappings", ".bundle");
+        try {
+            final CompoundTag a = new CompoundTag();
+            a.putInt("v", 1);
+            a.put("blocks", section(MappingsOptimizer.CHANGES_ID, 6, MappingsOptimizer.atValuePairs(new int[]{1, 4}, new int[]{7, 2})));
+            a.put("items", section(MappingsOptimizer.IDENTITY_ID, 3, new ByteArrayTag(new byte[0])));
+            a.getCompoundTag("items").remove("val");
+            final CompoundTag c = new CompoundTag();
+            c.put("sounds", section(MappingsOptimizer.SHIFTS_ID, 6, MappingsOptimizer.atValuePairs(new int[]{0}, new int[]{3})));
+
+            Files.createDirectories(directory.resolve("backwards"));
+            MappingsOptimizer.write(a, directory.resolve("a.nbt"));
+            MappingsOptimizer.write(c, directory.resolve("backwards/c.nbt"));
+            MappingsOptimizer.write(new CompoundTag(), directory.resolve("ignored.nbt"));
+            OutputBundle.write(directory, List.of(directory.resolve("backwards/c.nbt"), directory.resolve("a.nbt")), bundlePath);
+
+            final OutputBundle bundle = OutputBundle.open(bundlePath);
+            Assertions.assertArrayEquals(new String[]{"a.nbt", "a.nbt#blocks", "backwards/c.nbt", "backwards/c.nbt#sounds"}, bundle.names(), "names");
+            Assertions.assertArrayEquals(MappingsOptimizer.toBytes(a), MappingsOptimizer.toBytes(MappingsReader.readFile(bundle, "a.nbt")), "a.nbt");
+            Assertions.assertArrayEquals(MappingsOptimizer.toBytes(c), MappingsOptimizer.toBytes(MappingsReader.readFile(bundle, "backwards/c.nbt")), "backwards/c.nbt");
+            Assertions.assertArrayEquals(a.getCompoundTag("blocks").getByteArrayTag("val").getValue(), bytes(bundle.values("a.nbt", "blocks")), "a.nbt#blocks");
+            Assertions.assertNull(bundle.values("a.nbt", "items"));
+            Assertions.assertNull(MappingsReader.readFile(bundle, "ignored.nbt"));
+        } finally {
+            try (final Stream<Path> stream = Files.walk(directory)) {
+                for (final Path path : stream.sorted(Comparator.reverseOrder()).toList()) {
+                    Files.delete(path);
+                }
+            }
+            Files.delete(bundlePath);
+        }
+    }
+
+    @Test
+    void testSectionStore() throws IOException {
+        final CompoundTag shared = section(MappingsOptimizer.CHANGES_ID, 6, MappingsOptimizer.atValuePairs(new int[]{1, 4}, new int[]{7, 2}));
+        final CompoundTag other = section(MappingsOptimizer.SHIFTS_ID, 6, MappingsOptimizer.atValuePairs(new int[]{0}, new int[]{3}));
+        final CompoundTag first = new CompoundTag();
+        first.putInt("v", 1);
+        first.put("blocks", shared);
+        first.put("items", other);
+        final CompoundTag second = new CompoundTag();
+        second.put("blocks", shared.copy());
+
+        final SectionStore store = new SectionStore();
+        final CompoundTag firstOutput = store.dedupe(first);
+        final CompoundTag secondOutput = store.dedupe(second);
+        Assertions.assertEquals(3, store.references());
+        Assertions.assertEquals(2, store.uniqueSections());
+        Assertions.assertEquals(store.storedBytes() + MappingsOptimizer.toBytes(shared).length, store.referencedBytes());
+
+        // Identical sections share one hash, different ones get their own, other tags are kept as is
+        final String sharedHash = ((StringTag) firstOutput.get("blocks")).getValue();
+        Assertions.assertEquals(sharedHash, secondOutput.getString("blocks"));
+        Assertions.assertNotEquals(sharedHash, firstOutput.getString("items"));
+        Assertions.assertEquals(1, firstOutput.getInt("v"));
+        Assertions.assertSame(shared, first.get("blocks"));
+
+        final byte[] sharedBytes = MappingsOptimizer.toBytes(shared);
+        Assertions.assertArrayEquals(sharedBytes, MappingsOptimizer.toBytes(MappingsReader.section(firstOutput, "blocks", store.sections())));
+        Assertions.assertArrayEquals(sharedBytes, MappingsOptimizer.toBytes(MappingsReader.section(secondOutput, "blocks", store.sections())));
+        Assertions.assertArrayEquals(MappingsOptimizer.toBytes(other), MappingsOptimizer.toBytes(MappingsReader.section(firstOutput, "items", store.sections())));
+    }
+
+    private static JsonArray jsonArray(final String... identifiers) {
+        final JsonArray array = new JsonArray(identifiers.length);
+        for (final String identifier : identifiers) {
+            array.add(identifier);
+        }
+        return array;
+    }
+
+    private static ListTag<StringTag> stringList(final String... strings) {
+        final ListTag<StringTag> list = new ListTag<>(StringTag.class);
+        for (final String string : strings) {
+            list.add(new StringTag(string));
+        }
+        return list;
+    }
+
+    private static byte[] bytes(final ByteBuffer buffer) {
+        final byte[] bytes = new byte[buffer.remaining()];
+        buffer.get(bytes);
+        return bytes;
+    }
+
     /**
      * Checks for every packed mappings compound that decoding its value array and encoding the
      * result again reproduces the exact same bytes.
@@ -93,6 +579,13 @@ final class MappingFormatTest {
             if (strategy == MappingsOptimizer.IDENTITY_ID) {
                 continue;
             }
+            if (strategy == MappingsOptimizer.DELTA_ID) {
+                // Only depends on the base version's identifiers, check the inserted pairs
+                final int[][] pairs = decodePairs(childTag.getByteArrayTag("ins"));
+                Assertions.assertArrayEquals(childTag.getByteArrayTag("ins").getValue(), MappingsOptimizer.atValuePairs(pairs[0], pairs[1]).getValue(), at);
+                sections++;
+                continue;
+            }
 
             final byte[] values = childTag.getByteArrayTag("val").getValue();
             final ByteArrayTag reencoded;
@@ -106,27 +599,22 @@ final class MappingFormatTest {
             }
 
             Assertions.assertArrayEquals(values, reencoded.getValue(), at);
-            sections++;
-        }
-        return sections;
-    }
-
-    private static MappingsResult result(final int[] mappings) {
-        int emptyMappings = 0;
-        int identityMappings = 0;
-        int shiftChanges = mappings[0] != 0 ? 1 : 0;
-        for (int id = 0; id < mappings.length; id++) {
-            if (mappings[id] == -1) {
-                emptyMappings++;
-            }
-            if (mappings[id] == id) {
-                identityMappings++;
+            if (MappingsReader.isSparse(childTag)) {
+                checkSparse(childTag, at);
+            } else {
+                checkReader(childTag, at);
+                checkInverse(childTag, at);
             }
-            if (id > 0 && mappings[id] != mappings[id - 1] + 1) {
-                shiftChanges++;
+            if (childTag.get("chk") != null) {
+                final int[] checkpoints = MappingsOptimizer.pairCheckpoints(reencoded, MappingsOptimizer.DEFAULT_CHECKPOINT_INTERVAL).getValue();
+                Assertions.assertArrayEquals(checkpoints, childTag.getIntArrayTag("chk").getValue(), at);
             }
+            sections++;
+
+            // Packed inverse mappings
+            sections += checkSections(childTag, at);
         }
-        return new MappingsResult(mappings, -1, emptyMappings, identityMappings, shiftChanges);
+        return sections;
     }
 
     private static int[] decodeDirect(final ByteArrayTag valuesTag, final int size) {
@@ -183,4 +671,80 @@ final class MappingFormatTest {
         }
         return mappings;
     }
+
+    private static CompoundTag section(final byte strategy, final int size, final ByteArrayTag values) {
+        final CompoundTag section = new CompoundTag();
+        section.putByte("id", strategy);
+        section.putInt("size", size);
+        section.put("val", values);
+        return section;
+    }
+
+    private static CompoundTag withCheckpoints(final CompoundTag section, final int interval) {
+        if (interval != 0) {
+            section.put("chk", MappingsOptimizer.pairCheckpoints(section.getByteArrayTag("val"), interval));
+        } else {
+            section.remove("chk");
+        }
+        return section;
+    }
+
+    /**
+     * Checks that the map and view of a section with sparse ids contain exactly its pairs.
+     */
+    private static void checkSparse(final CompoundTag section, final String name) {
+        final int[][] pairs = decodePairs(section.getByteArrayTag("val"));
+        final Int2IntMap mappings = MappingsReader.decodeSparse(section);
+        final MappingsView view = MappingsReader.view(section);
+        Assertions.assertEquals(pairs[0].length, mappings.size(), name);
+        for (int i = 0; i < pairs[0].length; i++) {
+            Assertions.assertEquals(pairs[1][i], mappings.get(pairs[0][i]), name + " at " + pairs[0][i]);
+            Assertions.assertEquals(pairs[1][i], view.get(pairs[0][i]), name + " at " + pairs[0][i]);
+        }
+        Assertions.assertEquals(-1, view.get(-1), name);
+    }
+
+    /**
+     * Checks that every id with a mapped id within the mapped size is part of the decoded inverse mappings.
+     */
+    private static void checkInverse(final CompoundTag section, final String name) {
+        final int[][] inverse = MappingsReader.decodeInverse(section);
+        if (inverse == null) {
+            return;
+        }
+
+        final int[] mappings = MappingsReader.decode(section);
+        int inverseIds = 0;
+        for (int id = 0; id < mappings.length; id++) {
+            if (mappings[id] >= 0 && mappings[id] < inverse.length) {
+                Assertions.assertTrue(Arrays.binarySearch(inverse[mappings[id]], id) >= 0, name + " at " + id);
+                inverseIds++;
+            }
+        }
+        for (final int[] ids : inverse) {
+            inverseIds -= ids.length;
+        }
+        Assertions.assertEquals(0, inverseIds, name);
+    }
+
+    /**
+     * Checks that full decoding, visiting and lookups in a view of the section all return the same mappings.
+     */
+    private static void checkReader(final CompoundTag section, final String name) {
+        final int[] mappings = MappingsReader.decode(section);
+        final int[] visited = new int[mappings.length];
+        final int[] visits = new int[1];
+        MappingsReader.accept(section, (id, mappedId) -> {
+            Assertions.assertEquals(visits[0]++, id, name);
+            visited[id] = mappedId;
+        });
+        Assertions.assertEquals(mappings.length, visits[0], name);
+        Assertions.assertArrayEquals(mappings, visited, name);
+
+        final MappingsView view = MappingsReader.view(section);
+        for (int id = 0; id < mappings.length; id++) {
+            Assertions.assertEquals(mappings[id], view.get(id), name + " at " + id);
+        }
+        Assertions.assertEquals(-1, view.get(mappings.length), name);
+    }
 }
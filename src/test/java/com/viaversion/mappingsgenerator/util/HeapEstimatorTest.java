@@ -0,0 +1,24 @@
+package com.viaversion.mappingsgenerator.util;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+final class HeapEstimatorTest {
+
+    @Test
+    void testHeapEstimator() {
+        Assertions.assertEquals(56, HeapEstimator.of("stone_wal"));
+        Assertions.assertEquals(64, HeapEstimator.of("stone_wa\u2603"));
+
+        final JsonArray array = new JsonArray();
+        array.add("stone");
+        Assertions.assertEquals(160, HeapEstimator.of(array));
+
+        final JsonObject object = new JsonObject();
+        object.addProperty("a", true);
+        Assertions.assertEquals(224, HeapEstimator.of(object));
+        Assertions.assertEquals(144, HeapEstimator.openHashMap(3));
+    }
+}